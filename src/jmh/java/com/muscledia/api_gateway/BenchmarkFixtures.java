@@ -0,0 +1,73 @@
+package com.muscledia.api_gateway;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.muscledia.api_gateway.config.GatewayMetrics;
+import com.muscledia.api_gateway.config.IdentityHeaders;
+import com.muscledia.api_gateway.config.JwtClaimsCache;
+import com.muscledia.api_gateway.config.JwtKeyRing;
+import com.muscledia.api_gateway.config.JwtVerificationOffload;
+import com.muscledia.api_gateway.config.JwtVerifier;
+import com.muscledia.api_gateway.revocation.TokenRevocationList;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Shared tokens and components for the benchmarks, wired by hand so no Spring context
+ * is started inside the measured JVM.
+ */
+public final class BenchmarkFixtures {
+
+    public static final String SECRET =
+            "81795ad725b2cadd49d27a60438415588db374020a561ae19cafebeef6339655304975b150867b21d3715e341a49271a75a7dde39776e156af0ddad50f5e6ec3";
+
+    private BenchmarkFixtures() {
+    }
+
+    public static MockEnvironment environment() {
+        return new MockEnvironment().withProperty("jwt.secret", SECRET);
+    }
+
+    /**
+     * @param cacheSize claims cache capacity; {@code 0} makes every call a full verification
+     */
+    public static JwtVerifier verifier(long cacheSize) {
+        JwtClaimsCache cache = new JwtClaimsCache(cacheSize, Duration.ofMinutes(5), new SimpleMeterRegistry());
+        JwtKeyRing keyRing = new JwtKeyRing(environment(), cache, "");
+        return new JwtVerifier(keyRing, cache, new TokenRevocationList(1000), metrics());
+    }
+
+    /**
+     * Verification that always stays on the calling thread, as on the event loop.
+     */
+    public static JwtVerificationOffload inlineVerification(long cacheSize) {
+        return new JwtVerificationOffload(verifier(cacheSize), false, Duration.ofNanos(50_000), 1, 1, false);
+    }
+
+    public static IdentityHeaders identityHeaders() {
+        return new IdentityHeaders(new ObjectMapper(), "");
+    }
+
+    public static GatewayMetrics metrics() {
+        return new GatewayMetrics(new SimpleMeterRegistry());
+    }
+
+    public static String token(long userId) {
+        return Jwts.builder()
+                .subject("user" + userId)
+                .issuer("muscledia-user-service")
+                .claim("userId", userId)
+                .claim("role", "USER")
+                .claim("roles", List.of("USER"))
+                .issuedAt(new Date())
+                .expiration(new Date(System.currentTimeMillis() + Duration.ofHours(24).toMillis()))
+                .signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+    }
+}
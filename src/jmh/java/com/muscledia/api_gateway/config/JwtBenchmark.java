@@ -0,0 +1,72 @@
+package com.muscledia.api_gateway.config;
+
+import com.muscledia.api_gateway.BenchmarkFixtures;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token verification and claim extraction through {@link JwtVerifier} and {@link JwtUtil},
+ * with and without the verified-claims cache.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtBenchmark {
+
+    private String token;
+    private JwtVerifier uncachedVerifier;
+    private JwtVerifier cachedVerifier;
+    private JwtUtil uncachedJwtUtil;
+
+    @Setup
+    public void setUp() {
+        token = BenchmarkFixtures.token(42L);
+        uncachedVerifier = BenchmarkFixtures.verifier(0);
+        cachedVerifier = BenchmarkFixtures.verifier(10_000);
+        uncachedJwtUtil = new JwtUtil(uncachedVerifier);
+    }
+
+    @Benchmark
+    public Claims verifyUncached() {
+        return uncachedVerifier.verify(token);
+    }
+
+    @Benchmark
+    public Claims verifyCached() {
+        return cachedVerifier.verify(token);
+    }
+
+    /** Claim-by-claim extraction, one verification per claim. */
+    @Benchmark
+    public void extractPerClaim(Blackhole blackhole) {
+        blackhole.consume(uncachedJwtUtil.extractUsername(token));
+        blackhole.consume(uncachedJwtUtil.extractRole(token));
+        blackhole.consume(uncachedJwtUtil.extractUserId(token));
+        blackhole.consume(uncachedJwtUtil.extractExpiration(token));
+    }
+
+    /** All claims read from a single verification. */
+    @Benchmark
+    public void extractFromClaims(Blackhole blackhole) {
+        Claims claims = uncachedJwtUtil.extractAllClaims(token);
+        blackhole.consume(claims.getSubject());
+        blackhole.consume(uncachedJwtUtil.extractRole(claims));
+        blackhole.consume(uncachedJwtUtil.extractUserId(claims));
+        blackhole.consume(claims.getExpiration());
+    }
+}
@@ -0,0 +1,43 @@
+package com.muscledia.api_gateway.exception;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON error body construction in {@link ReactiveGlobalErrorHandler} through
+ * {@link ErrorResponseWriter}, the hot path during downstream outages. Error logging is
+ * switched off in the benchmark logback config.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReactiveGlobalErrorHandlerBenchmark {
+
+    private static final ResponseStatusException SERVICE_UNAVAILABLE =
+            new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Service temporarily unavailable");
+
+    private final ReactiveGlobalErrorHandler handler = new ReactiveGlobalErrorHandler(new ErrorResponseWriter());
+
+    @Benchmark
+    public void handleServiceUnavailable() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(
+                MockServerHttpRequest.get("/api/v1/workouts/42"));
+        handler.handle(exchange, SERVICE_UNAVAILABLE).block();
+    }
+}
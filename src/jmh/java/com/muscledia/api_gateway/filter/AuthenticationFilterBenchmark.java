@@ -0,0 +1,106 @@
+package com.muscledia.api_gateway.filter;
+
+import com.muscledia.api_gateway.BenchmarkFixtures;
+import com.muscledia.api_gateway.config.UserIdentity;
+import com.muscledia.api_gateway.exception.ErrorResponseWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request cost of {@link AuthenticationFilter}: token validation, downstream identity
+ * headers and the 401 response body, each on a fresh exchange as in production.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuthenticationFilterBenchmark {
+
+    private static final GatewayFilterChain NO_OP_CHAIN = exchange -> Mono.empty();
+
+    /** Claims cache capacity; 0 forces signature verification on every request. */
+    @Param({"0", "10000"})
+    public long cacheSize;
+
+    private String authorization;
+    private GatewayFilter filter;
+    private MockServerHttpRequest request;
+    private UserIdentity identity;
+
+    @Setup
+    public void setUp() {
+        authorization = "Bearer " + BenchmarkFixtures.token(42L);
+        filter = new AuthenticationFilter(BenchmarkFixtures.inlineVerification(cacheSize),
+                BenchmarkFixtures.identityHeaders(), BenchmarkFixtures.metrics(), new ErrorResponseWriter(), 100)
+                .apply(new AuthenticationFilter.Config());
+        identity = BenchmarkFixtures.identityHeaders()
+                .identityOf(BenchmarkFixtures.verifier(1).verify(BenchmarkFixtures.token(42L)));
+        request = MockServerHttpRequest.get("/api/v1/workouts/42")
+                .header(HttpHeaders.AUTHORIZATION, authorization)
+                .build();
+    }
+
+    @Benchmark
+    public void authenticatedRequest() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(
+                MockServerHttpRequest.get("/api/v1/workouts/42").header(HttpHeaders.AUTHORIZATION, authorization));
+        filter.filter(exchange, NO_OP_CHAIN).block();
+    }
+
+    @Benchmark
+    public void publicRequest() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(
+                MockServerHttpRequest.get("/api/v1/workout-plans/public/7"));
+        filter.filter(exchange, NO_OP_CHAIN).block();
+    }
+
+    @Benchmark
+    public void unauthorizedResponse() {
+        MockServerWebExchange exchange = MockServerWebExchange.from(
+                MockServerHttpRequest.get("/api/v1/workouts/42"));
+        filter.filter(exchange, NO_OP_CHAIN).block();
+    }
+
+    /** The identity-header request copy the filter used to make for every authenticated request. */
+    @Benchmark
+    public ServerHttpRequest headerMutation() {
+        return request.mutate()
+                .header("X-User-Id", String.valueOf(42L))
+                .header("X-Username", "user42")
+                .header("X-User-Roles", String.join(",", List.of("USER")))
+                .build();
+    }
+
+    /**
+     * The cached identity written into the upstream headers, which the routing filter
+     * copies from the request in any case.
+     */
+    @Benchmark
+    public HttpHeaders cachedIdentityHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.addAll(request.getHeaders());
+        identity.writeTo(headers);
+        return headers;
+    }
+}
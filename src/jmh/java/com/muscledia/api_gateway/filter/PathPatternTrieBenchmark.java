@@ -0,0 +1,48 @@
+package com.muscledia.api_gateway.filter;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpMethod;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Public-path matching: the compiled trie against the stream-over-list approach
+ * {@link AuthenticationFilter} used before.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PathPatternTrieBenchmark {
+
+    private static final List<String> LEGACY_PUBLIC_PATHS = List.of(
+            "/login", "/register", "/public", "/health", "/actuator", "/swagger", "/api-docs"
+    );
+
+    @Param({"/api/v1/workouts/42/sets", "/api/users/login", "/api/v1/workout-plans/public/7"})
+    public String path;
+
+    private final PathPatternTrie trie = new AuthenticationFilter.Config().getPublicPathMatcher();
+
+    @Benchmark
+    public boolean legacyStreamContains() {
+        return LEGACY_PUBLIC_PATHS.stream().anyMatch(path::contains);
+    }
+
+    @Benchmark
+    public boolean compiledTrie() {
+        return trie.matches(path, HttpMethod.GET);
+    }
+}
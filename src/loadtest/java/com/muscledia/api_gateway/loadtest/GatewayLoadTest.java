@@ -0,0 +1,209 @@
+package com.muscledia.api_gateway.loadtest;
+
+import com.muscledia.api_gateway.ApiGatewayApplication;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import org.HdrHistogram.Histogram;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.resources.LoopResources;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Boots the gateway with its real route table pointed at in-process stub upstreams and
+ * drives it with an open-loop load generator. Arguments are {@code key=value} pairs:
+ *
+ * <pre>
+ * rate=2000            offered requests per second
+ * warmup=15s           load before measuring (JIT, pools)
+ * duration=30s         measured load
+ * connections=512      client connections / max in-flight requests
+ * latency=5ms          stub upstream latency
+ * body=512             stub response size in bytes
+ * auth=false           send a signed bearer token with every request
+ * paths=GET:/api/v1/exercises,GET:/api/quests/daily,POST:/api/users/login,GET:/ollama/api/tags
+ * </pre>
+ *
+ * Arguments starting with {@code --} are passed on to the gateway's Spring context.
+ */
+public final class GatewayLoadTest {
+
+    private static final List<String> GATEWAY_THREAD_PREFIXES = List.of("reactor-http-", "boundedElastic-", "parallel-",
+            "jwt-verify-");
+
+    private static final Map<String, String> UPSTREAMS = Map.of(
+            "user-service", "USER_SERVICE_URI",
+            "workout-service", "WORKOUT_SERVICE_URI",
+            "gamification-service", "GAMIFICATION_SERVICE_URI",
+            "ai-service", "AI_SERVICE_URI"
+    );
+
+    private GatewayLoadTest() {
+    }
+
+    public static void main(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        List<String> springArgs = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.startsWith("--")) {
+                springArgs.add(arg);
+            } else if (arg.contains("=")) {
+                options.put(arg.substring(0, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+            }
+        }
+
+        int rate = Integer.parseInt(options.getOrDefault("rate", "2000"));
+        Duration warmup = DurationStyle.detectAndParse(options.getOrDefault("warmup", "15s"));
+        Duration duration = DurationStyle.detectAndParse(options.getOrDefault("duration", "30s"));
+        int connections = Integer.parseInt(options.getOrDefault("connections", "512"));
+        Duration latency = DurationStyle.detectAndParse(options.getOrDefault("latency", "5ms"));
+        int bodySize = Integer.parseInt(options.getOrDefault("body", "512"));
+        boolean auth = Boolean.parseBoolean(options.getOrDefault("auth", "false"));
+        List<OpenLoopLoadGenerator.RequestTemplate> requests = Arrays.stream(options.getOrDefault("paths",
+                        "GET:/api/v1/exercises,GET:/api/quests/daily,POST:/api/users/login,GET:/ollama/api/tags").split(","))
+                .map(OpenLoopLoadGenerator.RequestTemplate::parse)
+                .toList();
+
+        LoopResources stubLoops = LoopResources.create("stub", 2, true);
+        Scheduler stubDelays = Schedulers.newParallel("stub-delay", 2, true);
+        List<StubUpstream> stubs = new ArrayList<>();
+        // Command-line arguments outrank application.yml; user-supplied --args come last and win
+        List<String> gatewayArgs = new ArrayList<>();
+        UPSTREAMS.forEach((service, property) -> {
+            StubUpstream stub = StubUpstream.start(service, stubLoops, stubDelays, latency, bodySize);
+            stubs.add(stub);
+            gatewayArgs.add("--" + property + "=" + stub.uri());
+        });
+        gatewayArgs.add("--server.port=0");
+        gatewayArgs.add("--eureka.client.enabled=false");
+        // Keeps the report readable; pass --gateway.access-log.enabled=true to include its cost
+        gatewayArgs.add("--gateway.access-log.enabled=false");
+        gatewayArgs.addAll(springArgs);
+
+        ConfigurableApplicationContext gateway = new SpringApplicationBuilder(ApiGatewayApplication.class)
+                .run(gatewayArgs.toArray(String[]::new));
+        int port = ((ReactiveWebServerApplicationContext) gateway).getWebServer().getPort();
+
+        String authorization = auth ? "Bearer " + token(gateway.getEnvironment().getRequiredProperty("jwt.secret")) : null;
+        LoopResources clientLoops = LoopResources.create("loadgen", 2, true);
+        HttpClient client = HttpClient.create(ConnectionProvider.builder("loadgen")
+                        .maxConnections(connections)
+                        .pendingAcquireMaxCount(-1)
+                        .pendingAcquireTimeout(Duration.ofSeconds(30))
+                        .build())
+                .runOn(clientLoops)
+                .baseUrl("http://127.0.0.1:" + port)
+                .headers(headers -> {
+                    headers.set(HttpHeaderNames.CONTENT_TYPE, "application/json");
+                    if (authorization != null) {
+                        headers.set(HttpHeaderNames.AUTHORIZATION, authorization);
+                    }
+                });
+
+        OpenLoopLoadGenerator generator = new OpenLoopLoadGenerator(client, requests, rate, connections);
+        try {
+            System.out.printf("Warming up for %s at %d req/s against port %d...%n", warmup, rate, port);
+            generator.run(warmup);
+            generator.drainResult();
+
+            System.out.printf("Measuring for %s...%n", duration);
+            ThreadUsage before = ThreadUsage.snapshot();
+            long startNanos = System.nanoTime();
+            generator.run(duration);
+            long elapsedNanos = System.nanoTime() - startNanos;
+            ThreadUsage gatewayUsage = ThreadUsage.snapshot().minus(before);
+
+            report(generator.drainResult(), gatewayUsage, elapsedNanos, rate, latency, bodySize);
+        } finally {
+            gateway.close();
+            stubs.forEach(StubUpstream::stop);
+            clientLoops.disposeLater().block();
+            stubLoops.disposeLater().block();
+            stubDelays.dispose();
+        }
+    }
+
+    private static void report(OpenLoopLoadGenerator.Result result, ThreadUsage gateway, long elapsedNanos,
+                               int rate, Duration latency, int bodySize) {
+        Histogram latencies = result.latencies();
+        long completed = Math.max(1, result.completed());
+        System.out.println();
+        System.out.printf("Offered %d req/s, stub latency %s, body %d B%n", rate, latency, bodySize);
+        System.out.printf("Requests   ok=%d failed=%d dropped=%d%n", result.succeeded(), result.failed(), result.dropped());
+        System.out.printf("Throughput %.1f req/s%n", result.completed() / (elapsedNanos / 1e9));
+        System.out.printf("Latency    p50=%.2fms p99=%.2fms p99.9=%.2fms max=%.2fms%n",
+                latencies.getValueAtPercentile(50) / 1e6,
+                latencies.getValueAtPercentile(99) / 1e6,
+                latencies.getValueAtPercentile(99.9) / 1e6,
+                latencies.getMaxValue() / 1e6);
+        System.out.printf("Gateway    cpu=%.1fus/req alloc=%.1fKB/req%n",
+                gateway.cpuNanos() / 1e3 / completed,
+                gateway.allocatedBytes() / 1024.0 / completed);
+    }
+
+    private static String token(String secret) {
+        return Jwts.builder()
+                .subject("loadtest")
+                .claim("userId", 1L)
+                .claim("roles", List.of("USER"))
+                .expiration(new Date(System.currentTimeMillis() + Duration.ofHours(1).toMillis()))
+                .signWith(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)))
+                .compact();
+    }
+
+    /**
+     * CPU time and allocated bytes summed over the gateway's own threads (server and
+     * client event loops, Reactor schedulers and the JWT verification workers); stub and
+     * load-generator threads use different name prefixes and are excluded. Virtual threads
+     * are not listed by {@link Thread#getAllStackTraces()}, so verification offloaded to
+     * them is not counted.
+     */
+    private record ThreadUsage(Map<Long, long[]> perThread, long cpuNanos, long allocatedBytes) {
+
+        static ThreadUsage snapshot() {
+            com.sun.management.ThreadMXBean threads =
+                    (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            Map<Long, long[]> perThread = new HashMap<>();
+            long cpu = 0;
+            long allocated = 0;
+            for (Thread thread : Thread.getAllStackTraces().keySet()) {
+                if (GATEWAY_THREAD_PREFIXES.stream().noneMatch(thread.getName()::startsWith)) {
+                    continue;
+                }
+                long id = thread.threadId();
+                long[] usage = {threads.getThreadCpuTime(id), threads.getThreadAllocatedBytes(id)};
+                perThread.put(id, usage);
+                cpu += usage[0];
+                allocated += usage[1];
+            }
+            return new ThreadUsage(perThread, cpu, allocated);
+        }
+
+        ThreadUsage minus(ThreadUsage earlier) {
+            long cpu = 0;
+            long allocated = 0;
+            for (Map.Entry<Long, long[]> entry : perThread.entrySet()) {
+                long[] start = earlier.perThread().getOrDefault(entry.getKey(), new long[2]);
+                cpu += entry.getValue()[0] - start[0];
+                allocated += entry.getValue()[1] - start[1];
+            }
+            return new ThreadUsage(perThread, cpu, allocated);
+        }
+    }
+}
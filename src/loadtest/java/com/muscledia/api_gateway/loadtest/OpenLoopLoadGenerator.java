@@ -0,0 +1,111 @@
+package com.muscledia.api_gateway.loadtest;
+
+import io.netty.handler.codec.http.HttpMethod;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import reactor.core.publisher.Mono;
+import reactor.netty.ByteBufFlux;
+import reactor.netty.http.client.HttpClient;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Fires requests on a fixed schedule regardless of how fast responses come back, and
+ * measures latency from each request's intended send time, so a stalled gateway shows
+ * up as queueing delay instead of silently lowering the offered load.
+ */
+final class OpenLoopLoadGenerator {
+
+    record RequestTemplate(HttpMethod method, String path, String body) {
+
+        /** Parses {@code METHOD:/path}, e.g. {@code POST:/api/users/login}. */
+        static RequestTemplate parse(String spec) {
+            int colon = spec.indexOf(':');
+            HttpMethod method = HttpMethod.valueOf(spec.substring(0, colon).toUpperCase());
+            String body = HttpMethod.GET.equals(method) || HttpMethod.DELETE.equals(method)
+                    ? null
+                    : "{\"username\":\"loadtest\",\"password\":\"loadtest\"}";
+            return new RequestTemplate(method, spec.substring(colon + 1), body);
+        }
+    }
+
+    private final HttpClient client;
+    private final List<RequestTemplate> requests;
+    private final int rate;
+    private final int maxInFlight;
+
+    private final Recorder recorder = new Recorder(3);
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong inFlight = new AtomicLong();
+
+    OpenLoopLoadGenerator(HttpClient client, List<RequestTemplate> requests, int rate, int maxInFlight) {
+        this.client = client;
+        this.requests = requests;
+        this.rate = rate;
+        this.maxInFlight = maxInFlight;
+    }
+
+    /**
+     * Offers load for {@code duration}, then waits (bounded) for outstanding responses.
+     */
+    void run(Duration duration) {
+        long intervalNanos = 1_000_000_000L / rate;
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        long sequence = 0;
+        for (long intended = start; intended < end; intended = start + (++sequence) * intervalNanos) {
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            fire(requests.get((int) (sequence % requests.size())), intended);
+        }
+
+        long drainDeadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            LockSupport.parkNanos(Duration.ofMillis(10).toNanos());
+        }
+    }
+
+    /** Returns the latencies and counters since the previous call and resets them. */
+    Result drainResult() {
+        return new Result(recorder.getIntervalHistogram(),
+                succeeded.getAndSet(0), failed.getAndSet(0), dropped.getAndSet(0));
+    }
+
+    private void fire(RequestTemplate template, long intendedNanos) {
+        if (inFlight.incrementAndGet() > maxInFlight) {
+            inFlight.decrementAndGet();
+            dropped.incrementAndGet();
+            return;
+        }
+
+        HttpClient.RequestSender sender = client.request(template.method()).uri(template.path());
+        HttpClient.ResponseReceiver<?> receiver = template.body() == null
+                ? sender
+                : sender.send(ByteBufFlux.fromString(Mono.just(template.body())));
+        receiver.responseSingle((response, content) -> content.asByteArray()
+                        .then(Mono.just(response.status().code())))
+                .subscribe(
+                        status -> complete(intendedNanos, status < 400),
+                        error -> complete(intendedNanos, false));
+    }
+
+    private void complete(long intendedNanos, boolean success) {
+        recorder.recordValue(System.nanoTime() - intendedNanos);
+        (success ? succeeded : failed).incrementAndGet();
+        inFlight.decrementAndGet();
+    }
+
+    record Result(Histogram latencies, long succeeded, long failed, long dropped) {
+
+        long completed() {
+            return succeeded + failed;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.muscledia.api_gateway.loadtest;
+
+import io.netty.handler.codec.http.HttpHeaderNames;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.LoopResources;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * In-process stand-in for one downstream service: answers every request with a fixed
+ * JSON body after a fixed latency, on its own event loops so its CPU and allocation are
+ * not attributed to the gateway.
+ */
+final class StubUpstream {
+
+    private final String name;
+    private final DisposableServer server;
+
+    private StubUpstream(String name, DisposableServer server) {
+        this.name = name;
+        this.server = server;
+    }
+
+    static StubUpstream start(String name, LoopResources loops, Scheduler delayScheduler,
+                              Duration latency, int bodySize) {
+        byte[] body = jsonBody(name, bodySize);
+        DisposableServer server = HttpServer.create()
+                .host("127.0.0.1")
+                .port(0)
+                .runOn(loops)
+                .handle((request, response) -> {
+                    Mono<Void> delay = latency.isZero() ? Mono.empty() : Mono.delay(latency, delayScheduler).then();
+                    return request.receive().then()
+                            .then(delay)
+                            .then(Mono.defer(() -> Mono.from(response
+                                    .header(HttpHeaderNames.CONTENT_TYPE, "application/json")
+                                    .header(HttpHeaderNames.CONTENT_LENGTH, String.valueOf(body.length))
+                                    .sendByteArray(Mono.just(body)))));
+                })
+                .bindNow();
+        return new StubUpstream(name, server);
+    }
+
+    String uri() {
+        return "http://127.0.0.1:" + server.port();
+    }
+
+    String name() {
+        return name;
+    }
+
+    void stop() {
+        server.disposeNow();
+    }
+
+    private static byte[] jsonBody(String service, int size) {
+        String prefix = "{\"service\":\"" + service + "\",\"padding\":\"";
+        String suffix = "\"}";
+        int padding = Math.max(0, size - prefix.length() - suffix.length());
+        char[] filler = new char[padding];
+        Arrays.fill(filler, 'x');
+        return (prefix + new String(filler) + suffix).getBytes(StandardCharsets.UTF_8);
+    }
+}
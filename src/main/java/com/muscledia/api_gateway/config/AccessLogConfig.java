@@ -0,0 +1,24 @@
+package com.muscledia.api_gateway.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.netty.NettyServerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.netty.http.server.logging.AccessLog;
+
+@Configuration
+@ConditionalOnProperty(name = "gateway.access-log.enabled", havingValue = "true")
+public class AccessLogConfig {
+
+    /**
+     * Enables Reactor Netty's access log with a key=value format. Arguments are only
+     * formatted if the AccessLog logger is enabled, and logback-spring.xml routes that
+     * logger through its own non-blocking async appender.
+     */
+    @Bean
+    public NettyServerCustomizer accessLogCustomizer() {
+        return httpServer -> httpServer.accessLog(true, args -> AccessLog.create(
+                "method={} uri={} status={} duration_ms={} bytes={}",
+                args.method(), args.uri(), args.status(), args.duration(), args.contentLength()));
+    }
+}
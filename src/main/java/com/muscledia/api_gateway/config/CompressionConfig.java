@@ -0,0 +1,20 @@
+package com.muscledia.api_gateway.config;
+
+import com.muscledia.api_gateway.filter.ResponseCompressionFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(CompressionProperties.class)
+public class CompressionConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "gateway.compression.enabled", havingValue = "true", matchIfMissing = true)
+    public ResponseCompressionFilter responseCompressionFilter(CompressionProperties properties,
+                                                               MeterRegistry meterRegistry) {
+        return new ResponseCompressionFilter(properties, meterRegistry);
+    }
+}
@@ -0,0 +1,32 @@
+package com.muscledia.api_gateway.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Gzip compression of response bodies the upstream sent uncompressed. Only the listed
+ * media types are compressed, and only when the body is at least {@code min-response-size}
+ * or of unknown length.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "gateway.compression")
+public class CompressionProperties {
+
+    private boolean enabled = true;
+    // zlib level, 1 (fastest) to 9 (smallest)
+    private int level = 5;
+    private DataSize minResponseSize = DataSize.ofKilobytes(1);
+    private List<String> mimeTypes = new ArrayList<>(List.of(
+            "application/json", "application/problem+json", "text/plain", "text/html", "text/css",
+            "application/javascript", "application/xml", "text/xml"));
+    // Paths never compressed, e.g. routes that stream token by token
+    private List<String> excludedPaths = new ArrayList<>(List.of("/ollama/**"));
+    // Idle encoders kept for reuse; each holds about 256 KB of native zlib memory
+    private int poolSize = 64;
+}
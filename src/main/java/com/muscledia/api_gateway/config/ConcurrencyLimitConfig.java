@@ -0,0 +1,20 @@
+package com.muscledia.api_gateway.config;
+
+import com.muscledia.api_gateway.filter.ConcurrencyLimitFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(ConcurrencyLimitProperties.class)
+public class ConcurrencyLimitConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "gateway.concurrency-limit.enabled", havingValue = "true", matchIfMissing = true)
+    public ConcurrencyLimitFilter concurrencyLimitFilter(ConcurrencyLimitProperties properties, MeterRegistry meterRegistry,
+                                                         JwtClaimsCache claimsCache) {
+        return new ConcurrencyLimitFilter(properties, meterRegistry, claimsCache);
+    }
+}
@@ -0,0 +1,40 @@
+package com.muscledia.api_gateway.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Adaptive concurrency limits on upstream calls: one across the gateway and one per route.
+ * Each starts at {@code initial-limit} and moves between {@code min-limit} and
+ * {@code max-limit} with upstream latency.
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "gateway.concurrency-limit")
+public class ConcurrencyLimitProperties {
+
+    private boolean enabled = true;
+    // Part of each limit anonymous requests may use on routes running AuthenticationFilter;
+    // the rest is kept for authenticated ones
+    private double anonymousShare = 0.8;
+    private Limit global = new Limit(200, 20, 2000);
+    private Limit route = new Limit(50, 5, 500);
+
+    @Getter
+    @Setter
+    public static class Limit {
+        private int initialLimit;
+        private int minLimit;
+        private int maxLimit;
+
+        public Limit() {
+        }
+
+        Limit(int initialLimit, int minLimit, int maxLimit) {
+            this.initialLimit = initialLimit;
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+        }
+    }
+}
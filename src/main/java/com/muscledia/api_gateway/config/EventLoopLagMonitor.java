@@ -0,0 +1,68 @@
+package com.muscledia.api_gateway.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import reactor.netty.http.HttpResources;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long the server event loops are held up by work running on them, such as
+ * JWT verification: every {@code gateway.eventloop.lag-probe-interval} each loop gets a
+ * timed task, and the delay between when it was due and when it ran goes to
+ * {@code gateway.eventloop.lag}. An idle or healthy loop stays in the microseconds.
+ */
+@Component
+public class EventLoopLagMonitor implements SmartLifecycle {
+
+    private final Timer lag;
+    private final long intervalNanos;
+    private volatile boolean running;
+
+    public EventLoopLagMonitor(MeterRegistry meterRegistry,
+                               @Value("${gateway.eventloop.lag-probe-interval:100ms}") Duration interval) {
+        this.lag = Timer.builder("gateway.eventloop.lag")
+                .description("How late event-loop tasks run; grows when something blocks the loop")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(10_000))
+                .maximumExpectedValue(Duration.ofSeconds(1))
+                .register(meterRegistry);
+        this.intervalNanos = interval.toNanos();
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        // The loops the embedded server runs on, shared through Reactor Netty's global resources
+        EventLoopGroup loops = HttpResources.get().onServer(true);
+        for (EventExecutor loop : loops) {
+            probe(loop);
+        }
+    }
+
+    private void probe(EventExecutor loop) {
+        long due = System.nanoTime() + intervalNanos;
+        loop.schedule(() -> {
+            lag.record(Math.max(0, System.nanoTime() - due), TimeUnit.NANOSECONDS);
+            if (running) {
+                probe(loop);
+            }
+        }, intervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+}
@@ -0,0 +1,169 @@
+package com.muscledia.api_gateway.config;
+
+import com.muscledia.api_gateway.revocation.RevokedTokenException;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters for authentication, upstream calls and fallbacks. Meters are registered up front,
+ * or once per route or service, so recording on the request path is a map lookup and an
+ * increment, never a registry lookup. All tags are bounded: outcome enums, route ids and
+ * service names. Other components register their own meters the same way.
+ */
+@Component
+public class GatewayMetrics {
+
+    public enum AuthOutcome {
+        SUCCESS("success"),
+        PUBLIC("public"),
+        MISSING_HEADER("missing_header"),
+        BAD_SIGNATURE("bad_signature"),
+        EXPIRED("expired"),
+        INVALID_TOKEN("invalid_token"),
+        REVOKED("revoked"),
+        INSUFFICIENT_ROLE("insufficient_role");
+
+        private final String tag;
+
+        AuthOutcome(String tag) {
+            this.tag = tag;
+        }
+
+        public static AuthOutcome forFailure(Throwable failure) {
+            if (failure instanceof ExpiredJwtException) {
+                return EXPIRED;
+            }
+            if (failure instanceof SignatureException) {
+                return BAD_SIGNATURE;
+            }
+            if (failure instanceof RevokedTokenException) {
+                return REVOKED;
+            }
+            return INVALID_TOKEN;
+        }
+    }
+
+    public enum UpstreamOutcome {
+        SUCCESS, REDIRECTION, CLIENT_ERROR, SERVER_ERROR, ERROR, CANCELLED;
+
+        public static UpstreamOutcome forStatus(HttpStatusCode status) {
+            if (status == null || status.is5xxServerError()) {
+                return SERVER_ERROR;
+            }
+            if (status.is4xxClientError()) {
+                return CLIENT_ERROR;
+            }
+            return status.is3xxRedirection() ? REDIRECTION : SUCCESS;
+        }
+    }
+
+    private final MeterRegistry registry;
+    private final Map<AuthOutcome, Counter> authOutcomes = new EnumMap<>(AuthOutcome.class);
+    private final Timer jwtVerifySuccess;
+    private final Timer jwtVerifyFailure;
+    private final Timer jwtVerifySuccessOffloaded;
+    private final Timer jwtVerifyFailureOffloaded;
+    private final Map<String, RouteMeters> routes = new ConcurrentHashMap<>();
+    private final Map<String, Counter> fallbacks = new ConcurrentHashMap<>();
+
+    public GatewayMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        for (AuthOutcome outcome : AuthOutcome.values()) {
+            authOutcomes.put(outcome, Counter.builder("gateway.auth.requests")
+                    .description("Requests seen by the authentication filter, by outcome")
+                    .tag("outcome", outcome.tag)
+                    .register(registry));
+        }
+        this.jwtVerifySuccess = jwtVerifyTimer("valid", "event_loop");
+        this.jwtVerifyFailure = jwtVerifyTimer("invalid", "event_loop");
+        this.jwtVerifySuccessOffloaded = jwtVerifyTimer("valid", "worker");
+        this.jwtVerifyFailureOffloaded = jwtVerifyTimer("invalid", "worker");
+    }
+
+    public void authOutcome(AuthOutcome outcome) {
+        authOutcomes.get(outcome).increment();
+    }
+
+    /**
+     * Records a full signature verification; cache hits are not verifications. Time spent on
+     * an event loop is time that loop's other connections wait.
+     */
+    public void jwtVerification(long nanos, boolean valid, boolean onEventLoop) {
+        Timer timer = onEventLoop
+                ? (valid ? jwtVerifySuccess : jwtVerifyFailure)
+                : (valid ? jwtVerifySuccessOffloaded : jwtVerifyFailureOffloaded);
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void upstreamResponse(String routeId, UpstreamOutcome outcome, long nanos) {
+        route(routeId).latency.get(outcome).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void retry(String routeId) {
+        route(routeId).retries.increment();
+    }
+
+    public void retryBudgetExhausted(String routeId) {
+        route(routeId).retriesRejected.increment();
+    }
+
+    public void fallback(String service) {
+        fallbacks.computeIfAbsent(service, name -> Counter.builder("gateway.fallback.invocations")
+                .description("Requests answered by a fallback endpoint because the service was unavailable")
+                .tag("service", name)
+                .register(registry)).increment();
+    }
+
+    private RouteMeters route(String routeId) {
+        return routes.computeIfAbsent(routeId, id -> new RouteMeters(registry, id));
+    }
+
+    private Timer jwtVerifyTimer(String result, String thread) {
+        return Timer.builder("gateway.jwt.verify")
+                .description("JWT signature verification and parsing time")
+                .tag("result", result)
+                .tag("thread", thread)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(10_000))
+                .maximumExpectedValue(Duration.ofMillis(100))
+                .register(registry);
+    }
+
+    private static final class RouteMeters {
+        private final Map<UpstreamOutcome, Timer> latency = new EnumMap<>(UpstreamOutcome.class);
+        private final Counter retries;
+        private final Counter retriesRejected;
+
+        private RouteMeters(MeterRegistry registry, String routeId) {
+            for (UpstreamOutcome outcome : UpstreamOutcome.values()) {
+                latency.put(outcome, Timer.builder("gateway.upstream.requests")
+                        .description("Time from forwarding a request to receiving the upstream response headers")
+                        .tag("route", routeId)
+                        .tag("outcome", outcome.name())
+                        .publishPercentileHistogram()
+                        .minimumExpectedValue(Duration.ofMillis(1))
+                        .maximumExpectedValue(Duration.ofSeconds(60))
+                        .register(registry));
+            }
+            this.retries = Counter.builder("gateway.upstream.retries")
+                    .description("Upstream attempts made by a retry filter after the first attempt")
+                    .tag("route", routeId)
+                    .register(registry);
+            this.retriesRejected = Counter.builder("gateway.upstream.retries.rejected")
+                    .description("Retries skipped because the route's retry budget was exhausted")
+                    .tag("route", routeId)
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.muscledia.api_gateway.config;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Claims;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Derives the {@link UserIdentity} sent downstream from verified claims.
+ *
+ * <p>With {@code gateway.identity.signing-secret} set, the identity also travels as one
+ * compact signed header, {@code X-User-Identity: <payload>.<signature>}: the payload is the
+ * base64url JSON {@code {"sub", "uid", "roles", "exp"}} and the signature its base64url
+ * HMAC-SHA256. Downstream services check the signature and {@code exp} against the shared
+ * secret instead of parsing and verifying the JWT again.
+ */
+@Component
+public class IdentityHeaders {
+
+    private static final String HMAC = "HmacSHA256";
+    private static final Base64.Encoder BASE64 = Base64.getUrlEncoder().withoutPadding();
+
+    private final ObjectMapper objectMapper;
+    private final SecretKey signingKey;
+
+    public IdentityHeaders(ObjectMapper objectMapper,
+                           @Value("${gateway.identity.signing-secret:}") String signingSecret) {
+        this.objectMapper = objectMapper;
+        this.signingKey = signingSecret.isBlank() ? null : signingKey(signingSecret);
+    }
+
+    /**
+     * Returns the identity for the claims, or {@code null} if they carry no {@code roles},
+     * which downstream services require.
+     */
+    public UserIdentity identityOf(Claims claims) {
+        Object roles = claims.get("roles");
+        if (!(roles instanceof List<?> roleList)) {
+            return null;
+        }
+        List<String> roleNames = roleList.stream().map(String::valueOf).toList();
+        String userId = String.valueOf(claims.get("userId"));
+        String signed = signingKey != null ? sign(claims, userId, roleNames) : null;
+        return new UserIdentity(userId, claims.getSubject(), roleNames, signed);
+    }
+
+    private static SecretKey signingKey(String secret) {
+        byte[] bytes = secret.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length < 32) {
+            throw new IllegalArgumentException("gateway.identity.signing-secret must be at least 32 bytes");
+        }
+        return new SecretKeySpec(bytes, HMAC);
+    }
+
+    private String sign(Claims claims, String userId, List<String> roles) {
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("sub", claims.getSubject());
+        payload.put("uid", userId);
+        payload.put("roles", roles);
+        Date expiration = claims.getExpiration();
+        if (expiration != null) {
+            payload.put("exp", expiration.getTime() / 1000);
+        }
+        try {
+            String encoded = BASE64.encodeToString(objectMapper.writeValueAsBytes(payload));
+            // Once per verified token, so a Mac per call is cheaper than keeping them per thread
+            Mac mac = Mac.getInstance(HMAC);
+            mac.init(signingKey);
+            return encoded + '.' + BASE64.encodeToString(mac.doFinal(encoded.getBytes(StandardCharsets.US_ASCII)));
+        } catch (JsonProcessingException | GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot sign identity header", e);
+        }
+    }
+}
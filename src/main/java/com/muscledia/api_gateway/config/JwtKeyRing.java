@@ -0,0 +1,189 @@
+package com.muscledia.api_gateway.config;
+
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.LocatorAdapter;
+import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.security.Jwk;
+import io.jsonwebtoken.security.JwkSet;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.Keys;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.security.Key;
+import java.security.PublicKey;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keys the gateway accepts JWT signatures from, selected by the token's {@code kid} header:
+ *
+ * <ul>
+ *     <li>Tokens with a {@code kid} are verified with the public key of that id (RS256,
+ *     ES256 and other asymmetric algorithms) from the JWKS file at {@code jwt.jwks.file}.
+ *     The file is watched and re-read when it changes, so keys are rotated by publishing
+ *     the new key next to the old one, then removing the old one once its tokens expired.</li>
+ *     <li>Tokens without a {@code kid} are verified with the HMAC key from {@code jwt.secret},
+ *     which may be left empty once every issuer signs with a published key.</li>
+ * </ul>
+ *
+ * The keys are an immutable snapshot behind a volatile field; a reload builds a new
+ * snapshot and swaps it in, so verification never takes a lock. A JWKS file that fails to
+ * parse on reload keeps the previous keys.
+ */
+@Component
+public class JwtKeyRing extends LocatorAdapter<Key>
+        implements ApplicationListener<EnvironmentChangeEvent>, InitializingBean, DisposableBean {
+    private static final Logger logger = LoggerFactory.getLogger(JwtKeyRing.class);
+
+    private static final String SECRET_PROPERTY = "jwt.secret";
+
+    private final Environment environment;
+    private final JwtClaimsCache claimsCache;
+    private final Path jwksFile;
+
+    private volatile Snapshot keys;
+    private volatile WatchService watchService;
+
+    public JwtKeyRing(Environment environment, JwtClaimsCache claimsCache, @Value("${jwt.jwks.file:}") String jwksFile) {
+        this.environment = environment;
+        this.claimsCache = claimsCache;
+        this.jwksFile = jwksFile.isBlank() ? null : Path.of(jwksFile).toAbsolutePath();
+        String secret = environment.getProperty(SECRET_PROPERTY, "");
+        Map<String, Key> publicKeys = this.jwksFile != null ? readJwks(this.jwksFile) : Map.of();
+        this.keys = new Snapshot(secret, hmacKey(secret), publicKeys);
+        if (keys.hmacKey() == null && publicKeys.isEmpty()) {
+            throw new IllegalStateException("No JWT verification keys: set " + SECRET_PROPERTY + " or jwt.jwks.file");
+        }
+        logger.info("JWT key ring loaded: {} public key(s){}", publicKeys.size(),
+                keys.hmacKey() != null ? " and an HMAC key for tokens without kid" : "");
+    }
+
+    @Override
+    protected Key locate(JwsHeader header) {
+        Snapshot current = keys;
+        String kid = header.getKeyId();
+        Key key = kid != null ? current.publicKeys().get(kid) : current.hmacKey();
+        if (key == null) {
+            throw new UnsupportedJwtException(kid != null
+                    ? "Unknown signing key id: " + kid
+                    : "Tokens without a key id are not accepted");
+        }
+        return key;
+    }
+
+    @Override
+    public void onApplicationEvent(EnvironmentChangeEvent event) {
+        if (!event.getKeys().contains(SECRET_PROPERTY)) {
+            return;
+        }
+        String rotated = environment.getProperty(SECRET_PROPERTY, "");
+        Snapshot current = keys;
+        if (!rotated.equals(current.secret())) {
+            swap(new Snapshot(rotated, hmacKey(rotated), current.publicKeys()));
+            logger.info("JWT secret rotated, verification key rebuilt");
+        }
+    }
+
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        if (jwksFile == null) {
+            return;
+        }
+        // Watch the directory: editors and Kubernetes config maps replace the file rather than write to it
+        WatchService watcher = jwksFile.getFileSystem().newWatchService();
+        jwksFile.getParent().register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+        this.watchService = watcher;
+        Thread.ofPlatform().daemon().name("jwks-watcher").start(() -> watch(watcher));
+    }
+
+    private void watch(WatchService watcher) {
+        try {
+            while (true) {
+                WatchKey key = watcher.take();
+                // Drain the burst of events a single replace produces, then reload once
+                key.pollEvents();
+                key.reset();
+                reloadJwks();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            logger.debug("JWKS watcher stopped");
+        }
+    }
+
+    void reloadJwks() {
+        if (!Files.isRegularFile(jwksFile)) {
+            // Mid-replace, or removed by mistake: keep the keys we have
+            return;
+        }
+        Map<String, Key> publicKeys;
+        try {
+            publicKeys = readJwks(jwksFile);
+        } catch (RuntimeException e) {
+            logger.error("Ignoring unreadable JWKS file {}, keeping the current keys", jwksFile, e);
+            return;
+        }
+        Snapshot current = keys;
+        if (!publicKeys.equals(current.publicKeys())) {
+            swap(new Snapshot(current.secret(), current.hmacKey(), publicKeys));
+            logger.info("JWKS reloaded from {}: key ids {}", jwksFile, publicKeys.keySet());
+        }
+    }
+
+    private void swap(Snapshot updated) {
+        this.keys = updated;
+        // Claims verified with a key that is now gone must not keep being served
+        claimsCache.invalidateAll();
+    }
+
+    private static Map<String, Key> readJwks(Path file) {
+        String json;
+        try {
+            json = Files.readString(file, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot read JWKS file " + file, e);
+        }
+        JwkSet set = Jwks.setParser().build().parse(json);
+        Map<String, Key> publicKeys = new HashMap<>();
+        for (Jwk<?> jwk : set.getKeys()) {
+            Key key = jwk.toKey();
+            if (jwk.getId() == null || !(key instanceof PublicKey)) {
+                logger.warn("Skipping JWKS entry {}: only public keys with a kid are used", jwk.getId());
+                continue;
+            }
+            publicKeys.put(jwk.getId(), key);
+        }
+        return Map.copyOf(publicKeys);
+    }
+
+    private static Key hmacKey(String secret) {
+        return secret.isEmpty() ? null : Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        WatchService watcher = watchService;
+        if (watcher != null) {
+            watcher.close();
+        }
+    }
+
+    private record Snapshot(String secret, Key hmacKey, Map<String, Key> publicKeys) {
+    }
+}
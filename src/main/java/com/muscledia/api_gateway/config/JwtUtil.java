@@ -2,14 +2,11 @@ package com.muscledia.api_gateway.config;
 
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.JwtException;
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.security.Keys;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import javax.crypto.SecretKey;
 import java.util.Date;
 import java.util.function.Function;
 
@@ -17,12 +14,15 @@ import java.util.function.Function;
 public class JwtUtil {
     private static final Logger logger = LoggerFactory.getLogger(JwtUtil.class);
 
-    @Value("${jwt.secret}")
-    private String secret;
+    private final JwtVerifier jwtVerifier;
 
     @Value("${jwt.expiration}")
     private Long expiration;
 
+    public JwtUtil(JwtVerifier jwtVerifier) {
+        this.jwtVerifier = jwtVerifier;
+    }
+
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
@@ -32,26 +32,32 @@ public class JwtUtil {
     }
 
     public String extractRole(String token) {
-        return extractClaim(token, claims -> claims.get("role", String.class));
+        return extractClaim(token, this::extractRole);
     }
 
     public Long extractUserId(String token) {
-        return extractClaim(token, claims -> {
-            Object userIdClaim = claims.get("userId");
-            if (userIdClaim instanceof Integer) {
-                return ((Integer) userIdClaim).longValue();
-            } else if (userIdClaim instanceof Long) {
-                return (Long) userIdClaim;
-            } else if (userIdClaim instanceof String) {
-                try {
-                    return Long.parseLong((String) userIdClaim);
-                } catch (NumberFormatException e) {
-                    logger.warn("Unable to parse userId from token: {}", userIdClaim);
-                    return null;
-                }
+        return extractClaim(token, this::extractUserId);
+    }
+
+    public String extractRole(Claims claims) {
+        return claims.get("role", String.class);
+    }
+
+    public Long extractUserId(Claims claims) {
+        Object userIdClaim = claims.get("userId");
+        if (userIdClaim instanceof Integer) {
+            return ((Integer) userIdClaim).longValue();
+        } else if (userIdClaim instanceof Long) {
+            return (Long) userIdClaim;
+        } else if (userIdClaim instanceof String) {
+            try {
+                return Long.parseLong((String) userIdClaim);
+            } catch (NumberFormatException e) {
+                logger.warn("Unable to parse userId from token: {}", userIdClaim);
+                return null;
             }
-            return null;
-        });
+        }
+        return null;
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
@@ -59,24 +65,29 @@ public class JwtUtil {
         return claimsResolver.apply(claims);
     }
 
-    private Claims extractAllClaims(String token) {
+    /**
+     * Verifies the token once and returns all of its claims; prefer this over the
+     * single-claim extractors when more than one claim is needed.
+     */
+    public Claims extractAllClaims(String token) {
         try {
-            return Jwts.parser()
-                    .verifyWith(getSignKey())
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
+            return jwtVerifier.verify(token);
         } catch (JwtException e) {
-            logger.error("Invalid JWT token: {}", e.getMessage());
+            logger.debug("Invalid JWT token: {}", e.getMessage());
             throw e;
         }
     }
 
+    public Boolean isTokenExpired(Claims claims) {
+        Date expiration = claims.getExpiration();
+        return expiration == null || expiration.before(new Date());
+    }
+
     private Boolean isTokenExpired(String token) {
         try {
-            return extractExpiration(token).before(new Date());
+            return isTokenExpired(extractAllClaims(token));
         } catch (Exception e) {
-            logger.error("Error checking token expiration: {}", e.getMessage());
+            logger.debug("Error checking token expiration: {}", e.getMessage());
             return true;
         }
     }
@@ -85,12 +96,8 @@ public class JwtUtil {
         try {
             return !isTokenExpired(token);
         } catch (Exception e) {
-            logger.error("Token validation failed: {}", e.getMessage());
+            logger.debug("Token validation failed: {}", e.getMessage());
             return false;
         }
     }
-
-    private SecretKey getSignKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,97 @@
+package com.muscledia.api_gateway.config;
+
+import com.muscledia.api_gateway.exception.GatewayOverloadedException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * Decides where a JWT is verified. Cached tokens are answered in place. Full verifications
+ * run on the event loop while they are cheap (HMAC takes microseconds) and move to a
+ * bounded {@code jwt-verify} scheduler once their average cost passes
+ * {@code gateway.auth.offload.threshold}, as with RSA or EC keys or a burst of new tokens.
+ * The scheduler has {@code threads} workers, on virtual threads if
+ * {@code virtual-threads} is set, and queues at most {@code queue-size} verifications;
+ * beyond that requests are shed with 503 instead of queueing without bound.
+ *
+ * <p>{@code gateway.jwt.verify} is tagged with the thread kind, and
+ * {@code gateway.eventloop.lag} shows how much the event loops are held up.
+ */
+@Component
+@Slf4j
+public class JwtVerificationOffload implements DisposableBean {
+
+    // Weight of the newest sample in the average verification cost
+    private static final double ALPHA = 0.05;
+
+    private final JwtVerifier verifier;
+    private final boolean enabled;
+    private final long thresholdNanos;
+    private final Scheduler scheduler;
+    // Updated without synchronization; a lost update only delays the switch by a sample
+    private volatile double averageNanos;
+
+    public JwtVerificationOffload(JwtVerifier verifier,
+                                  @Value("${gateway.auth.offload.enabled:true}") boolean enabled,
+                                  @Value("${gateway.auth.offload.threshold:50us}") Duration threshold,
+                                  @Value("${gateway.auth.offload.threads:0}") int threads,
+                                  @Value("${gateway.auth.offload.queue-size:10000}") int queueSize,
+                                  @Value("${gateway.auth.offload.virtual-threads:false}") boolean virtualThreads) {
+        this.verifier = verifier;
+        this.enabled = enabled;
+        this.thresholdNanos = threshold.toNanos();
+        int workers = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        ThreadFactory factory = virtualThreads
+                ? Thread.ofVirtual().name("jwt-verify-", 0).factory()
+                : Thread.ofPlatform().daemon().name("jwt-verify-", 0).factory();
+        this.scheduler = enabled ? Schedulers.newBoundedElastic(workers, queueSize, factory, 60) : null;
+    }
+
+    /**
+     * Verifies the token like {@link JwtVerifier#verifyToken(String)}, on the event loop or
+     * the verification scheduler.
+     */
+    public Mono<VerifiedToken> verify(String token) {
+        VerifiedToken cached;
+        try {
+            cached = verifier.verifyIfCached(token);
+        } catch (RuntimeException e) {
+            return Mono.error(e);
+        }
+        if (cached != null) {
+            return Mono.just(cached);
+        }
+        Mono<VerifiedToken> verification = Mono.fromCallable(() -> timedVerify(token));
+        if (!enabled || thresholdNanos > 0 && averageNanos < thresholdNanos) {
+            return verification;
+        }
+        return verification.subscribeOn(scheduler)
+                .onErrorMap(RejectedExecutionException.class, e -> GatewayOverloadedException.INSTANCE);
+    }
+
+    private VerifiedToken timedVerify(String token) {
+        long start = System.nanoTime();
+        try {
+            return verifier.verifyToken(token);
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            double average = averageNanos;
+            averageNanos = average == 0 ? elapsed : average + ALPHA * (elapsed - average);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (scheduler != null) {
+            scheduler.dispose();
+        }
+    }
+}
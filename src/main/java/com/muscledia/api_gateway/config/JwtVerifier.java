@@ -0,0 +1,87 @@
+package com.muscledia.api_gateway.config;
+
+import com.muscledia.api_gateway.revocation.RevokedTokenException;
+import com.muscledia.api_gateway.revocation.TokenRevocationList;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import reactor.core.scheduler.Schedulers;
+import org.springframework.stereotype.Component;
+
+/**
+ * Single place where gateway JWTs are verified. The (immutable, thread-safe)
+ * {@link JwtParser} is built once; it asks {@link JwtKeyRing} for the key of each token,
+ * so rotated keys take effect without rebuilding it. Every token, cached or not, is also
+ * checked against the {@link TokenRevocationList}.
+ */
+@Component
+public class JwtVerifier {
+
+    private final JwtClaimsCache claimsCache;
+    private final TokenRevocationList revocations;
+    private final GatewayMetrics metrics;
+    private final JwtParser parser;
+
+    public JwtVerifier(JwtKeyRing keyRing, JwtClaimsCache claimsCache, TokenRevocationList revocations,
+                       GatewayMetrics metrics) {
+        this.claimsCache = claimsCache;
+        this.revocations = revocations;
+        this.metrics = metrics;
+        this.parser = Jwts.parser()
+                .keyLocator(keyRing)
+                .build();
+    }
+
+    /**
+     * Verifies the token signature and expiration and returns its claims, served from
+     * {@link JwtClaimsCache} when the same token was verified before.
+     *
+     * @throws io.jsonwebtoken.JwtException if the token is malformed, expired, not signed
+     *                                      with a key in the key ring, or revoked
+     */
+    public Claims verify(String token) {
+        return verifyToken(token).getClaims();
+    }
+
+    /**
+     * Like {@link #verify(String)}, returning the cache entry with what has been derived
+     * from the claims so far.
+     */
+    public VerifiedToken verifyToken(String token) {
+        return checkRevoked(claimsCache.get(token, this::parse));
+    }
+
+    /**
+     * Returns the verified token if it was verified before and is still cached, without
+     * verifying it otherwise.
+     *
+     * @return the cached token, or {@code null} if the token needs a full verification
+     * @throws RevokedTokenException if the token is cached but has been revoked since
+     */
+    public VerifiedToken verifyIfCached(String token) {
+        VerifiedToken verified = claimsCache.getIfPresent(token);
+        return verified != null ? checkRevoked(verified) : null;
+    }
+
+    private VerifiedToken checkRevoked(VerifiedToken verified) {
+        // After the cache: a token can be revoked after it was verified and cached
+        String id = verified.getClaims().getId();
+        if (revocations.isRevoked(id)) {
+            throw new RevokedTokenException(id);
+        }
+        return verified;
+    }
+
+    private Claims parse(String token) {
+        long start = System.nanoTime();
+        try {
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            metrics.jwtVerification(System.nanoTime() - start, true, Schedulers.isInNonBlockingThread());
+            return claims;
+        } catch (JwtException | IllegalArgumentException e) {
+            metrics.jwtVerification(System.nanoTime() - start, false, Schedulers.isInNonBlockingThread());
+            throw e;
+        }
+    }
+}
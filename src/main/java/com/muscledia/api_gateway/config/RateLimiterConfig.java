@@ -0,0 +1,82 @@
+package com.muscledia.api_gateway.config;
+
+import com.muscledia.api_gateway.filter.AuthenticationFilter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
+import org.springframework.cloud.gateway.support.ipresolver.RemoteAddressResolver;
+import org.springframework.cloud.gateway.support.ipresolver.XForwardedRemoteAddressResolver;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Key resolvers for the {@code RequestRateLimiter} route filter, backed by
+ * {@link com.muscledia.api_gateway.filter.LocalRateLimiter}.
+ */
+@Configuration
+@Slf4j
+public class RateLimiterConfig {
+
+    private static final String UNKNOWN_CLIENT = "unknown";
+    private static final String X_FORWARDED_FOR = "X-Forwarded-For";
+
+    private final int trustedProxyHops;
+    private final RemoteAddressResolver remoteAddressResolver;
+    private final AtomicBoolean forwardedForWarned = new AtomicBoolean();
+
+    /**
+     * @param trustedProxyHops number of reverse proxies in front of the gateway whose
+     *                         {@code X-Forwarded-For} entries are trusted; {@code 0} uses the
+     *                         socket address, so the header cannot be spoofed to dodge limits
+     */
+    public RateLimiterConfig(@Value("${gateway.rate-limit.trusted-proxy-hops:0}") int trustedProxyHops) {
+        this.trustedProxyHops = trustedProxyHops;
+        this.remoteAddressResolver = trustedProxyHops > 0
+                ? XForwardedRemoteAddressResolver.maxTrustedIndex(trustedProxyHops)
+                : new RemoteAddressResolver() { };
+    }
+
+    /**
+     * Default resolver: the user id verified by {@link AuthenticationFilter}, which must run
+     * earlier in the route. Requests without one get no key, and {@code RequestRateLimiter}
+     * rejects them ({@code deny-empty-key}, on by default); falling back to the client IP
+     * would put every user behind the same proxy in one bucket.
+     */
+    @Bean
+    @Primary
+    public KeyResolver userKeyResolver() {
+        return exchange -> {
+            String userId = exchange.getAttribute(AuthenticationFilter.USER_ID_ATTR);
+            return userId != null ? Mono.just("user:" + userId) : Mono.empty();
+        };
+    }
+
+    /**
+     * Client IP only, for routes without {@link AuthenticationFilter}.
+     */
+    @Bean
+    public KeyResolver clientIpKeyResolver() {
+        return exchange -> Mono.just("ip:" + clientIp(exchange));
+    }
+
+    private String clientIp(ServerWebExchange exchange) {
+        if (trustedProxyHops == 0 && !forwardedForWarned.get()
+                && exchange.getRequest().getHeaders().containsKey(X_FORWARDED_FOR)
+                && forwardedForWarned.compareAndSet(false, true)) {
+            log.warn("Requests arrive with {} but gateway.rate-limit.trusted-proxy-hops is 0, so clients are "
+                    + "rate limited by the proxy's address and share its bucket; set RATE_LIMIT_TRUSTED_PROXY_HOPS "
+                    + "to the number of proxies in front of the gateway", X_FORWARDED_FOR);
+        }
+        InetSocketAddress address = remoteAddressResolver.resolve(exchange);
+        if (address == null) {
+            return UNKNOWN_CLIENT;
+        }
+        return address.getAddress() != null ? address.getAddress().getHostAddress() : address.getHostString();
+    }
+}
@@ -0,0 +1,40 @@
+package com.muscledia.api_gateway.config;
+
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.cloud.gateway.config.HttpClientFactory;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.config.HttpClientSslConfigurer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Builds an {@link HttpClient} exactly like the gateway's shared one, from
+ * {@code spring.cloud.gateway.httpclient} (SSL, proxy, header and initial line limits,
+ * timeouts, compression, wiretap) and the {@link HttpClientCustomizer} beans, but on a
+ * given connection pool instead of the shared one.
+ */
+public class RouteHttpClientFactory extends HttpClientFactory {
+
+    private final ConnectionProvider connectionProvider;
+
+    public RouteHttpClientFactory(HttpClientProperties properties, ServerProperties serverProperties,
+                                  HttpClientSslConfigurer sslConfigurer, List<HttpClientCustomizer> customizers,
+                                  ConnectionProvider connectionProvider) {
+        // The base class sorts the customizers in place
+        super(properties, serverProperties, sslConfigurer, new ArrayList<>(customizers));
+        this.connectionProvider = connectionProvider;
+    }
+
+    public HttpClient create() {
+        return createInstance();
+    }
+
+    @Override
+    protected ConnectionProvider buildConnectionProvider(HttpClientProperties properties) {
+        return connectionProvider;
+    }
+}
@@ -0,0 +1,39 @@
+package com.muscledia.api_gateway.config;
+
+import com.muscledia.api_gateway.filter.PooledNettyRoutingFilter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.config.HttpClientSslConfigurer;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.netty.http.client.HttpClient;
+
+import java.util.List;
+
+@Configuration
+@EnableConfigurationProperties(UpstreamPoolProperties.class)
+public class UpstreamPoolConfig {
+
+    /**
+     * Routing filter with per-route pools for the routes in {@code gateway.upstream-pools};
+     * it builds on the gateway's own HttpClient and header filters like the stock one, and
+     * configures the route clients the same way as the shared one.
+     */
+    @Bean
+    public PooledNettyRoutingFilter pooledNettyRoutingFilter(HttpClient httpClient,
+                                                             ObjectProvider<List<HttpHeadersFilter>> headersFilters,
+                                                             HttpClientProperties httpClientProperties,
+                                                             ServerProperties serverProperties,
+                                                             HttpClientSslConfigurer sslConfigurer,
+                                                             ObjectProvider<HttpClientCustomizer> customizers,
+                                                             UpstreamPoolProperties upstreamPools) {
+        List<HttpClientCustomizer> orderedCustomizers = customizers.orderedStream().toList();
+        return new PooledNettyRoutingFilter(httpClient, headersFilters, httpClientProperties, upstreamPools,
+                provider -> new RouteHttpClientFactory(httpClientProperties, serverProperties, sslConfigurer,
+                        orderedCustomizers, provider).create());
+    }
+}
@@ -0,0 +1,37 @@
+package com.muscledia.api_gateway.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Dedicated upstream connection pools, keyed by route id. Routes listed here get their
+ * own Reactor Netty pool, so a slow upstream can only exhaust its own connections; other
+ * routes share the gateway's pool ({@code spring.cloud.gateway.httpclient.pool}).
+ */
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "gateway.upstream-pools")
+public class UpstreamPoolProperties {
+
+    private Map<String, Pool> routes = new LinkedHashMap<>();
+
+    @Getter
+    @Setter
+    public static class Pool {
+        private int maxConnections = 100;
+        // Requests allowed to wait for a connection; -1 means twice maxConnections
+        private int pendingAcquireMaxCount = -1;
+        private Duration pendingAcquireTimeout = Duration.ofSeconds(5);
+        private Duration maxIdleTime = Duration.ofSeconds(30);
+        private Duration maxLifeTime = Duration.ofMinutes(5);
+        private Duration evictInBackground = Duration.ofSeconds(30);
+        // Prior-knowledge HTTP/2 over cleartext; only for upstreams that accept it
+        private boolean h2c = false;
+        private int maxConcurrentStreams = 100;
+    }
+}
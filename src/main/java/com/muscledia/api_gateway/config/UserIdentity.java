@@ -0,0 +1,74 @@
+package com.muscledia.api_gateway.config;
+
+import org.springframework.http.HttpHeaders;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The identity headers sent downstream for an authenticated user. Built once per verified
+ * token by {@link IdentityHeaders}; every value list is immutable and shared, so applying
+ * them to a request only adds map entries.
+ */
+public final class UserIdentity {
+
+    /**
+     * Exchange attribute carrying the identity of the authenticated user to the outgoing
+     * request headers.
+     */
+    public static final String ATTR = UserIdentity.class.getName();
+
+    public static final String USER_ID_HEADER = "X-User-Id";
+    public static final String USERNAME_HEADER = "X-Username";
+    public static final String ROLES_HEADER = "X-User-Roles";
+    public static final String SIGNED_HEADER = "X-User-Identity";
+
+    private static final List<String> HEADER_NAMES = List.of(USER_ID_HEADER, USERNAME_HEADER, ROLES_HEADER, SIGNED_HEADER);
+
+    private final String userId;
+    private final List<String> roles;
+    private final Map<String, List<String>> headers;
+
+    UserIdentity(String userId, String username, List<String> roles, String signed) {
+        this.userId = userId;
+        this.roles = List.copyOf(roles);
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        headers.put(USER_ID_HEADER, List.of(userId));
+        if (username != null) {
+            headers.put(USERNAME_HEADER, List.of(username));
+        }
+        headers.put(ROLES_HEADER, List.of(String.join(",", roles)));
+        if (signed != null) {
+            headers.put(SIGNED_HEADER, List.of(signed));
+        }
+        this.headers = Map.copyOf(headers);
+    }
+
+    public String getUserId() {
+        return userId;
+    }
+
+    public List<String> getRoles() {
+        return roles;
+    }
+
+    /**
+     * Sets the identity headers, replacing or removing whatever the client sent under the
+     * same names.
+     */
+    public void writeTo(HttpHeaders target) {
+        for (String name : HEADER_NAMES) {
+            target.remove(name);
+        }
+        target.putAll(headers);
+    }
+
+    /**
+     * Removes a client-sent signed identity from a request without a verified one; only the
+     * gateway issues it. The plain headers are left as they are on unauthenticated routes.
+     */
+    public static void removeSignedFrom(HttpHeaders target) {
+        target.remove(SIGNED_HEADER);
+    }
+}
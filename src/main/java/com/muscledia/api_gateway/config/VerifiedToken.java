@@ -0,0 +1,37 @@
+package com.muscledia.api_gateway.config;
+
+import io.jsonwebtoken.Claims;
+
+import java.util.function.Function;
+
+/**
+ * A verified token as held by {@link JwtClaimsCache}: its claims, plus what the gateway
+ * derives from them once and reuses for every request carrying the same token.
+ */
+public final class VerifiedToken {
+
+    private final Claims claims;
+    // Derived on first use; a race derives it twice, with the same result
+    private volatile UserIdentity identity;
+
+    public VerifiedToken(Claims claims) {
+        this.claims = claims;
+    }
+
+    public Claims getClaims() {
+        return claims;
+    }
+
+    /**
+     * Returns the identity derived from the claims, deriving it with {@code factory} on
+     * first use. May be {@code null} if the factory cannot derive one.
+     */
+    public UserIdentity identity(Function<Claims, UserIdentity> factory) {
+        UserIdentity current = identity;
+        if (current == null) {
+            current = factory.apply(claims);
+            identity = current;
+        }
+        return current;
+    }
+}
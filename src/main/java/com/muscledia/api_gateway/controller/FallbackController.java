@@ -1,48 +1,51 @@
 package com.muscledia.api_gateway.controller;
 
+import com.muscledia.api_gateway.config.GatewayMetrics;
+import com.muscledia.api_gateway.exception.ErrorResponseWriter;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
-
-import java.time.Instant;
-import java.util.Map;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
 
 @RestController
 @RequestMapping("/fallback")
 public class FallbackController {
 
-    @GetMapping("/workout-service")
-    public ResponseEntity<Map<String, Object>> workoutServiceFallback() {
-        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
-                .body(Map.of(
-                        "error", "Workout service is currently unavailable",
-                        "status", HttpStatus.SERVICE_UNAVAILABLE.value(),
-                        "timestamp", Instant.now().toString(),
-                        "service", "workout-service"
-                ));
+    private static final ErrorResponseWriter.Template WORKOUT_SERVICE_UNAVAILABLE =
+            unavailable("workout-service", "Workout service is currently unavailable");
+    private static final ErrorResponseWriter.Template GAMIFICATION_SERVICE_UNAVAILABLE =
+            unavailable("gamification-service", "Gamification service is currently unavailable");
+    private static final ErrorResponseWriter.Template USER_SERVICE_UNAVAILABLE =
+            unavailable("user-service", "User service is currently unavailable");
+
+    private final GatewayMetrics metrics;
+    private final ErrorResponseWriter errorWriter;
+
+    public FallbackController(GatewayMetrics metrics, ErrorResponseWriter errorWriter) {
+        this.metrics = metrics;
+        this.errorWriter = errorWriter;
+    }
+
+    @RequestMapping("/workout-service")
+    public Mono<Void> workoutServiceFallback(ServerWebExchange exchange) {
+        metrics.fallback("workout-service");
+        return errorWriter.write(exchange, WORKOUT_SERVICE_UNAVAILABLE);
+    }
+
+    @RequestMapping("/gamification-service")
+    public Mono<Void> gamificationServiceFallback(ServerWebExchange exchange) {
+        metrics.fallback("gamification-service");
+        return errorWriter.write(exchange, GAMIFICATION_SERVICE_UNAVAILABLE);
     }
 
-    @GetMapping("/gamification-service")
-    public ResponseEntity<Map<String, Object>> gamificationServiceFallback() {
-        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
-                .body(Map.of(
-                        "error", "Gamification service is currently unavailable",
-                        "status", HttpStatus.SERVICE_UNAVAILABLE.value(),
-                        "timestamp", Instant.now().toString(),
-                        "service", "gamification-service"
-                ));
+    @RequestMapping("/user-service")
+    public Mono<Void> userServiceFallback(ServerWebExchange exchange) {
+        metrics.fallback("user-service");
+        return errorWriter.write(exchange, USER_SERVICE_UNAVAILABLE);
     }
 
-    @GetMapping("/user-service")
-    public ResponseEntity<Map<String, Object>> userServiceFallback() {
-        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
-                .body(Map.of(
-                        "error", "User service is currently unavailable",
-                        "status", HttpStatus.SERVICE_UNAVAILABLE.value(),
-                        "timestamp", Instant.now().toString(),
-                        "service", "user-service"
-                ));
+    private static ErrorResponseWriter.Template unavailable(String service, String error) {
+        return ErrorResponseWriter.fallback(HttpStatus.SERVICE_UNAVAILABLE, service, error);
     }
 }
@@ -1,5 +1,7 @@
 package com.muscledia.api_gateway.controller;
 
+import com.muscledia.api_gateway.lifecycle.GatewayStatus;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -13,14 +15,26 @@ import java.util.Map;
 @RequestMapping("/gateway")
 public class HealthController {
 
+    private final GatewayStatus gatewayStatus;
+
+    public HealthController(GatewayStatus gatewayStatus) {
+        this.gatewayStatus = gatewayStatus;
+    }
+
+    /**
+     * {@code UP} once warm-up is done; 503 with {@code STARTING} before and {@code DRAINING}
+     * during shutdown, so load balancers only send traffic to a warm, serving gateway.
+     */
     @GetMapping("/health")
     public ResponseEntity<Map<String, Object>> health() {
-        return ResponseEntity.ok(Map.of(
-                "status", "UP",
-                "timestamp", Instant.now().toString(),
-                "service", "Muscledia API Gateway",
-                "version", "2.0.0"
-        ));
+        GatewayStatus.State state = gatewayStatus.getState();
+        return ResponseEntity.status(state == GatewayStatus.State.UP ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE)
+                .body(Map.of(
+                        "status", state.name(),
+                        "timestamp", Instant.now().toString(),
+                        "service", "Muscledia API Gateway",
+                        "version", "2.0.0"
+                ));
     }
 
     @GetMapping("/info")
@@ -0,0 +1,199 @@
+package com.muscledia.api_gateway.exception;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Writes the gateway's JSON error bodies. Everything but the timestamp and the request
+ * path is encoded once into a {@link Template}; per response only those two are spliced
+ * in, straight into a buffer from the response's (pooled, under Netty) buffer factory.
+ * All strings are JSON-escaped.
+ */
+@Component
+public class ErrorResponseWriter {
+
+    private static final byte[] PATH_FIELD = "\",\"path\":\"".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] CLOSE = "\"}".getBytes(StandardCharsets.UTF_8);
+    private static final int MAX_CACHED_TEMPLATES = 256;
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final ConcurrentMap<String, Template> templates = new ConcurrentHashMap<>();
+    private volatile Timestamp timestamp = new Timestamp(0, new byte[0]);
+
+    /**
+     * {@code {"error":…,"status":…,"timestamp":…,"path":…}}, the body of gateway errors.
+     * Templates for a status and message are cached, up to a bound.
+     */
+    public Template error(HttpStatusCode status, String error) {
+        String key = status.value() + error;
+        Template template = templates.get(key);
+        if (template == null) {
+            template = new Template(status, new JsonHead()
+                    .field("error", error)
+                    .field("status", status.value())
+                    .open("timestamp"), true);
+            if (templates.size() < MAX_CACHED_TEMPLATES) {
+                templates.putIfAbsent(key, template);
+            }
+        }
+        return template;
+    }
+
+    /**
+     * {@code {"error":…,"message":…,"timestamp":…}}, the body of authentication failures.
+     */
+    public static Template message(HttpStatusCode status, String error, String message) {
+        return new Template(status, new JsonHead()
+                .field("error", error)
+                .field("message", message)
+                .open("timestamp"), false);
+    }
+
+    /**
+     * {@code {"error":…,"status":…,"service":…,"timestamp":…}}, the body of circuit breaker fallbacks.
+     */
+    public static Template fallback(HttpStatusCode status, String service, String error) {
+        return new Template(status, new JsonHead()
+                .field("error", error)
+                .field("status", status.value())
+                .field("service", service)
+                .open("timestamp"), false);
+    }
+
+    public Mono<Void> write(ServerWebExchange exchange, Template template) {
+        ServerHttpResponse response = exchange.getResponse();
+        String path = template.includePath ? exchange.getRequest().getURI().getPath() : null;
+        byte[] now = currentTimestamp();
+
+        int capacity = template.head.length + now.length + CLOSE.length;
+        if (path != null) {
+            capacity += PATH_FIELD.length + path.length() * 3;
+        }
+        DataBuffer buffer = response.bufferFactory().allocateBuffer(capacity);
+        buffer.write(template.head);
+        buffer.write(now);
+        if (path != null) {
+            buffer.write(PATH_FIELD);
+            if (needsEscaping(path)) {
+                buffer.write(escape(path), StandardCharsets.UTF_8);
+            } else {
+                buffer.write(path, StandardCharsets.UTF_8);
+            }
+        }
+        buffer.write(CLOSE);
+
+        response.setStatusCode(template.status);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        response.getHeaders().setContentLength(buffer.readableByteCount());
+        return response.writeWith(Mono.just(buffer));
+    }
+
+    /**
+     * The current time as ISO-8601 bytes, formatted at most once per millisecond.
+     */
+    private byte[] currentTimestamp() {
+        long millis = System.currentTimeMillis();
+        Timestamp current = timestamp;
+        if (current.millis != millis) {
+            byte[] encoded = DateTimeFormatter.ISO_INSTANT.format(Instant.ofEpochMilli(millis))
+                    .getBytes(StandardCharsets.US_ASCII);
+            current = new Timestamp(millis, encoded);
+            timestamp = current;
+        }
+        return current.encoded;
+    }
+
+    static boolean needsEscaping(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\' || c < 0x20) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    static String escape(String value) {
+        StringBuilder escaped = new StringBuilder(value.length() + 16);
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> escaped.append("\\\"");
+                case '\\' -> escaped.append("\\\\");
+                case '\n' -> escaped.append("\\n");
+                case '\r' -> escaped.append("\\r");
+                case '\t' -> escaped.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        // Below 0x20, so the first two of the four hex digits are always zero
+                        escaped.append("\\u00").append(HEX_DIGITS[c >> 4]).append(HEX_DIGITS[c & 0xF]);
+                    } else {
+                        escaped.append(c);
+                    }
+                }
+            }
+        }
+        return escaped.toString();
+    }
+
+    private record Timestamp(long millis, byte[] encoded) {
+    }
+
+    /**
+     * A pre-encoded error body up to the opening quote of its timestamp value.
+     */
+    public static final class Template {
+        private final HttpStatusCode status;
+        private final byte[] head;
+        private final boolean includePath;
+
+        private Template(HttpStatusCode status, JsonHead head, boolean includePath) {
+            this.status = status;
+            this.head = head.toBytes();
+            this.includePath = includePath;
+        }
+    }
+
+    private static final class JsonHead {
+        private final StringBuilder json = new StringBuilder(128).append('{');
+
+        JsonHead field(String name, String value) {
+            separator();
+            json.append('"').append(name).append("\":\"").append(escape(value)).append('"');
+            return this;
+        }
+
+        JsonHead field(String name, int value) {
+            separator();
+            json.append('"').append(name).append("\":").append(value);
+            return this;
+        }
+
+        JsonHead open(String name) {
+            separator();
+            json.append('"').append(name).append("\":\"");
+            return this;
+        }
+
+        private void separator() {
+            if (json.length() > 1) {
+                json.append(',');
+            }
+        }
+
+        byte[] toBytes() {
+            return json.toString().getBytes(StandardCharsets.UTF_8);
+        }
+    }
+}
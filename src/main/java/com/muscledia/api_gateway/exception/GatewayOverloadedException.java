@@ -0,0 +1,23 @@
+package com.muscledia.api_gateway.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * A request shed by the gateway's concurrency limit. Routes with a circuit breaker answer
+ * it from their fallback; elsewhere {@link ReactiveGlobalErrorHandler} returns a 503.
+ * Thrown on the hot path under overload, so it is a shared instance without a stack trace.
+ */
+public final class GatewayOverloadedException extends ResponseStatusException {
+
+    public static final GatewayOverloadedException INSTANCE = new GatewayOverloadedException();
+
+    private GatewayOverloadedException() {
+        super(HttpStatus.SERVICE_UNAVAILABLE, "Gateway overloaded, retry shortly");
+    }
+
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
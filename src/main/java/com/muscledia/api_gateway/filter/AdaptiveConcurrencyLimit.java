@@ -0,0 +1,126 @@
+package com.muscledia.api_gateway.filter;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit that adapts to upstream latency, after TCP Vegas. The lowest latency
+ * seen approximates the upstream with no queue; the gap between that and each new sample
+ * estimates how many requests are queued:
+ *
+ * <pre>queue = limit * (1 - minRtt / rtt)</pre>
+ *
+ * A small queue grows the limit, a large one or a failed request shrinks it. While the
+ * gateway uses less than half the limit, samples say nothing about capacity and are
+ * ignored. Every so often the minimum is reset to the current latency, so a lasting
+ * change in the upstream's baseline is picked up.
+ *
+ * <p>Acquiring is a CAS on the in-flight counter; samples update the limit under a lock.
+ */
+public final class AdaptiveConcurrencyLimit {
+
+    // Samples between baseline probes, as a multiple of the limit
+    private static final int PROBE_MULTIPLIER = 30;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+
+    // Guarded by this
+    private double estimatedLimit;
+    private long minRttNanos;
+    private long samplesUntilProbe;
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.estimatedLimit = Math.clamp(initialLimit, minLimit, maxLimit);
+        this.limit = (int) estimatedLimit;
+        this.samplesUntilProbe = nextProbe(limit);
+    }
+
+    /**
+     * Takes a slot if fewer than {@code share} of the limit are in use; low-priority
+     * requests pass a share below 1 so they are shed before the limit is reached.
+     */
+    public boolean tryAcquire(double share) {
+        int allowed = share >= 1 ? limit : Math.max(1, (int) (limit * share));
+        int current;
+        do {
+            current = inFlight.get();
+            if (current >= allowed) {
+                return false;
+            }
+        } while (!inFlight.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    /**
+     * Frees a slot without a sample, for requests that were cancelled.
+     */
+    public void release() {
+        inFlight.decrementAndGet();
+    }
+
+    /**
+     * Frees a slot and adjusts the limit.
+     *
+     * @param inFlightAtStart requests in flight when this one was admitted, including itself
+     * @param dropped         whether the request failed in a way that signals overload
+     */
+    public void release(long rttNanos, int inFlightAtStart, boolean dropped) {
+        inFlight.decrementAndGet();
+        update(rttNanos, inFlightAtStart, dropped);
+    }
+
+    private synchronized void update(long rttNanos, int inFlightAtStart, boolean dropped) {
+        if (rttNanos <= 0) {
+            return;
+        }
+        if (--samplesUntilProbe <= 0) {
+            samplesUntilProbe = nextProbe(limit);
+            minRttNanos = rttNanos;
+            return;
+        }
+        if (!dropped && (minRttNanos == 0 || rttNanos < minRttNanos)) {
+            minRttNanos = rttNanos;
+            return;
+        }
+
+        double current = estimatedLimit;
+        double step = Math.max(1, Math.log10(current));
+        double next;
+        if (dropped) {
+            next = current - step;
+        } else if (inFlightAtStart * 2 < current) {
+            return;
+        } else {
+            double queue = Math.ceil(current * (1 - (double) minRttNanos / rttNanos));
+            if (queue <= step) {
+                next = current + 6 * step;
+            } else if (queue < 3 * step) {
+                next = current + step;
+            } else if (queue > 6 * step) {
+                next = current - step;
+            } else {
+                return;
+            }
+        }
+        estimatedLimit = Math.clamp(next, minLimit, maxLimit);
+        limit = (int) estimatedLimit;
+    }
+
+    private static long nextProbe(int limit) {
+        // Jittered so that limits created together do not probe together
+        return (long) (PROBE_MULTIPLIER * limit * (0.5 + ThreadLocalRandom.current().nextDouble(0.5)));
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
@@ -1,40 +1,86 @@
 package com.muscledia.api_gateway.filter;
 
-import io.jsonwebtoken.Claims;
-import io.jsonwebtoken.security.Keys;
+import com.muscledia.api_gateway.config.GatewayMetrics;
+import com.muscledia.api_gateway.config.GatewayMetrics.AuthOutcome;
+import com.muscledia.api_gateway.config.IdentityHeaders;
+import com.muscledia.api_gateway.config.JwtVerificationOffload;
+import com.muscledia.api_gateway.config.UserIdentity;
+import com.muscledia.api_gateway.config.VerifiedToken;
+import com.muscledia.api_gateway.exception.ErrorResponseWriter;
+import com.muscledia.api_gateway.exception.GatewayOverloadedException;
+import com.muscledia.api_gateway.tracing.HopTimings;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
 import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.server.reactive.ServerHttpRequest;
-import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.stereotype.Component;
-import io.jsonwebtoken.Jwts;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
 
-import javax.crypto.SecretKey;
-import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Component
 @Slf4j
 public class AuthenticationFilter extends AbstractGatewayFilterFactory <AuthenticationFilter.Config>{
-    @Value("${jwt.secret}")
-    private String jwtSecret;
-
-
-    public AuthenticationFilter() {
+    /**
+     * Exchange attribute holding the verified user id. Unlike the {@code X-User-Id} request
+     * header it cannot be supplied by the client, so rate-limit keys are taken from here.
+     */
+    public static final String USER_ID_ATTR = AuthenticationFilter.class.getName() + ".userId";
+
+    private static final ErrorResponseWriter.Template MISSING_HEADER = unauthorized("Missing or invalid Authorization header");
+    private static final ErrorResponseWriter.Template INSUFFICIENT_PERMISSIONS = unauthorized("Insufficient permissions");
+    private static final ErrorResponseWriter.Template INVALID_TOKEN = unauthorized("Invalid or expired token");
+
+    private final JwtVerificationOffload verification;
+    private final IdentityHeaders identityHeaders;
+    private final GatewayMetrics metrics;
+    private final ErrorResponseWriter errorWriter;
+    // 1 in N rejected requests is logged at DEBUG; outcomes are always counted in metrics
+    private final int diagnosticsSampleRate;
+
+
+    public AuthenticationFilter(JwtVerificationOffload verification, IdentityHeaders identityHeaders, GatewayMetrics metrics,
+                                ErrorResponseWriter errorWriter,
+                                @Value("${gateway.auth.diagnostics-sample-rate:100}") int diagnosticsSampleRate) {
         super(Config.class);
+        this.verification = verification;
+        this.identityHeaders = identityHeaders;
+        this.metrics = metrics;
+        this.errorWriter = errorWriter;
+        this.diagnosticsSampleRate = Math.max(1, diagnosticsSampleRate);
     }
 
 
+    /**
+     * Whether the route runs an enabled AuthenticationFilter, so its requests can carry a
+     * verified identity.
+     */
+    public static boolean authenticates(Route route) {
+        for (GatewayFilter filter : route.getFilters()) {
+            if (filter instanceof OrderedGatewayFilter ordered) {
+                filter = ordered.getDelegate();
+            }
+            if (filter instanceof Authenticating authenticating && authenticating.config.isEnabled()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @Override
     public GatewayFilter apply(Config config) {
-        return (exchange, chain) -> {
+        return new Authenticating(config, (exchange, chain) -> {
             log.debug("AuthenticationFilter applied with config: enabled={}", config.isEnabled());
 
             // Check if filter is enabled
@@ -49,104 +95,119 @@ public class AuthenticationFilter extends AbstractGatewayFilterFactory <Authenti
             log.debug("Processing request: {} {}", request.getMethod(), path);
 
             // Skip authentication for public endpoints
-            if (isPublicEndpoint(path, config)) {
+            if (isPublicEndpoint(path, request.getMethod(), config)) {
                 log.debug("Public endpoint detected, skipping authentication: {}", path);
+                metrics.authOutcome(AuthOutcome.PUBLIC);
                 return chain.filter(exchange);
             }
 
             String authHeader = request.getHeaders().getFirst(config.getHeaderName());
 
             if (authHeader == null || !authHeader.startsWith(config.getTokenPrefix())) {
-                log.warn("Missing or invalid Authorization header for path: {}", path);
-                return unauthorizedResponse(exchange, "Missing or invalid Authorization header");
+                metrics.authOutcome(AuthOutcome.MISSING_HEADER);
+                if (log.isDebugEnabled() && sampleDiagnostics()) {
+                    log.debug("Missing or invalid Authorization header for path: {}", path);
+                }
+                return unauthorizedResponse(exchange, MISSING_HEADER);
             }
 
             String token = authHeader.substring(config.getTokenPrefix().length());
+            long start = System.nanoTime();
+
+            return verification.verify(token)
+                    .onErrorResume(e -> {
+                        recordAuthTime(exchange, start);
+                        if (e instanceof GatewayOverloadedException) {
+                            return Mono.error(e);
+                        }
+                        metrics.authOutcome(AuthOutcome.forFailure(e));
+                        if (log.isDebugEnabled() && sampleDiagnostics()) {
+                            log.debug("JWT validation failed for path {}: {} {}", path, e.getClass().getSimpleName(), e.getMessage());
+                        }
+                        return unauthorizedResponse(exchange, INVALID_TOKEN).then(Mono.empty());
+                    })
+                    .flatMap(verified -> {
+                        recordAuthTime(exchange, start);
+                        return authorize(exchange, chain, config, verified);
+                    });
+        });
+    }
 
-            try {
-                Claims claims = validateToken(token, config);
-                log.debug("JWT validation successful for user: {}", claims.getSubject());
-
-                // Check required role if configured
-                if (config.isRequireRole()) {
-                    @SuppressWarnings("unchecked")
-                    List<String> roles = (List<String>) claims.get("roles");
-                    if (roles == null || !roles.contains(config.getRequiredRole())) {
-                        log.warn("User {} does not have required role: {}", claims.getSubject(), config.getRequiredRole());
-                        return unauthorizedResponse(exchange, "Insufficient permissions");
-                    }
-                    log.debug("Role validation successful for user: {}", claims.getSubject());
-                }
-
-                // Add user context to request headers for downstream services
-                ServerHttpRequest modifiedRequest = request.mutate()
-                        .header("X-User-Id", String.valueOf(claims.get("userId")))
-                        .header("X-Username", claims.getSubject())
-                        .header("X-User-Roles", String.join(",", (List<String>) claims.get("roles")))
-                        .build();
+    private Mono<Void> authorize(ServerWebExchange exchange, GatewayFilterChain chain, Config config,
+                                 VerifiedToken verified) {
+        log.debug("JWT validation successful for user: {}", verified.getClaims().getSubject());
 
-                log.debug("Request headers added: X-User-Id={}, X-Username={}",
-                        claims.get("userId"), claims.getSubject());
+        // Derived once per token and cached with its claims
+        UserIdentity identity = verified.identity(identityHeaders::identityOf);
+        if (identity == null) {
+            // Downstream services rely on X-User-Roles
+            metrics.authOutcome(AuthOutcome.INVALID_TOKEN);
+            return unauthorizedResponse(exchange, INVALID_TOKEN);
+        }
+        // Check required role if configured
+        if (config.isRequireRole()) {
+            if (!identity.getRoles().contains(config.getRequiredRole())) {
+                metrics.authOutcome(AuthOutcome.INSUFFICIENT_ROLE);
+                if (log.isDebugEnabled() && sampleDiagnostics()) {
+                    log.debug("User {} does not have required role: {}", verified.getClaims().getSubject(),
+                            config.getRequiredRole());
+                }
+                return unauthorizedResponse(exchange, INSUFFICIENT_PERMISSIONS);
+            }
+            log.debug("Role validation successful for user: {}", verified.getClaims().getSubject());
+        }
 
-                return chain.filter(exchange.mutate().request(modifiedRequest).build());
+        // IdentityHeadersFilter adds the user context to the upstream request headers
+        metrics.authOutcome(AuthOutcome.SUCCESS);
+        exchange.getAttributes().put(USER_ID_ATTR, identity.getUserId());
+        exchange.getAttributes().put(UserIdentity.ATTR, identity);
 
-            } catch (Exception e) {
-                log.error("JWT validation failed for path {}: {}", path, e.getMessage());
-                return unauthorizedResponse(exchange, "Invalid or expired token");
-            }
-        };
+        return chain.filter(exchange);
     }
 
-    private Claims validateToken(String token, Config config) {
-        log.info("=== JWT VALIDATION START ===");
-        log.info("Token length: {}", token.length());
-        log.info("JWT Secret length: {}", jwtSecret.length());
-        log.info("Using secret: {}...", jwtSecret.substring(0, Math.min(20, jwtSecret.length())));
-        try{
-            SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
-            log.info("Secret key created successfully");
-
-
-            var parserBuilder = Jwts.parser().verifyWith(key);
-            log.info("Parser builder created");
-
-            Claims claims = parserBuilder.build().parseSignedClaims(token).getPayload();
-            log.info("=== JWT VALIDATION SUCCESS ===");
-            log.info("Subject: {}", claims.getSubject());
-            log.info("User ID: {}", claims.get("userId"));
-            log.info("Roles: {}", claims.get("roles"));
-
-            return claims;
-        }catch(Exception e){
-            log.error("=== JWT VALIDATION FAILED ===");
-            log.error("Error type: {}", e.getClass().getSimpleName());
-            log.error("Error message: {}", e.getMessage());
-            throw e;
+    private static void recordAuthTime(ServerWebExchange exchange, long start) {
+        HopTimings timings = HopTimings.find(exchange);
+        if (timings != null) {
+            timings.auth(System.nanoTime() - start);
         }
+    }
 
+    private boolean sampleDiagnostics() {
+        return diagnosticsSampleRate == 1 || ThreadLocalRandom.current().nextInt(diagnosticsSampleRate) == 0;
     }
 
-    private boolean isPublicEndpoint(String path, Config config) {
+    private boolean isPublicEndpoint(String path, HttpMethod method, Config config) {
         if (!config.isSkipPublicPaths()) {
             return false;
         }
 
-        return config.getPublicPaths().stream()
-                .anyMatch(path::contains);
+        return config.getPublicPathMatcher().matches(path, method);
     }
 
-    private Mono<Void> unauthorizedResponse(ServerWebExchange exchange, String message) {
-        ServerHttpResponse response = exchange.getResponse();
-        response.setStatusCode(HttpStatus.UNAUTHORIZED);
-        response.getHeaders().add("Content-Type", "application/json");
+    private Mono<Void> unauthorizedResponse(ServerWebExchange exchange, ErrorResponseWriter.Template body) {
+        return errorWriter.write(exchange, body);
+    }
 
-        String body = String.format(
-                "{\"error\": \"Unauthorized\", \"message\": \"%s\", \"timestamp\": \"%s\"}",
-                message, java.time.Instant.now()
-        );
+    private static ErrorResponseWriter.Template unauthorized(String message) {
+        return ErrorResponseWriter.message(HttpStatus.UNAUTHORIZED, "Unauthorized", message);
+    }
+
+    /**
+     * The filter {@link #apply} returns, for {@link #authenticates} to find on a route.
+     */
+    static final class Authenticating implements GatewayFilter {
+        private final Config config;
+        private final GatewayFilter delegate;
+
+        Authenticating(Config config, GatewayFilter delegate) {
+            this.config = config;
+            this.delegate = delegate;
+        }
 
-        log.debug("Returning 401 Unauthorized: {}", message);
-        return response.writeWith(Mono.just(response.bufferFactory().wrap(body.getBytes())));
+        @Override
+        public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+            return delegate.filter(exchange, chain);
+        }
     }
 
     @Setter
@@ -160,9 +221,17 @@ public class AuthenticationFilter extends AbstractGatewayFilterFactory <Authenti
         private boolean requireRole = false;
         private String requiredRole = "USER";
         private boolean skipPublicPaths = true;
+        // Ant-style patterns matched per segment, optionally method-restricted ("GET /api/v1/exercises/**")
         private List<String> publicPaths = List.of(
-                "/login", "/register", "/public", "/health", "/actuator", "/swagger", "/api-docs"
+                "/**/login", "/**/register", "/**/public/**", "/**/health", "/actuator/**",
+                "/swagger-ui/**", "/swagger-ui.html", "/**/api-docs/**"
         );
+        @Setter(AccessLevel.NONE)
+        private PathPatternTrie publicPathMatcher = PathPatternTrie.compile(publicPaths);
 
+        public void setPublicPaths(List<String> publicPaths) {
+            this.publicPaths = publicPaths;
+            this.publicPathMatcher = PathPatternTrie.compile(publicPaths);
+        }
     }
 }
@@ -0,0 +1,50 @@
+package com.muscledia.api_gateway.filter;
+
+import org.springframework.core.io.buffer.DataBuffer;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Copies a response body into a byte array as it streams past, up to a limit. Once the
+ * body exceeds the limit the copy is dropped and {@link #toByteArray()} returns
+ * {@code null}; the buffers themselves are never held or released here.
+ */
+final class BodyCapture {
+
+    private static final byte[] EMPTY = new byte[0];
+
+    private final int limit;
+    private byte[] bytes;
+    private int length;
+    private boolean overflowed;
+
+    BodyCapture(long limit, long expectedLength) {
+        this.limit = (int) Math.min(Integer.MAX_VALUE - 8, limit);
+        this.bytes = expectedLength > 0 && expectedLength <= this.limit ? new byte[(int) expectedLength] : EMPTY;
+    }
+
+    void append(DataBuffer buffer) {
+        if (overflowed) {
+            return;
+        }
+        int readable = buffer.readableByteCount();
+        if (readable > limit - length) {
+            overflowed = true;
+            bytes = null;
+            return;
+        }
+        if (length + readable > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.min(limit, Math.max(length + readable, bytes.length * 2)));
+        }
+        buffer.toByteBuffer(buffer.readPosition(), ByteBuffer.wrap(bytes), length, readable);
+        length += readable;
+    }
+
+    byte[] toByteArray() {
+        if (overflowed) {
+            return null;
+        }
+        return length == bytes.length ? bytes : Arrays.copyOf(bytes, length);
+    }
+}
@@ -0,0 +1,146 @@
+package com.muscledia.api_gateway.filter;
+
+import com.muscledia.api_gateway.config.ConcurrencyLimitProperties;
+import com.muscledia.api_gateway.config.JwtClaimsCache;
+import com.muscledia.api_gateway.exception.GatewayOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Sheds upstream calls beyond an {@link AdaptiveConcurrencyLimit}, both across the gateway
+ * and per route, so a slow service cannot pile requests up on the gateway. A shed request
+ * fails with {@link GatewayOverloadedException}: routes with a circuit breaker answer from
+ * their fallback, the others get a 503 from the global error handler.
+ *
+ * <p>Runs just before the load balancer, after the response cache and coalescing have
+ * answered what they can, so the limits only see real upstream calls and their latency,
+ * and shed requests never reach instance or upstream statistics. On routes that run
+ * {@link AuthenticationFilter}, anonymous requests may only use part of each limit and
+ * requests with a verified identity keep the rest. That is a user set by the filter, or a
+ * bearer token already in the {@link JwtClaimsCache}; a token the gateway has not verified
+ * buys no priority, so anonymous clients cannot claim it with a made-up header. On other
+ * routes every request is anonymous, so they all use the whole limit.
+ *
+ * <p>{@code gateway.concurrency.*} meters report each limit, its in-flight count and the
+ * requests shed, by scope: {@code global} or a route id.
+ */
+public class ConcurrencyLimitFilter implements GlobalFilter, Ordered {
+
+    private static final String GLOBAL = "global";
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private final ConcurrencyLimitProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final JwtClaimsCache claimsCache;
+    private final AdaptiveConcurrencyLimit global;
+    private final Map<String, AdaptiveConcurrencyLimit> routes = new ConcurrentHashMap<>();
+    private final Map<String, Counter> rejected = new ConcurrentHashMap<>();
+
+    public ConcurrencyLimitFilter(ConcurrencyLimitProperties properties, MeterRegistry meterRegistry,
+                                  JwtClaimsCache claimsCache) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.claimsCache = claimsCache;
+        this.global = create(GLOBAL, properties.getGlobal());
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        if (route == null) {
+            return chain.filter(exchange);
+        }
+        AdaptiveConcurrencyLimit routeLimit = routes.computeIfAbsent(route.getId(),
+                id -> create(id, properties.getRoute()));
+
+        boolean authenticated = isAuthenticated(exchange);
+        double share = authenticated || !AuthenticationFilter.authenticates(route) ? 1.0
+                : properties.getAnonymousShare();
+        if (!global.tryAcquire(share)) {
+            return shed(exchange, GLOBAL, authenticated);
+        }
+        if (!routeLimit.tryAcquire(share)) {
+            global.release();
+            return shed(exchange, route.getId(), authenticated);
+        }
+
+        int globalInFlight = global.getInFlight();
+        int routeInFlight = routeLimit.getInFlight();
+        long start = System.nanoTime();
+        return chain.filter(exchange).doFinally(signal -> {
+            if (signal == SignalType.CANCEL) {
+                global.release();
+                routeLimit.release();
+                return;
+            }
+            long rtt = System.nanoTime() - start;
+            boolean dropped = signal == SignalType.ON_ERROR || isOverloaded(exchange.getResponse().getStatusCode());
+            global.release(rtt, globalInFlight, dropped);
+            routeLimit.release(rtt, routeInFlight, dropped);
+        });
+    }
+
+    private Mono<Void> shed(ServerWebExchange exchange, String scope, boolean authenticated) {
+        String priority = authenticated ? "authenticated" : "anonymous";
+        rejected.computeIfAbsent(scope + '/' + priority, key -> Counter.builder("gateway.concurrency.rejected")
+                .description("Requests shed because a concurrency limit was reached")
+                .tag("scope", scope)
+                .tag("priority", priority)
+                .register(meterRegistry)).increment();
+        exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, "1");
+        return Mono.error(GatewayOverloadedException.INSTANCE);
+    }
+
+    private boolean isAuthenticated(ServerWebExchange exchange) {
+        if (exchange.getAttribute(AuthenticationFilter.USER_ID_ATTR) != null) {
+            return true;
+        }
+        String authorization = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authorization == null || !authorization.startsWith(BEARER_PREFIX)) {
+            return false;
+        }
+        // Cached entries expire with the token, so a hit is a token verified and still valid
+        return claimsCache.getIfPresent(authorization.substring(BEARER_PREFIX.length())) != null;
+    }
+
+    private static boolean isOverloaded(HttpStatusCode status) {
+        return status != null && (status.value() == 503 || status.value() == 504);
+    }
+
+    private AdaptiveConcurrencyLimit create(String scope, ConcurrencyLimitProperties.Limit config) {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(config.getInitialLimit(), config.getMinLimit(),
+                config.getMaxLimit());
+        Gauge.builder("gateway.concurrency.limit", limit, AdaptiveConcurrencyLimit::getLimit)
+                .description("Current adaptive concurrency limit on upstream calls")
+                .tag("scope", scope)
+                .strongReference(true)
+                .register(meterRegistry);
+        Gauge.builder("gateway.concurrency.inflight", limit, AdaptiveConcurrencyLimit::getInFlight)
+                .description("Upstream calls currently counted against the concurrency limit")
+                .tag("scope", scope)
+                .strongReference(true)
+                .register(meterRegistry);
+        return limit;
+    }
+
+    @Override
+    public int getOrder() {
+        return ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER - 1;
+    }
+}
@@ -0,0 +1,165 @@
+package com.muscledia.api_gateway.filter;
+
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Streaming gzip (RFC 1952) encoder for one response body at a time. Input buffers are read
+ * in place, direct or not, and released; output goes to buffers from the response's own
+ * factory, which on Netty are pooled. Encoders hold native zlib memory, so they are reused
+ * through a {@link Pool} instead of being created per response.
+ *
+ * <p>Not thread-safe; a body's chunks are encoded one after the other.
+ */
+final class GzipEncoder {
+
+    private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+    private static final int TRAILER_SIZE = 8;
+
+    private final Deflater deflater;
+    private final CRC32 crc = new CRC32();
+    private final byte[] scratch = new byte[8192];
+    private boolean headerWritten;
+    private boolean finished;
+    private long bytesIn;
+    private long bytesOut;
+    private long cpuNanos;
+
+    GzipEncoder(int level) {
+        this.deflater = new Deflater(level, true);
+    }
+
+    /**
+     * Compresses a chunk and releases it. The result holds whatever zlib has emitted so far
+     * and may be empty.
+     */
+    DataBuffer encode(DataBuffer chunk, DataBufferFactory factory) {
+        long start = System.nanoTime();
+        DataBuffer out = factory.allocateBuffer(Math.max(256, chunk.readableByteCount() / 2));
+        try {
+            writeHeader(out);
+            bytesIn += chunk.readableByteCount();
+            try (DataBuffer.ByteBufferIterator buffers = chunk.readableByteBuffers()) {
+                while (buffers.hasNext()) {
+                    ByteBuffer buffer = buffers.next();
+                    crc.update(buffer.duplicate());
+                    deflater.setInput(buffer);
+                    while (!deflater.needsInput()) {
+                        drain(out);
+                    }
+                }
+            }
+            bytesOut += out.readableByteCount();
+            return out;
+        } catch (RuntimeException e) {
+            DataBufferUtils.release(out);
+            throw e;
+        } finally {
+            DataBufferUtils.release(chunk);
+            cpuNanos += System.nanoTime() - start;
+        }
+    }
+
+    /**
+     * Flushes zlib and returns the end of the stream, including the CRC and length trailer.
+     */
+    DataBuffer finish(DataBufferFactory factory) {
+        long start = System.nanoTime();
+        DataBuffer out = factory.allocateBuffer(HEADER.length + TRAILER_SIZE + 256);
+        try {
+            writeHeader(out);
+            deflater.finish();
+            while (!deflater.finished()) {
+                drain(out);
+            }
+            writeIntLE(out, (int) crc.getValue());
+            writeIntLE(out, (int) bytesIn);
+            bytesOut += out.readableByteCount();
+            finished = true;
+            return out;
+        } catch (RuntimeException e) {
+            DataBufferUtils.release(out);
+            throw e;
+        } finally {
+            cpuNanos += System.nanoTime() - start;
+        }
+    }
+
+    long getBytesIn() {
+        return bytesIn;
+    }
+
+    long getBytesOut() {
+        return bytesOut;
+    }
+
+    long getCpuNanos() {
+        return cpuNanos;
+    }
+
+    private void writeHeader(DataBuffer out) {
+        if (!headerWritten) {
+            out.write(HEADER);
+            headerWritten = true;
+        }
+    }
+
+    private void drain(DataBuffer out) {
+        int length = deflater.deflate(scratch, 0, scratch.length, Deflater.NO_FLUSH);
+        out.write(scratch, 0, length);
+    }
+
+    private static void writeIntLE(DataBuffer out, int value) {
+        out.write((byte) value);
+        out.write((byte) (value >> 8));
+        out.write((byte) (value >> 16));
+        out.write((byte) (value >> 24));
+    }
+
+    private void reset() {
+        deflater.reset();
+        crc.reset();
+        headerWritten = false;
+        finished = false;
+        bytesIn = 0;
+        bytesOut = 0;
+        cpuNanos = 0;
+    }
+
+    /**
+     * Keeps up to {@code capacity} idle encoders; beyond that, returned encoders are ended.
+     * So are encoders of cancelled or failed bodies, which a late chunk may still be using.
+     */
+    static final class Pool {
+        private final BlockingQueue<GzipEncoder> idle;
+        private final int level;
+
+        Pool(int capacity, int level) {
+            this.idle = new ArrayBlockingQueue<>(capacity);
+            this.level = level;
+        }
+
+        GzipEncoder borrow() {
+            GzipEncoder encoder = idle.poll();
+            return encoder != null ? encoder : new GzipEncoder(level);
+        }
+
+        void release(GzipEncoder encoder) {
+            if (!encoder.finished) {
+                encoder.deflater.end();
+                return;
+            }
+            encoder.reset();
+            if (!idle.offer(encoder)) {
+                encoder.deflater.end();
+            }
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.muscledia.api_gateway.filter;
+
+import com.muscledia.api_gateway.config.GatewayMetrics;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.filter.factory.RetryGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.netty.Connection;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.CLIENT_RESPONSE_CONN_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.CLIENT_RESPONSE_HEADER_NAMES;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.removeAlreadyRouted;
+
+/**
+ * Retry filter that only replays requests that are safe to replay, and only while the
+ * route has retry budget left.
+ *
+ * <ul>
+ *     <li>Idempotent methods ({@code methods}, GET and HEAD by default) are retried on
+ *     connection errors, timeouts and the configured gateway statuses. Other methods are
+ *     retried only when the client sent an {@code Idempotency-Key}; their body is buffered
+ *     for replay, up to {@code max-replay-body-size} of declared Content-Length.</li>
+ *     <li>Requests in a retry may be at most {@code budget-percent} of the requests in
+ *     flight on the route (with a floor of {@code min-retry-concurrency}). When a service
+ *     is failing most calls, the budget caps the extra load retries add to it.</li>
+ *     <li>Backoff is exponential with random jitter, so clients that failed together do
+ *     not retry together.</li>
+ * </ul>
+ *
+ * Sets {@link RetryGatewayFilterFactory#RETRY_ITERATION_KEY} like the stock Retry filter,
+ * so retried attempts are counted by {@link UpstreamMetricsFilter}.
+ */
+@Component
+@Slf4j
+public class IdempotentRetryFilter extends AbstractGatewayFilterFactory<IdempotentRetryFilter.Config> {
+
+    private final GatewayMetrics metrics;
+
+    public IdempotentRetryFilter(GatewayMetrics metrics) {
+        super(Config.class);
+        this.metrics = metrics;
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        RetryBudget budget = new RetryBudget(config.getBudgetPercent(), config.getMinRetryConcurrency());
+        return (exchange, chain) -> {
+            if (config.getRetries() <= 0 || !isReplayable(exchange.getRequest(), config)) {
+                return chain.filter(exchange);
+            }
+            RetryState state = new RetryState(budget);
+            budget.requestStarted();
+            Mono<Void> attempts = needsBodyReplay(exchange.getRequest().getMethod(), config)
+                    ? ServerWebExchangeUtils.cacheRequestBodyAndRequest(exchange,
+                            cached -> attempt(exchange.mutate().request(cached).build(), chain, config, state, 0))
+                    : attempt(exchange, chain, config, state, 0);
+            return attempts.doFinally(signal -> state.finish());
+        };
+    }
+
+    private Mono<Void> attempt(ServerWebExchange exchange, GatewayFilterChain chain, Config config,
+                               RetryState state, int iteration) {
+        if (iteration > 0) {
+            reset(exchange);
+        }
+        return chain.filter(exchange)
+                .materialize()
+                .flatMap(signal -> {
+                    Throwable error = signal.getThrowable();
+                    exchange.getAttributes().put(RetryGatewayFilterFactory.RETRY_ITERATION_KEY, iteration);
+                    if (!shouldRetry(exchange, config, iteration, error) || !state.acquire(metrics, routeId(exchange))) {
+                        return error != null ? Mono.error(error) : Mono.empty();
+                    }
+                    if (log.isDebugEnabled()) {
+                        log.debug("Retrying {} {} (attempt {}), cause: {}", exchange.getRequest().getMethod(),
+                                exchange.getRequest().getPath(), iteration + 2,
+                                error != null ? error.toString() : exchange.getResponse().getStatusCode());
+                    }
+                    return Mono.delay(backoff(config, iteration))
+                            .then(Mono.defer(() -> attempt(exchange, chain, config, state, iteration + 1)));
+                });
+    }
+
+    private static boolean shouldRetry(ServerWebExchange exchange, Config config, int iteration, Throwable error) {
+        if (iteration >= config.getRetries() || exchange.getResponse().isCommitted()) {
+            return false;
+        }
+        if (error != null) {
+            return isRetryableError(error);
+        }
+        HttpStatusCode status = exchange.getResponse().getStatusCode();
+        return status != null && config.getStatuses().contains(HttpStatus.resolve(status.value()));
+    }
+
+    private static boolean isRetryableError(Throwable error) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (cause instanceof IOException || cause instanceof TimeoutException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isReplayable(ServerHttpRequest request, Config config) {
+        if (config.getMethods().contains(request.getMethod())) {
+            return true;
+        }
+        if (config.getIdempotencyKeyHeader() == null || !request.getHeaders().containsKey(config.getIdempotencyKeyHeader())) {
+            return false;
+        }
+        long contentLength = request.getHeaders().getContentLength();
+        return contentLength >= 0 && contentLength <= config.getMaxReplayBodySize().toBytes();
+    }
+
+    private static boolean needsBodyReplay(HttpMethod method, Config config) {
+        return !config.getMethods().contains(method);
+    }
+
+    /**
+     * Exponential backoff, shortened by a random fraction of up to {@code jitter}.
+     */
+    static Duration backoff(Config config, int iteration) {
+        long first = config.getFirstBackoff().toMillis();
+        long max = config.getMaxBackoff().toMillis();
+        long exponential = Math.min(max, first << Math.min(iteration, 20));
+        long jitter = (long) (exponential * config.getJitter() * ThreadLocalRandom.current().nextDouble());
+        return Duration.ofMillis(exponential - jitter);
+    }
+
+    /**
+     * Drops what the previous attempt left on the exchange, as the stock Retry filter does.
+     */
+    private static void reset(ServerWebExchange exchange) {
+        Connection connection = exchange.getAttribute(CLIENT_RESPONSE_CONN_ATTR);
+        if (connection != null) {
+            connection.dispose();
+            exchange.getAttributes().remove(CLIENT_RESPONSE_CONN_ATTR);
+        }
+        Set<String> addedHeaders = exchange.getAttributeOrDefault(CLIENT_RESPONSE_HEADER_NAMES, Collections.emptySet());
+        addedHeaders.forEach(header -> exchange.getResponse().getHeaders().remove(header));
+        removeAlreadyRouted(exchange);
+    }
+
+    private static String routeId(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        return route != null ? route.getId() : "unknown";
+    }
+
+    /**
+     * Per-route budget in the style of Envoy's retry budgets: requests currently retrying
+     * may be at most a percentage of the requests in flight.
+     */
+    static final class RetryBudget {
+        private final AtomicInteger active = new AtomicInteger();
+        private final AtomicInteger retrying = new AtomicInteger();
+        private final int percent;
+        private final int minRetryConcurrency;
+
+        RetryBudget(int percent, int minRetryConcurrency) {
+            this.percent = percent;
+            this.minRetryConcurrency = minRetryConcurrency;
+        }
+
+        void requestStarted() {
+            active.incrementAndGet();
+        }
+
+        void requestFinished() {
+            active.decrementAndGet();
+        }
+
+        boolean tryAcquireRetry() {
+            int limit = Math.max(minRetryConcurrency, active.get() * percent / 100);
+            while (true) {
+                int current = retrying.get();
+                if (current >= limit) {
+                    return false;
+                }
+                if (retrying.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        void releaseRetry() {
+            retrying.decrementAndGet();
+        }
+    }
+
+    /**
+     * One request's hold on the budget: a retry slot is taken at the first retry and kept
+     * until the request finishes.
+     */
+    private static final class RetryState {
+        private final RetryBudget budget;
+        private boolean holdsRetrySlot;
+
+        private RetryState(RetryBudget budget) {
+            this.budget = budget;
+        }
+
+        private boolean acquire(GatewayMetrics metrics, String routeId) {
+            if (!holdsRetrySlot) {
+                holdsRetrySlot = budget.tryAcquireRetry();
+                if (!holdsRetrySlot) {
+                    metrics.retryBudgetExhausted(routeId);
+                }
+            }
+            return holdsRetrySlot;
+        }
+
+        private void finish() {
+            if (holdsRetrySlot) {
+                budget.releaseRetry();
+            }
+            budget.requestFinished();
+        }
+    }
+
+    @Setter
+    @Getter
+    public static class Config {
+        // Retries after the first attempt
+        private int retries = 2;
+        // Methods retried without an idempotency key
+        private Set<HttpMethod> methods = Set.of(HttpMethod.GET, HttpMethod.HEAD);
+        private Set<HttpStatus> statuses = Set.of(HttpStatus.BAD_GATEWAY, HttpStatus.SERVICE_UNAVAILABLE,
+                HttpStatus.GATEWAY_TIMEOUT);
+        // Any other method is retried only when this request header is present; null disables that
+        private String idempotencyKeyHeader = "Idempotency-Key";
+        private DataSize maxReplayBodySize = DataSize.ofKilobytes(64);
+        private Duration firstBackoff = Duration.ofMillis(50);
+        private Duration maxBackoff = Duration.ofMillis(500);
+        // Fraction of each backoff that is randomized, 0 to 1
+        private double jitter = 0.5;
+        private int budgetPercent = 20;
+        private int minRetryConcurrency = 3;
+    }
+}
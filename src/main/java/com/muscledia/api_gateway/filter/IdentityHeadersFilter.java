@@ -0,0 +1,51 @@
+package com.muscledia.api_gateway.filter;
+
+import com.muscledia.api_gateway.config.UserIdentity;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+
+/**
+ * Adds the {@link UserIdentity} that {@link AuthenticationFilter} left on the exchange to
+ * the headers of the upstream request, while the routing filter builds them. The incoming
+ * request is never copied for it; requests without a verified identity lose any
+ * client-sent signed identity header.
+ */
+@Component
+public class IdentityHeadersFilter implements HttpHeadersFilter, Ordered {
+
+    @Override
+    public HttpHeaders filter(HttpHeaders input, ServerWebExchange exchange) {
+        UserIdentity identity = exchange.getAttribute(UserIdentity.ATTR);
+        if (identity == null && !input.containsKey(UserIdentity.SIGNED_HEADER)) {
+            return input;
+        }
+        HttpHeaders headers = writable(input);
+        if (identity != null) {
+            identity.writeTo(headers);
+        } else {
+            UserIdentity.removeSignedFrom(headers);
+        }
+        return headers;
+    }
+
+    private static HttpHeaders writable(HttpHeaders input) {
+        // Running last, the input is the copy RemoveHopByHopHeadersFilter made; only the
+        // incoming request's own headers are read-only
+        try {
+            input.remove(UserIdentity.SIGNED_HEADER);
+            return input;
+        } catch (UnsupportedOperationException e) {
+            HttpHeaders copy = new HttpHeaders();
+            copy.addAll(input);
+            return copy;
+        }
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.LOWEST_PRECEDENCE;
+    }
+}
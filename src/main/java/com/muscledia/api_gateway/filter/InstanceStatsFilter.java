@@ -0,0 +1,65 @@
+package com.muscledia.api_gateway.filter;
+
+import com.muscledia.api_gateway.loadbalancer.InstanceStats;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_LOADBALANCER_RESPONSE_ATTR;
+
+/**
+ * Reports each upstream attempt on an {@code lb://} route to {@link InstanceStats}: the
+ * request is outstanding on the chosen instance until its response headers arrive, then
+ * counts as a latency sample or as a failure. Connection errors and 502/503/504 are
+ * failures; a cancelled attempt only stops being outstanding.
+ */
+@Component
+public class InstanceStatsFilter implements GlobalFilter, Ordered {
+
+    private final InstanceStats stats;
+
+    public InstanceStatsFilter(InstanceStats stats) {
+        this.stats = stats;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Response<ServiceInstance> selected = exchange.getAttribute(GATEWAY_LOADBALANCER_RESPONSE_ATTR);
+        if (selected == null || !selected.hasServer()) {
+            return chain.filter(exchange);
+        }
+        InstanceStats.Instance instance = stats.get(selected.getServer());
+
+        instance.started();
+        long start = System.nanoTime();
+        return chain.filter(exchange).doFinally(signal -> {
+            instance.finished();
+            if (signal == SignalType.ON_ERROR) {
+                instance.failed();
+            } else if (signal == SignalType.ON_COMPLETE) {
+                if (isUnavailable(exchange.getResponse().getStatusCode())) {
+                    instance.failed();
+                } else {
+                    instance.succeeded(System.nanoTime() - start);
+                }
+            }
+        });
+    }
+
+    private static boolean isUnavailable(HttpStatusCode status) {
+        return status != null && (status.value() == 502 || status.value() == 503 || status.value() == 504);
+    }
+
+    @Override
+    public int getOrder() {
+        return ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 1;
+    }
+}
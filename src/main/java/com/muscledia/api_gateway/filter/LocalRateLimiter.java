@@ -0,0 +1,145 @@
+package com.muscledia.api_gateway.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.gateway.event.FilterArgsEvent;
+import org.springframework.cloud.gateway.filter.ratelimit.AbstractRateLimiter;
+import org.springframework.cloud.gateway.support.ConfigurationService;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory {@link org.springframework.cloud.gateway.filter.ratelimit.RateLimiter} for the
+ * {@code RequestRateLimiter} route filter, so rate limiting needs no Redis round trip.
+ *
+ * <p>Each key holds a token bucket expressed as a single "theoretical arrival time"
+ * (GCRA): taking tokens is one compare-and-set on an {@link AtomicLong}, with no locks
+ * and no refill timer. Buckets live in a size-bounded cache and are dropped after
+ * {@code gateway.rate-limit.idle-timeout} without requests; a dropped bucket is full again,
+ * which is what an idle bucket would be anyway.
+ *
+ * <p>Limits are per gateway instance. Route args use the {@code local-rate-limiter.} prefix,
+ * and are checked when the route is loaded:
+ * <pre>
+ * - name: RequestRateLimiter
+ *   args:
+ *     key-resolver: "#{&#64;clientIpKeyResolver}"
+ *     local-rate-limiter.replenish-rate: 5
+ *     local-rate-limiter.burst-capacity: 10
+ * </pre>
+ * Rejections are counted per route in {@code gateway.ratelimit.rejected}.
+ */
+@Component
+public class LocalRateLimiter extends AbstractRateLimiter<LocalRateLimiter.Config> {
+
+    public static final String CONFIGURATION_PROPERTY_NAME = "local-rate-limiter";
+
+    public static final String REMAINING_HEADER = "X-RateLimit-Remaining";
+    public static final String RETRY_AFTER_HEADER = "Retry-After";
+
+    private static final long NANOS_PER_SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final MeterRegistry meterRegistry;
+    private final Cache<String, AtomicLong> buckets;
+    private final Config defaultConfig = new Config();
+    private final Map<String, Counter> rejected = new ConcurrentHashMap<>();
+
+    public LocalRateLimiter(ConfigurationService configurationService, MeterRegistry meterRegistry,
+                            @Value("${gateway.rate-limit.max-keys:100000}") long maxKeys,
+                            @Value("${gateway.rate-limit.idle-timeout:10m}") Duration idleTimeout) {
+        super(Config.class, CONFIGURATION_PROPERTY_NAME, configurationService);
+        this.meterRegistry = meterRegistry;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterAccess(idleTimeout)
+                .build();
+    }
+
+    /**
+     * Binds the route's args like any rate limiter, then rejects values the bucket cannot work
+     * with, so a bad route fails when it is loaded rather than on its first request.
+     */
+    @Override
+    public void onApplicationEvent(FilterArgsEvent event) {
+        super.onApplicationEvent(event);
+        Config config = getConfig().get(event.getRouteId());
+        if (config != null) {
+            validate(event.getRouteId(), config);
+        }
+    }
+
+    private static void validate(String routeId, Config config) {
+        if (config.getReplenishRate() < 1) {
+            throw new IllegalArgumentException("Route " + routeId + ": " + CONFIGURATION_PROPERTY_NAME
+                    + ".replenish-rate must be at least 1, was " + config.getReplenishRate());
+        }
+        if (config.getRequestedTokens() < 1 || config.getRequestedTokens() > config.getBurstCapacity()) {
+            throw new IllegalArgumentException("Route " + routeId + ": " + CONFIGURATION_PROPERTY_NAME
+                    + ".requested-tokens must be between 1 and burst-capacity (" + config.getBurstCapacity()
+                    + "), was " + config.getRequestedTokens());
+        }
+    }
+
+    @Override
+    public Mono<Response> isAllowed(String routeId, String id) {
+        Config config = getConfig().getOrDefault(routeId, defaultConfig);
+        long emissionInterval = NANOS_PER_SECOND / config.getReplenishRate();
+        long increment = emissionInterval * config.getRequestedTokens();
+        long burstWindow = emissionInterval * config.getBurstCapacity();
+
+        AtomicLong theoreticalArrival = buckets.get(routeId + ':' + id, key -> new AtomicLong(Long.MIN_VALUE));
+        long now = System.nanoTime();
+        while (true) {
+            long current = theoreticalArrival.get();
+            long next = Math.max(current, now) + increment;
+            long excess = next - now - burstWindow;
+            if (excess > 0) {
+                rejected.computeIfAbsent(routeId, this::rejectedCounter).increment();
+                long retryAfterSeconds = Math.max(1, (excess + NANOS_PER_SECOND - 1) / NANOS_PER_SECOND);
+                return Mono.just(new Response(false, headers(config, 0, retryAfterSeconds)));
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                long remaining = (burstWindow - (next - now)) / emissionInterval;
+                return Mono.just(new Response(true, headers(config, remaining, 0)));
+            }
+        }
+    }
+
+    private Counter rejectedCounter(String routeId) {
+        return Counter.builder("gateway.ratelimit.rejected")
+                .description("Requests rejected with 429 by the local rate limiter")
+                .tag("route", routeId)
+                .register(meterRegistry);
+    }
+
+    private static Map<String, String> headers(Config config, long remaining, long retryAfterSeconds) {
+        if (retryAfterSeconds > 0) {
+            return config.isIncludeHeaders()
+                    ? Map.of(RETRY_AFTER_HEADER, Long.toString(retryAfterSeconds), REMAINING_HEADER, "0")
+                    : Map.of(RETRY_AFTER_HEADER, Long.toString(retryAfterSeconds));
+        }
+        return config.isIncludeHeaders() ? Map.of(REMAINING_HEADER, Long.toString(remaining)) : Map.of();
+    }
+
+    @Setter
+    @Getter
+    public static class Config {
+        // Tokens added per second, i.e. the sustained request rate
+        private int replenishRate = 10;
+        // Tokens a full bucket holds, i.e. the largest burst allowed after an idle period
+        private int burstCapacity = 20;
+        private int requestedTokens = 1;
+        private boolean includeHeaders = true;
+    }
+}
@@ -0,0 +1,189 @@
+package com.muscledia.api_gateway.filter;
+
+import org.springframework.http.HttpMethod;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Segment trie compiled from Ant-style path patterns, used wherever the gateway has to
+ * decide on every request whether a path belongs to a configured set.
+ *
+ * <p>Patterns are matched segment by segment, so {@code /public/**} matches
+ * {@code /public/plans} but never {@code /publicity}. Supported segments are literals,
+ * {@code *} or {@code {var}} (exactly one segment), {@code prefix*} (one segment starting
+ * with {@code prefix}) and {@code **} or {@code {*var}} (zero or more segments). A pattern
+ * may be restricted to HTTP methods by prefixing it, e.g. {@code "GET,HEAD /api/v1/exercises/**"}.
+ *
+ * <p>Instances are immutable once compiled and {@link #matches} does not allocate.
+ */
+public final class PathPatternTrie {
+
+    private final Node root;
+
+    private PathPatternTrie(Node root) {
+        this.root = root;
+    }
+
+    public static PathPatternTrie compile(List<String> patterns) {
+        Node root = new Node();
+        for (String pattern : patterns) {
+            add(root, pattern.trim());
+        }
+        return new PathPatternTrie(root);
+    }
+
+    /**
+     * Returns whether the path matches any compiled pattern that allows the method.
+     * A {@code null} method only matches patterns without a method restriction.
+     */
+    public boolean matches(String path, HttpMethod method) {
+        return match(root, path, 0, method);
+    }
+
+    private static void add(Node root, String pattern) {
+        Set<HttpMethod> methods = null;
+        int space = pattern.indexOf(' ');
+        if (space > 0) {
+            methods = new HashSet<>();
+            for (String method : pattern.substring(0, space).split(",")) {
+                methods.add(HttpMethod.valueOf(method.trim().toUpperCase()));
+            }
+            pattern = pattern.substring(space + 1).trim();
+        }
+        if (!pattern.startsWith("/")) {
+            throw new IllegalArgumentException("Path pattern must start with '/': " + pattern);
+        }
+
+        Node node = root;
+        for (String segment : pattern.split("/")) {
+            if (!segment.isEmpty()) {
+                node = node.child(segment);
+            }
+        }
+        node.accept(methods);
+    }
+
+    private static boolean match(Node node, String path, int pos, HttpMethod method) {
+        int length = path.length();
+        while (pos < length && path.charAt(pos) == '/') {
+            pos++;
+        }
+        if (pos == length) {
+            return node.accepts(method) || (node.multi != null && match(node.multi, path, pos, method));
+        }
+
+        int end = path.indexOf('/', pos);
+        if (end < 0) {
+            end = length;
+        }
+        int segmentLength = end - pos;
+
+        for (int i = 0; i < node.literals.length; i++) {
+            String literal = node.literals[i];
+            if (literal.length() == segmentLength && path.regionMatches(pos, literal, 0, segmentLength)
+                    && match(node.literalChildren[i], path, end, method)) {
+                return true;
+            }
+        }
+        for (int i = 0; i < node.prefixes.length; i++) {
+            String prefix = node.prefixes[i];
+            if (prefix.length() <= segmentLength && path.regionMatches(pos, prefix, 0, prefix.length())
+                    && match(node.prefixChildren[i], path, end, method)) {
+                return true;
+            }
+        }
+        if (node.single != null && match(node.single, path, end, method)) {
+            return true;
+        }
+        if (node.multi != null) {
+            // '**' consumes zero or more whole segments before the rest of the pattern resumes
+            int next = pos;
+            while (true) {
+                if (match(node.multi, path, next, method)) {
+                    return true;
+                }
+                if (next >= length) {
+                    return false;
+                }
+                int slash = path.indexOf('/', next);
+                next = slash < 0 ? length : slash + 1;
+            }
+        }
+        return false;
+    }
+
+    private static final class Node {
+        private static final String[] NO_KEYS = new String[0];
+        private static final Node[] NO_CHILDREN = new Node[0];
+
+        private String[] literals = NO_KEYS;
+        private Node[] literalChildren = NO_CHILDREN;
+        private String[] prefixes = NO_KEYS;
+        private Node[] prefixChildren = NO_CHILDREN;
+        private Node single;
+        private Node multi;
+
+        private boolean terminal;
+        private Set<HttpMethod> methods;
+
+        private Node child(String segment) {
+            if (segment.equals("**") || (segment.startsWith("{*") && segment.endsWith("}"))) {
+                if (multi == null) {
+                    multi = new Node();
+                }
+                return multi;
+            }
+            if (segment.equals("*") || (segment.startsWith("{") && segment.endsWith("}"))) {
+                if (single == null) {
+                    single = new Node();
+                }
+                return single;
+            }
+            if (segment.endsWith("*")) {
+                String prefix = segment.substring(0, segment.length() - 1);
+                int index = Arrays.asList(prefixes).indexOf(prefix);
+                if (index < 0) {
+                    prefixes = append(prefixes, prefix);
+                    prefixChildren = append(prefixChildren, new Node());
+                    index = prefixes.length - 1;
+                }
+                return prefixChildren[index];
+            }
+            int index = Arrays.asList(literals).indexOf(segment);
+            if (index < 0) {
+                literals = append(literals, segment);
+                literalChildren = append(literalChildren, new Node());
+                index = literals.length - 1;
+            }
+            return literalChildren[index];
+        }
+
+        private void accept(Set<HttpMethod> patternMethods) {
+            if (!terminal) {
+                terminal = true;
+                methods = patternMethods == null ? null : Set.copyOf(patternMethods);
+            } else if (methods != null) {
+                if (patternMethods == null) {
+                    methods = null;
+                } else {
+                    Set<HttpMethod> merged = new HashSet<>(methods);
+                    merged.addAll(patternMethods);
+                    methods = Set.copyOf(merged);
+                }
+            }
+        }
+
+        private boolean accepts(HttpMethod method) {
+            return terminal && (methods == null || (method != null && methods.contains(method)));
+        }
+
+        private static <T> T[] append(T[] array, T element) {
+            T[] copy = Arrays.copyOf(array, array.length + 1);
+            copy[array.length] = element;
+            return copy;
+        }
+    }
+}
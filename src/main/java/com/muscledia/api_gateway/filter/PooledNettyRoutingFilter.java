@@ -0,0 +1,145 @@
+package com.muscledia.api_gateway.filter;
+
+import com.muscledia.api_gateway.config.UpstreamPoolProperties;
+import com.muscledia.api_gateway.tracing.HopTimings;
+import io.netty.channel.ChannelOption;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyRoutingFilter;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.Http2AllocationStrategy;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import static org.springframework.cloud.gateway.support.RouteMetadataUtils.CONNECT_TIMEOUT_ATTR;
+
+/**
+ * {@link NettyRoutingFilter} that sends routes listed in {@link UpstreamPoolProperties}
+ * through their own connection pool. Each pool is named {@code upstream-<route id>} and
+ * has Reactor Netty pool metrics enabled, which publishes active, idle and pending
+ * connection gauges ({@code reactor.netty.connection.provider.*}) per pool.
+ *
+ * <p>Routes without their own pool go through the gateway's shared client. This filter runs
+ * just before the stock routing filter and marks every exchange as routed, so it handles
+ * all proxied requests and the stock filter never does. Every client it uses, pooled or
+ * not, reports the connect and upstream phases of {@link HopTimings}.
+ */
+@Slf4j
+public class PooledNettyRoutingFilter extends NettyRoutingFilter implements DisposableBean {
+
+    private final Map<String, UpstreamPoolProperties.Pool> pools;
+    private final Function<ConnectionProvider, HttpClient> clientFactory;
+    private final Map<String, ConnectionProvider> providers = new ConcurrentHashMap<>();
+    private final Map<String, HttpClient> clients = new ConcurrentHashMap<>();
+
+    /**
+     * @param clientFactory builds a route's client on its pool, configured like the shared
+     *                      client; see {@link com.muscledia.api_gateway.config.RouteHttpClientFactory}
+     */
+    public PooledNettyRoutingFilter(HttpClient httpClient, ObjectProvider<List<HttpHeadersFilter>> headersFiltersProvider,
+                                    HttpClientProperties properties, UpstreamPoolProperties upstreamPools,
+                                    Function<ConnectionProvider, HttpClient> clientFactory) {
+        super(HopTimings.instrument(httpClient), headersFiltersProvider, properties);
+        this.pools = upstreamPools.getRoutes();
+        this.clientFactory = clientFactory;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        HopTimings timings = HopTimings.find(exchange);
+        if (timings != null) {
+            timings.routingStarted();
+        }
+        return super.filter(exchange, chain);
+    }
+
+    @Override
+    protected HttpClient getHttpClient(Route route, ServerWebExchange exchange) {
+        UpstreamPoolProperties.Pool pool = pools.get(route.getId());
+        if (pool == null) {
+            return super.getHttpClient(route, exchange);
+        }
+        HttpClient client = clients.computeIfAbsent(route.getId(), id -> createClient(id, pool));
+        Object connectTimeout = route.getMetadata().get(CONNECT_TIMEOUT_ATTR);
+        if (connectTimeout != null) {
+            return client.option(ChannelOption.CONNECT_TIMEOUT_MILLIS, Integer.parseInt(connectTimeout.toString()));
+        }
+        return client;
+    }
+
+    /**
+     * Opens up to {@code connections} connections to each upstream through the client and
+     * pool the route uses, by requesting the upstream's health endpoint that many times at
+     * once. Failures are only logged; an unreachable upstream is the load balancer's concern.
+     */
+    public Mono<Void> warmUp(Route route, List<URI> upstreams, int connections) {
+        // Neither the stock nor the pooled client lookup uses the exchange
+        HttpClient client = getHttpClient(route, null);
+        return client.warmup()
+                .thenMany(Flux.fromIterable(upstreams))
+                .flatMap(upstream -> Flux.range(0, connections)
+                        .flatMap(i -> client.get()
+                                .uri(upstream.resolve("/actuator/health").toString())
+                                .responseContent()
+                                .then()
+                                .onErrorResume(e -> {
+                                    log.debug("Warm-up request to {} for route {} failed: {}", upstream,
+                                            route.getId(), e.toString());
+                                    return Mono.empty();
+                                })))
+                .then();
+    }
+
+    private HttpClient createClient(String routeId, UpstreamPoolProperties.Pool pool) {
+        ConnectionProvider.Builder builder = ConnectionProvider.builder("upstream-" + routeId)
+                .maxConnections(pool.getMaxConnections())
+                .pendingAcquireTimeout(pool.getPendingAcquireTimeout())
+                .maxIdleTime(pool.getMaxIdleTime())
+                .maxLifeTime(pool.getMaxLifeTime())
+                .evictInBackground(pool.getEvictInBackground())
+                .metrics(true);
+        if (pool.getPendingAcquireMaxCount() > 0) {
+            builder.pendingAcquireMaxCount(pool.getPendingAcquireMaxCount());
+        }
+        if (pool.isH2c()) {
+            builder.allocationStrategy(Http2AllocationStrategy.builder()
+                    .maxConnections(pool.getMaxConnections())
+                    .maxConcurrentStreams(pool.getMaxConcurrentStreams())
+                    .build());
+        }
+        ConnectionProvider provider = builder.build();
+        providers.put(routeId, provider);
+
+        HttpClient client = clientFactory.apply(provider);
+        if (pool.isH2c()) {
+            client = client.protocol(HttpProtocol.H2C);
+        }
+        log.info("Route {} uses its own upstream pool: max {} connections{}", routeId, pool.getMaxConnections(),
+                pool.isH2c() ? ", h2c" : "");
+        return HopTimings.instrument(client);
+    }
+
+    @Override
+    public int getOrder() {
+        return super.getOrder() - 1;
+    }
+
+    @Override
+    public void destroy() {
+        providers.values().forEach(ConnectionProvider::dispose);
+    }
+}
@@ -1,6 +1,8 @@
 package com.muscledia.api_gateway.filter;
 
 import com.muscledia.api_gateway.config.JwtUtil;
+import com.muscledia.api_gateway.exception.ErrorResponseWriter;
+import io.jsonwebtoken.Claims;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -8,10 +10,9 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cloud.gateway.filter.GatewayFilterChain;
 import org.springframework.cloud.gateway.filter.GlobalFilter;
 import org.springframework.core.Ordered;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
 import org.springframework.http.server.reactive.ServerHttpRequest;
-import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.stereotype.Component;
 import org.springframework.web.server.ServerWebExchange;
 import reactor.core.publisher.Mono;
@@ -26,36 +27,41 @@ public class ReactiveJwtAuthenticationFilter implements GlobalFilter, Ordered {
     @Autowired
     private JwtUtil jwtUtil;
 
+    @Autowired
+    private ErrorResponseWriter errorWriter;
+
     @Value("${jwt.header}")
     private String tokenHeader;
 
-    @Value("$jwt.prefix}")
+    @Value("${jwt.prefix}")
     private String tokenPrefix;
 
     private static final List<String> EXCLUDED_PATHS = List.of(
             "/api/users/login",
             "/api/users/register",
-            "/actuator/health",
+            "/actuator/health/**",
             "/gateway/health"
     );
 
     private static final List<String> PUBLIC_READ_PATHS = List.of(
-            "/api/v1/exercises",
-            "/api/v1/muscle-groups",
-            "/api/v1/workout-plans/public",
-            "/api/v1/routine-folders/public",
-            "/api/gamification/**"
+            "GET /api/v1/exercises/**",
+            "GET /api/v1/muscle-groups/**",
+            "GET /api/v1/workout-plans/public/**",
+            "GET /api/v1/routine-folders/public/**",
+            "GET /api/gamification/**"
     );
 
+    private static final PathPatternTrie EXCLUDED_PATH_MATCHER = PathPatternTrie.compile(EXCLUDED_PATHS);
+
+    private static final PathPatternTrie PUBLIC_READ_PATH_MATCHER = PathPatternTrie.compile(PUBLIC_READ_PATHS);
+
     @Override
     public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
         ServerHttpRequest request = exchange.getRequest();
         String path = request.getURI().getPath();
         String method = request.getMethod().name();
 
-        // Log incoming request
-        // Add this line for debugging
-        logger.info("Gateway processing: {} {} from {}", method, path, request.getRemoteAddress());
+        logger.debug("Gateway processing: {} {} from {}", method, path, request.getRemoteAddress());
 
         // Skip JWT validation for excluded paths
         if (isExcludedPath(path)) {
@@ -64,7 +70,7 @@ public class ReactiveJwtAuthenticationFilter implements GlobalFilter, Ordered {
         }
 
         // Skip JWT validation for public read-only endpoints (GET requests)
-        if ("GET".equals(method) && isPublicReadPath(path)) {
+        if (isPublicReadPath(path, request.getMethod())) {
             logger.debug("Skipping JWT validation for public read path: {}", path);
             return chain.filter(exchange);
         }
@@ -73,22 +79,24 @@ public class ReactiveJwtAuthenticationFilter implements GlobalFilter, Ordered {
         String authHeader = request.getHeaders().getFirst(tokenHeader);
 
         if (authHeader == null || !authHeader.startsWith(tokenPrefix)) {
-            logger.warn("Missing or invalid Authorization header for path: {}", path);
+            logger.debug("Missing or invalid Authorization header for path: {}", path);
             return onError(exchange, "Missing or invalid Authorization header", HttpStatus.UNAUTHORIZED);
         }
 
         String token = authHeader.substring(tokenPrefix.length());
 
         try {
-            if (!jwtUtil.validateToken(token)) {
-                logger.warn("Invalid JWT token for path: {}", path);
+            // Parse and verify once, then read every claim from the same object
+            Claims claims = jwtUtil.extractAllClaims(token);
+            if (jwtUtil.isTokenExpired(claims)) {
+                logger.debug("Invalid JWT token for path: {}", path);
                 return onError(exchange, "Invalid or expired JWT token", HttpStatus.UNAUTHORIZED);
             }
 
             // Extract user info
-            String username = jwtUtil.extractUsername(token);
-            String role = jwtUtil.extractRole(token);
-            Long userId = jwtUtil.extractUserId(token);
+            String username = claims.getSubject();
+            String role = jwtUtil.extractRole(claims);
+            Long userId = jwtUtil.extractUserId(claims);
 
             logger.debug("Authenticated user: {} (ID: {}, Role: {})", username, userId, role);
 
@@ -103,33 +111,21 @@ public class ReactiveJwtAuthenticationFilter implements GlobalFilter, Ordered {
             return chain.filter(exchange.mutate().request(modifiedRequest).build());
 
         } catch (Exception e) {
-            logger.error("JWT token processing error for path: {}", path, e);
+            logger.debug("JWT token processing error for path: {}", path, e);
             return onError(exchange, "JWT token processing error", HttpStatus.UNAUTHORIZED);
         }
     }
 
     private boolean isExcludedPath(String path) {
-        return EXCLUDED_PATHS.stream().anyMatch(path::startsWith);
+        return EXCLUDED_PATH_MATCHER.matches(path, null);
     }
 
-    private boolean isPublicReadPath(String path) {
-        return PUBLIC_READ_PATHS.stream().anyMatch(path::startsWith);
+    private boolean isPublicReadPath(String path, HttpMethod method) {
+        return PUBLIC_READ_PATH_MATCHER.matches(path, method);
     }
 
     private Mono<Void> onError(ServerWebExchange exchange, String errorMessage, HttpStatus httpStatus) {
-        ServerHttpResponse response = exchange.getResponse();
-        response.setStatusCode(httpStatus);
-        response.getHeaders().add("Content-Type", MediaType.APPLICATION_JSON_VALUE);
-
-        String body = String.format(
-                "{\"error\":\"%s\",\"status\":%d,\"timestamp\":\"%s\",\"path\":\"%s\"}",
-                errorMessage,
-                httpStatus.value(),
-                java.time.Instant.now().toString(),
-                exchange.getRequest().getURI().getPath()
-        );
-
-        return response.writeWith(Mono.just(response.bufferFactory().wrap(body.getBytes())));
+        return errorWriter.write(exchange, errorWriter.error(httpStatus, errorMessage));
     }
 
     @Override
@@ -0,0 +1,180 @@
+package com.muscledia.api_gateway.filter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.Setter;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Opt-in single-flight for identical concurrent GETs: while one request for a key is in
+ * flight upstream, identical requests wait for it and are answered with a copy of its
+ * response instead of being forwarded.
+ *
+ * <p>The key is route, path, query and the values of {@code key-headers} (by default
+ * Authorization, so users never see each other's responses, plus Accept and
+ * Accept-Encoding, which upstream responses may vary on). Only complete, non-error
+ * responses up to {@code max-body-size} without {@code Set-Cookie} are shared; otherwise,
+ * or if the leading request fails, waiting requests are forwarded as usual. Nothing is kept
+ * once the leading request finishes; see {@link ResponseCacheFilter} for caching.
+ *
+ * <p>Runs at its position in the route, so waiting requests have already passed the route
+ * filters listed before it (rate limiting, circuit breaker); list it before
+ * {@code IdempotentRetryFilter}, whose retries need the upstream body unwritten. The body is
+ * written through {@link UpstreamResponseWriter}, for this filter to see it. Listed after
+ * {@code ResponseCacheFilter} on the same route, it only coalesces cache misses.
+ * {@code gateway.upstream.coalesced} counts the requests answered with a shared response.
+ */
+@Component
+public class RequestCoalescingFilter extends AbstractGatewayFilterFactory<RequestCoalescingFilter.Config> {
+
+    private static final char KEY_SEPARATOR = '\n';
+
+    private final MeterRegistry meterRegistry;
+    private final UpstreamResponseWriter writer;
+    private final SingleFlight<String, SharedResponse> inFlight = new SingleFlight<>();
+    private final Map<String, Counter> coalesced = new ConcurrentHashMap<>();
+
+    public RequestCoalescingFilter(MeterRegistry meterRegistry, NettyWriteResponseFilter writeResponseFilter) {
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+        this.writer = new UpstreamResponseWriter(writeResponseFilter);
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return (exchange, chain) -> {
+            if (exchange.getRequest().getMethod() != HttpMethod.GET) {
+                return chain.filter(exchange);
+            }
+            return coalesce(exchange, chain, config);
+        };
+    }
+
+    private Mono<Void> coalesce(ServerWebExchange exchange, GatewayFilterChain chain, Config config) {
+        String routeId = routeId(exchange);
+        SingleFlight.Call<String, SharedResponse> call = inFlight.join(key(routeId, exchange.getRequest(), config));
+        if (!call.isLeader()) {
+            // Writing completes empty, so it carries the shared response on for switchIfEmpty
+            // to only forward the request when there was nothing to share
+            return call.result()
+                    .flatMap(shared -> {
+                        coalesced.computeIfAbsent(routeId, this::coalescedCounter).increment();
+                        return write(exchange.getResponse(), shared).thenReturn(shared);
+                    })
+                    .switchIfEmpty(Mono.defer(() -> chain.filter(exchange).then(Mono.empty())))
+                    .then();
+        }
+        CapturingResponse response = new CapturingResponse(exchange.getResponse(), config.getMaxBodySize().toBytes());
+        // Error responses are left to the gateway's writer, for the circuit breaker to see
+        return writer.forward(exchange.mutate().response(response).build(), chain, status -> !status.isError())
+                .doFinally(signal -> call.complete(response.captured));
+    }
+
+    private Counter coalescedCounter(String routeId) {
+        return Counter.builder("gateway.upstream.coalesced")
+                .description("Requests answered with the response of an identical request already in flight")
+                .tag("route", routeId)
+                .register(meterRegistry);
+    }
+
+    private static Mono<Void> write(ServerHttpResponse response, SharedResponse shared) {
+        HttpHeaders headers = response.getHeaders();
+        shared.headers().forEach((name, values) -> headers.put(name, new ArrayList<>(values)));
+        headers.setContentLength(shared.body().length);
+        response.setStatusCode(shared.status());
+        return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(shared.body())));
+    }
+
+    private static String key(String routeId, ServerHttpRequest request, Config config) {
+        StringBuilder key = new StringBuilder(128)
+                .append(routeId).append(KEY_SEPARATOR)
+                .append(request.getPath().value());
+        String query = request.getURI().getRawQuery();
+        if (query != null) {
+            key.append('?').append(query);
+        }
+        for (String header : config.getKeyHeaders()) {
+            key.append(KEY_SEPARATOR);
+            List<String> values = request.getHeaders().get(header);
+            if (values != null) {
+                key.append(String.join(",", values));
+            }
+        }
+        return key.toString();
+    }
+
+    private static String routeId(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        return route != null ? route.getId() : "unknown";
+    }
+
+    private record SharedResponse(HttpStatusCode status, HttpHeaders headers, byte[] body) {
+    }
+
+    /**
+     * Copies the leader's response as it is written, for the requests waiting on it.
+     */
+    private static final class CapturingResponse extends ServerHttpResponseDecorator {
+        private final long maxBodySize;
+        // Written on the response thread before the leader's doFinally reads it
+        private volatile SharedResponse captured;
+
+        private CapturingResponse(ServerHttpResponse delegate, long maxBodySize) {
+            super(delegate);
+            this.maxBodySize = maxBodySize;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            HttpStatusCode status = getStatusCode();
+            if (status == null || status.isError() || getHeaders().containsKey(HttpHeaders.SET_COOKIE)
+                    || getHeaders().getContentLength() > maxBodySize) {
+                return super.writeWith(body);
+            }
+            HttpHeaders headers = ResponseCacheFilter.replayableHeaders(getHeaders());
+            BodyCapture capture = new BodyCapture(maxBodySize, getHeaders().getContentLength());
+            return super.writeWith(Flux.from(body)
+                    .doOnNext(capture::append)
+                    .doOnComplete(() -> {
+                        byte[] bytes = capture.toByteArray();
+                        if (bytes != null) {
+                            captured = new SharedResponse(status, HttpHeaders.readOnlyHttpHeaders(headers), bytes);
+                        }
+                    }));
+        }
+    }
+
+    @Setter
+    @Getter
+    public static class Config {
+        // Request headers whose values are part of the key; requests differing in them never share a response
+        private List<String> keyHeaders = List.of(HttpHeaders.AUTHORIZATION, HttpHeaders.ACCEPT,
+                HttpHeaders.ACCEPT_ENCODING);
+        private DataSize maxBodySize = DataSize.ofKilobytes(256);
+    }
+}
@@ -0,0 +1,540 @@
+package com.muscledia.api_gateway.filter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.AbstractServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.ServerWebExchangeDecorator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.Connection;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32C;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.CLIENT_RESPONSE_CONN_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Caches GET responses of a route's read-only endpoints in {@link ResponseCacheStore}.
+ *
+ * <ul>
+ *     <li>Only 200 responses are stored. {@code Cache-Control} decides freshness
+ *     ({@code s-maxage}, then {@code max-age}); {@code no-store}, {@code no-cache},
+ *     {@code private}, {@code Vary: *} and {@code Set-Cookie} responses are never stored.
+ *     Without {@code Cache-Control} the route's {@code ttl} applies.</li>
+ *     <li>Requests with {@code Authorization} are only served responses marked
+ *     {@code public} or {@code s-maxage}, as for any shared cache.</li>
+ *     <li>{@code If-None-Match} matching the entry's ETag gets a 304. Responses without
+ *     an ETag get a weak one computed from the body.</li>
+ *     <li>Concurrent misses for a key are collapsed: one request goes upstream and the
+ *     others are answered with its response.</li>
+ *     <li>Stale-while-revalidate: once an entry is stale, requests get the stale copy
+ *     until the window ends. The first of them also starts a revalidation in the
+ *     background (with If-None-Match when the upstream gave an ETag), so no client waits
+ *     on it; its outcome is counted as {@code REVALIDATED} rather than as a request.</li>
+ * </ul>
+ *
+ * Runs at its position in the route, so hits and collapsed requests have already passed the
+ * route filters listed before it (rate limiting, circuit breaker). Those listed after it run
+ * only for requests that go upstream; list it before {@code IdempotentRetryFilter}, whose
+ * retries need the upstream body unwritten. The body is written through
+ * {@link UpstreamResponseWriter}, for this filter to see it. {@code gateway.response.cache.requests}
+ * counts cacheable requests per route by {@link CacheResult}.
+ */
+@Component
+@Slf4j
+public class ResponseCacheFilter extends AbstractGatewayFilterFactory<ResponseCacheFilter.Config> {
+
+    public static final String CACHE_STATUS_HEADER = "X-Cache";
+
+    /**
+     * How a cacheable request was answered; also sent as {@code X-Cache}.
+     * {@code REVALIDATED} counts background refreshes of stale entries instead.
+     */
+    public enum CacheResult {
+        HIT, STALE, COLLAPSED, REVALIDATED, MISS
+    }
+
+    // Per-connection or per-response headers that must not be replayed from the cache
+    private static final Set<String> UNCACHED_HEADERS = Set.of(
+            HttpHeaders.CONNECTION.toLowerCase(Locale.ROOT), HttpHeaders.TRANSFER_ENCODING.toLowerCase(Locale.ROOT),
+            "keep-alive", HttpHeaders.CONTENT_LENGTH.toLowerCase(Locale.ROOT), HttpHeaders.AGE.toLowerCase(Locale.ROOT),
+            CACHE_STATUS_HEADER.toLowerCase(Locale.ROOT));
+
+    private final ResponseCacheStore store;
+    private final MeterRegistry meterRegistry;
+    private final UpstreamResponseWriter writer;
+    private final SingleFlight<String, ResponseCacheStore.Entry> inFlight = new SingleFlight<>();
+    private final Map<String, Map<CacheResult, Counter>> results = new ConcurrentHashMap<>();
+
+    public ResponseCacheFilter(ResponseCacheStore store, MeterRegistry meterRegistry,
+                               NettyWriteResponseFilter writeResponseFilter) {
+        super(Config.class);
+        this.store = store;
+        this.meterRegistry = meterRegistry;
+        this.writer = new UpstreamResponseWriter(writeResponseFilter);
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        return (exchange, chain) -> {
+            ServerHttpRequest request = exchange.getRequest();
+            if (request.getMethod() != HttpMethod.GET
+                    || !config.getPathMatcher().matches(request.getPath().value(), HttpMethod.GET)) {
+                return chain.filter(exchange);
+            }
+            return cached(exchange, chain, config);
+        };
+    }
+
+    private Mono<Void> cached(ServerWebExchange exchange, GatewayFilterChain chain, Config config) {
+        String routeId = routeId(exchange);
+        String key = cacheKey(routeId, exchange.getRequest());
+        long now = System.nanoTime();
+
+        ResponseCacheStore.Entry entry = store.get(key);
+        if (entry != null && !isServable(entry, exchange.getRequest())) {
+            entry = null;
+        }
+        if (entry != null && entry.isFresh(now)) {
+            return serve(exchange, routeId, entry, CacheResult.HIT);
+        }
+
+        SingleFlight.Call<String, ResponseCacheStore.Entry> call = inFlight.join(key);
+        if (entry != null) {
+            if (call.isLeader()) {
+                revalidate(exchange, chain, call, routeId, key, entry, config);
+            }
+            return serve(exchange, routeId, entry, CacheResult.STALE);
+        }
+        if (!call.isLeader()) {
+            // Serving completes empty, so it carries the entry on for switchIfEmpty to only
+            // forward the request when there was nothing servable to share
+            return call.result()
+                    .filter(shared -> isServable(shared, exchange.getRequest()))
+                    .flatMap(shared -> serve(exchange, routeId, shared, CacheResult.COLLAPSED).thenReturn(shared))
+                    .switchIfEmpty(Mono.defer(() -> chain.filter(exchange).then(Mono.empty())))
+                    .then();
+        }
+
+        CachingResponse response = new CachingResponse(exchange.getRequest(), exchange.getResponse(), routeId, key,
+                null, config);
+        return writer.forward(exchange.mutate().response(response).build(), chain, response::captures)
+                .doFinally(signal -> call.complete(response.stored));
+    }
+
+    /**
+     * Sends the rest of the chain a copy of the request, on an exchange of its own whose
+     * response goes nowhere, and refreshes the stale entry from the answer. Nothing waits
+     * for it; requests arriving meanwhile keep getting the stale copy.
+     */
+    private void revalidate(ServerWebExchange exchange, GatewayFilterChain chain,
+                            SingleFlight.Call<String, ResponseCacheStore.Entry> call, String routeId, String key,
+                            ResponseCacheStore.Entry entry, Config config) {
+        ServerHttpRequest request = exchange.getRequest().mutate().headers(headers -> {
+            // The client's own validators would get a 304 for a response the entry may not match
+            headers.remove(HttpHeaders.IF_MODIFIED_SINCE);
+            if (entry.upstreamEtag()) {
+                headers.set(HttpHeaders.IF_NONE_MATCH, entry.etag());
+            } else {
+                headers.remove(HttpHeaders.IF_NONE_MATCH);
+            }
+        }).build();
+        CachingResponse response = new CachingResponse(request, new DiscardingResponse(), routeId, key, entry, config);
+        ServerWebExchange revalidation = new DetachedExchange(exchange, request, response);
+        writer.forward(revalidation, chain, response::captures)
+                .doFinally(signal -> {
+                    // A response the entry was not refreshed from is left unread on its connection
+                    Connection connection = revalidation.getAttribute(CLIENT_RESPONSE_CONN_ATTR);
+                    if (connection != null) {
+                        connection.dispose();
+                    }
+                    call.complete(response.stored);
+                })
+                .subscribe(null, error -> log.debug("Revalidating {} failed: {}", key, error.toString()));
+    }
+
+    private Mono<Void> serve(ServerWebExchange exchange, String routeId, ResponseCacheStore.Entry entry,
+                             CacheResult result) {
+        count(routeId, result);
+        return writeEntry(exchange.getRequest(), exchange.getResponse(), entry, result);
+    }
+
+    private void count(String routeId, CacheResult result) {
+        results.computeIfAbsent(routeId, this::counters).get(result).increment();
+    }
+
+    private Map<CacheResult, Counter> counters(String routeId) {
+        Map<CacheResult, Counter> counters = new EnumMap<>(CacheResult.class);
+        for (CacheResult result : CacheResult.values()) {
+            counters.put(result, Counter.builder("gateway.response.cache.requests")
+                    .description("Cacheable requests seen by the response cache, by how they were answered")
+                    .tag("route", routeId)
+                    .tag("result", result.name())
+                    .register(meterRegistry));
+        }
+        return counters;
+    }
+
+    private static Mono<Void> writeEntry(ServerHttpRequest request, ServerHttpResponse response,
+                                         ResponseCacheStore.Entry entry, CacheResult result) {
+        HttpHeaders headers = response.getHeaders();
+        entry.headers().forEach((name, values) -> headers.put(name, new ArrayList<>(values)));
+        headers.set(HttpHeaders.AGE, Long.toString(TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - entry.storedAt())));
+        headers.set(CACHE_STATUS_HEADER, result.name());
+
+        if (etagMatches(request.getHeaders().getFirst(HttpHeaders.IF_NONE_MATCH), entry.etag())) {
+            response.setStatusCode(HttpStatus.NOT_MODIFIED);
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+            headers.remove(HttpHeaders.CONTENT_TYPE);
+            return response.setComplete();
+        }
+        response.setStatusCode(HttpStatusCode.valueOf(entry.status()));
+        headers.setContentLength(entry.body().length);
+        return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(entry.body())));
+    }
+
+    private static boolean isServable(ResponseCacheStore.Entry entry, ServerHttpRequest request) {
+        return entry.matchesVary(request.getHeaders())
+                && (entry.shared() || !request.getHeaders().containsKey(HttpHeaders.AUTHORIZATION));
+    }
+
+    /**
+     * Weak comparison (RFC 9110 13.1.2) of an If-None-Match list against an entity tag.
+     */
+    static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String opaque = stripWeak(etag);
+        for (String candidate : StringUtils.tokenizeToStringArray(ifNoneMatch, ",")) {
+            if (candidate.equals("*") || stripWeak(candidate).equals(opaque)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String stripWeak(String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    private static String cacheKey(String routeId, ServerHttpRequest request) {
+        String query = request.getURI().getRawQuery();
+        String path = request.getPath().value();
+        return query == null ? routeId + ' ' + path : routeId + ' ' + path + '?' + query;
+    }
+
+    private static String routeId(ServerWebExchange exchange) {
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        return route != null ? route.getId() : "unknown";
+    }
+
+    /**
+     * Copy of response headers that can be sent again with the same body to another client.
+     */
+    static HttpHeaders replayableHeaders(HttpHeaders source) {
+        HttpHeaders headers = new HttpHeaders();
+        source.forEach((name, values) -> {
+            if (!UNCACHED_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                headers.put(name, List.copyOf(values));
+            }
+        });
+        return headers;
+    }
+
+    private static String weakEtag(byte[] body) {
+        CRC32C crc = new CRC32C();
+        crc.update(body);
+        return "W/\"" + Integer.toHexString(body.length) + '-' + Long.toHexString(crc.getValue()) + '"';
+    }
+
+    /**
+     * Parsed response {@code Cache-Control}; times are in seconds, -1 when absent.
+     */
+    private record Directives(boolean storable, boolean isPublic, long maxAge, long sharedMaxAge,
+                              long staleWhileRevalidate) {
+
+        static Directives parse(List<String> cacheControl) {
+            boolean storable = true;
+            boolean isPublic = false;
+            long maxAge = -1;
+            long sharedMaxAge = -1;
+            long staleWhileRevalidate = -1;
+            for (String header : cacheControl) {
+                for (String directive : StringUtils.tokenizeToStringArray(header, ",")) {
+                    int eq = directive.indexOf('=');
+                    String name = (eq < 0 ? directive : directive.substring(0, eq)).toLowerCase(Locale.ROOT);
+                    long value = eq < 0 ? -1 : seconds(directive.substring(eq + 1));
+                    switch (name) {
+                        case "no-store", "no-cache", "private" -> storable = false;
+                        case "public" -> isPublic = true;
+                        case "max-age" -> maxAge = value;
+                        case "s-maxage" -> sharedMaxAge = value;
+                        case "stale-while-revalidate" -> staleWhileRevalidate = value;
+                        default -> {
+                        }
+                    }
+                }
+            }
+            return new Directives(storable, isPublic, maxAge, sharedMaxAge, staleWhileRevalidate);
+        }
+
+        private static long seconds(String value) {
+            try {
+                return Long.parseLong(StringUtils.trimTrailingCharacter(
+                        StringUtils.trimLeadingCharacter(value.trim(), '"'), '"'));
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+
+        long freshnessSeconds(Config config) {
+            if (sharedMaxAge >= 0) {
+                return sharedMaxAge;
+            }
+            return maxAge >= 0 ? maxAge : config.getTtl().toSeconds();
+        }
+
+        long staleSeconds(Config config) {
+            return staleWhileRevalidate >= 0 ? staleWhileRevalidate : config.getStaleWhileRevalidate().toSeconds();
+        }
+    }
+
+    /**
+     * Captures a cacheable response while it is written, and refreshes the stale entry it
+     * revalidates, if any, from a 304.
+     */
+    private final class CachingResponse extends ServerHttpResponseDecorator {
+        private final ServerHttpRequest request;
+        private final String routeId;
+        private final String key;
+        private final ResponseCacheStore.Entry revalidating;
+        private final Config config;
+        // Written on the response thread before the leader's doFinally reads it
+        private volatile ResponseCacheStore.Entry stored;
+
+        private CachingResponse(ServerHttpRequest request, ServerHttpResponse delegate, String routeId, String key,
+                                ResponseCacheStore.Entry revalidating, Config config) {
+            super(delegate);
+            this.request = request;
+            this.routeId = routeId;
+            this.key = key;
+            this.revalidating = revalidating;
+            this.config = config;
+        }
+
+        /**
+         * Whether the upstream body should be written through this response: a 200 it may
+         * store, or the 304 answering its revalidation. Other statuses are left to the
+         * gateway's writer; a client's request is counted as a miss here.
+         */
+        boolean captures(HttpStatusCode status) {
+            if (status.value() == HttpStatus.OK.value()
+                    || status.value() == HttpStatus.NOT_MODIFIED.value() && revalidating != null) {
+                return true;
+            }
+            if (revalidating == null) {
+                count(routeId, CacheResult.MISS);
+                getHeaders().set(CACHE_STATUS_HEADER, CacheResult.MISS.name());
+            }
+            return false;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            HttpStatusCode status = getStatusCode();
+            Directives directives = Directives.parse(getHeaders().getOrEmpty(HttpHeaders.CACHE_CONTROL));
+            long now = System.nanoTime();
+
+            if (status != null && status.value() == HttpStatus.NOT_MODIFIED.value() && revalidating != null) {
+                ResponseCacheStore.Entry refreshed = revalidating.revalidated(now,
+                        TimeUnit.SECONDS.toNanos(directives.freshnessSeconds(config)),
+                        TimeUnit.SECONDS.toNanos(directives.staleSeconds(config)));
+                store.put(key, refreshed);
+                stored = refreshed;
+                count(routeId, CacheResult.REVALIDATED);
+                return Flux.from(body)
+                        .doOnNext(DataBufferUtils::release)
+                        .then();
+            }
+
+            if (revalidating == null) {
+                count(routeId, CacheResult.MISS);
+                getHeaders().set(CACHE_STATUS_HEADER, CacheResult.MISS.name());
+            }
+            if (!isStorable(status, directives)) {
+                return super.writeWith(body);
+            }
+            BodyCapture capture = new BodyCapture(config.getMaxEntrySize().toBytes(), getHeaders().getContentLength());
+            Flux<? extends DataBuffer> captured = Flux.from(body)
+                    .doOnNext(capture::append)
+                    .doOnComplete(() -> store(status, directives, capture.toByteArray()));
+            return super.writeWith(captured);
+        }
+
+        private boolean isStorable(HttpStatusCode status, Directives directives) {
+            HttpHeaders headers = getHeaders();
+            if (status == null || status.value() != HttpStatus.OK.value() || !directives.storable()
+                    || headers.containsKey(HttpHeaders.SET_COOKIE)
+                    || headers.getVary().contains("*")
+                    || headers.getContentLength() > config.getMaxEntrySize().toBytes()
+                    || directives.freshnessSeconds(config) <= 0) {
+                return false;
+            }
+            return !request.getHeaders().containsKey(HttpHeaders.AUTHORIZATION)
+                    || directives.isPublic() || directives.sharedMaxAge() >= 0;
+        }
+
+        private void store(HttpStatusCode status, Directives directives, byte[] body) {
+            if (body == null) {
+                return;
+            }
+            HttpHeaders headers = replayableHeaders(getHeaders());
+            String etag = headers.getETag();
+            boolean upstreamEtag = etag != null;
+            if (!upstreamEtag) {
+                etag = weakEtag(body);
+                headers.setETag(etag);
+            }
+            List<String> varyNames = List.copyOf(headers.getVary());
+            List<String> varyValues = new ArrayList<>(varyNames.size());
+            for (String name : varyNames) {
+                varyValues.add(ResponseCacheStore.Entry.varyValue(request.getHeaders(), name));
+            }
+            long now = System.nanoTime();
+            long freshNanos = TimeUnit.SECONDS.toNanos(directives.freshnessSeconds(config));
+            ResponseCacheStore.Entry entry = new ResponseCacheStore.Entry(status.value(),
+                    HttpHeaders.readOnlyHttpHeaders(headers), body, etag, upstreamEtag, varyNames,
+                    varyValues, directives.isPublic() || directives.sharedMaxAge() >= 0, now, now + freshNanos,
+                    now + freshNanos + TimeUnit.SECONDS.toNanos(directives.staleSeconds(config)));
+            store.put(key, entry);
+            stored = entry;
+            if (revalidating != null) {
+                count(routeId, CacheResult.REVALIDATED);
+            }
+            log.debug("Cached {} ({} bytes) for {}s", key, body.length, directives.freshnessSeconds(config));
+        }
+    }
+
+    /**
+     * The exchange of a background revalidation: the client's exchange with its own request,
+     * response and attributes, so routing state never reaches the client's response.
+     */
+    private static final class DetachedExchange extends ServerWebExchangeDecorator {
+        private final ServerHttpRequest request;
+        private final ServerHttpResponse response;
+        private final Map<String, Object> attributes;
+
+        private DetachedExchange(ServerWebExchange exchange, ServerHttpRequest request, ServerHttpResponse response) {
+            super(exchange);
+            this.request = request;
+            this.response = response;
+            this.attributes = new ConcurrentHashMap<>(exchange.getAttributes());
+        }
+
+        @Override
+        public ServerHttpRequest getRequest() {
+            return request;
+        }
+
+        @Override
+        public ServerHttpResponse getResponse() {
+            return response;
+        }
+
+        @Override
+        public Map<String, Object> getAttributes() {
+            return attributes;
+        }
+    }
+
+    /**
+     * Response of a background revalidation; the body is read and dropped.
+     */
+    private static final class DiscardingResponse extends AbstractServerHttpResponse {
+
+        private DiscardingResponse() {
+            super(DefaultDataBufferFactory.sharedInstance);
+        }
+
+        @Override
+        public <T> T getNativeResponse() {
+            throw new IllegalStateException("A background revalidation has no native response");
+        }
+
+        @Override
+        protected Mono<Void> writeWithInternal(Publisher<? extends DataBuffer> body) {
+            return Flux.from(body).doOnNext(DataBufferUtils::release).then();
+        }
+
+        @Override
+        protected Mono<Void> writeAndFlushWithInternal(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            return Flux.from(body).concatMap(this::writeWithInternal).then();
+        }
+
+        @Override
+        protected void applyStatusCode() {
+        }
+
+        @Override
+        protected void applyHeaders() {
+        }
+
+        @Override
+        protected void applyCookies() {
+        }
+    }
+
+    @Setter
+    @Getter
+    public static class Config {
+        // Ant-style patterns of the route's paths whose GET responses may be cached
+        private List<String> paths = List.of("/**");
+        @Setter(AccessLevel.NONE)
+        private PathPatternTrie pathMatcher = PathPatternTrie.compile(paths);
+        // Freshness when the upstream response has no Cache-Control max-age
+        private Duration ttl = Duration.ofSeconds(60);
+        // How long a stale entry may still be served while one request revalidates it,
+        // unless the response sets stale-while-revalidate itself
+        private Duration staleWhileRevalidate = Duration.ofSeconds(30);
+        private DataSize maxEntrySize = DataSize.ofKilobytes(512);
+
+        public void setPaths(List<String> paths) {
+            this.paths = paths;
+            this.pathMatcher = PathPatternTrie.compile(paths);
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.muscledia.api_gateway.filter;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Byte-budgeted store behind {@link ResponseCacheFilter}, shared by all routes. Entries
+ * are weighed by body and header size and evicted by Caffeine's size policy once the
+ * total passes {@code gateway.response-cache.max-size}; each entry also expires when its
+ * stale-while-revalidate window ends.
+ */
+@Component
+public class ResponseCacheStore {
+
+    private static final int HEADER_OVERHEAD_BYTES = 64;
+
+    private final Cache<String, Entry> cache;
+
+    public ResponseCacheStore(@Value("${gateway.response-cache.max-size:64MB}") DataSize maxSize,
+                              MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((String key, Entry entry) -> key.length() + entry.weight())
+                .expireAfter(new StaleExpiry())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "gateway.response");
+    }
+
+    public Entry get(String key) {
+        return cache.getIfPresent(key);
+    }
+
+    public void put(String key, Entry entry) {
+        cache.put(key, entry);
+    }
+
+    /**
+     * A stored 200 response. Times are {@link System#nanoTime()} values.
+     *
+     * @param headers    read-only response headers, without hop-by-hop and per-response headers
+     * @param etag       the upstream ETag, or a weak one computed from the body
+     * @param upstreamEtag whether {@code etag} came from upstream and can be sent back in If-None-Match
+     * @param varyNames  request headers named by the response's Vary header
+     * @param varyValues the values of {@code varyNames} on the request that produced the response
+     * @param shared     whether the response may also be served to requests carrying Authorization
+     */
+    public record Entry(int status, HttpHeaders headers, byte[] body, String etag, boolean upstreamEtag,
+                        List<String> varyNames, List<String> varyValues, boolean shared,
+                        long storedAt, long freshUntil, long staleUntil) {
+
+        public boolean isFresh(long now) {
+            return now - freshUntil < 0;
+        }
+
+        public boolean isUsable(long now) {
+            return now - staleUntil < 0;
+        }
+
+        /**
+         * Whether this variant was stored for a request with the same values of the Vary headers.
+         */
+        public boolean matchesVary(HttpHeaders requestHeaders) {
+            for (int i = 0; i < varyNames.size(); i++) {
+                if (!Objects.equals(varyValues.get(i), varyValue(requestHeaders, varyNames.get(i)))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        public Entry revalidated(long now, long freshNanos, long staleNanos) {
+            return new Entry(status, headers, body, etag, upstreamEtag, varyNames, varyValues, shared,
+                    now, now + freshNanos, now + freshNanos + staleNanos);
+        }
+
+        int weight() {
+            return body.length + headers.size() * HEADER_OVERHEAD_BYTES;
+        }
+
+        static String varyValue(HttpHeaders requestHeaders, String name) {
+            List<String> values = requestHeaders.get(name);
+            return values == null ? null : String.join(",", values);
+        }
+    }
+
+    private static final class StaleExpiry implements Expiry<String, Entry> {
+
+        @Override
+        public long expireAfterCreate(String key, Entry entry, long currentTime) {
+            return Math.max(0, entry.staleUntil() - System.nanoTime());
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, entry, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.muscledia.api_gateway.filter;
+
+import com.muscledia.api_gateway.config.CompressionProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gzip-compresses response bodies for clients that accept it, as the body streams through,
+ * so nothing is buffered beyond what zlib holds. A response is left untouched when the
+ * upstream already encoded it, when its media type is not in
+ * {@code gateway.compression.mime-types} (which keeps out streaming types such as
+ * {@code text/event-stream}), when it declares a length below {@code min-response-size},
+ * when it says {@code Cache-Control: no-transform}, or when its path is excluded, like
+ * {@code /ollama/**}. Responses written with flushes per chunk are never compressed.
+ *
+ * <p>Runs outside the response cache and coalescing decorators, so they keep identity
+ * bodies and every client gets the encoding it asked for, cache hits included.
+ * {@code gateway.compression.*} meters report bytes in and out, the ratio per response and
+ * the CPU time spent in zlib.
+ */
+public class ResponseCompressionFilter implements GlobalFilter, Ordered {
+
+    static final String GZIP = "gzip";
+
+    private final CompressionProperties properties;
+    private final List<MediaType> mimeTypes;
+    private final PathPatternTrie excludedPaths;
+    private final GzipEncoder.Pool encoders;
+    private final Counter bytesIn;
+    private final Counter bytesOut;
+    private final DistributionSummary ratio;
+    private final Timer cpu;
+
+    public ResponseCompressionFilter(CompressionProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.mimeTypes = MediaType.parseMediaTypes(properties.getMimeTypes());
+        this.excludedPaths = PathPatternTrie.compile(properties.getExcludedPaths());
+        this.encoders = new GzipEncoder.Pool(properties.getPoolSize(), properties.getLevel());
+        this.bytesIn = bytesCounter("in", meterRegistry);
+        this.bytesOut = bytesCounter("out", meterRegistry);
+        this.ratio = DistributionSummary.builder("gateway.compression.ratio")
+                .description("Compressed size as a fraction of the original, per response")
+                .publishPercentiles(0.5, 0.9)
+                .register(meterRegistry);
+        this.cpu = Timer.builder("gateway.compression.cpu")
+                .description("Time spent in zlib compressing a response body")
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(10_000))
+                .maximumExpectedValue(Duration.ofMillis(100))
+                .register(meterRegistry);
+    }
+
+    private static Counter bytesCounter(String stage, MeterRegistry meterRegistry) {
+        return Counter.builder("gateway.compression.bytes")
+                .description("Response body bytes before and after gzip compression")
+                .baseUnit("bytes")
+                .tag("stage", stage)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        if (request.getMethod() == HttpMethod.HEAD
+                || !acceptsGzip(request.getHeaders().getOrEmpty(HttpHeaders.ACCEPT_ENCODING))
+                || excludedPaths.matches(request.getPath().value(), request.getMethod())) {
+            return chain.filter(exchange);
+        }
+        return chain.filter(exchange.mutate().response(new CompressingResponse(exchange.getResponse())).build());
+    }
+
+    @Override
+    public int getOrder() {
+        // Outside the response decorators at WRITE_RESPONSE_FILTER_ORDER - 1
+        return NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 2;
+    }
+
+    static boolean acceptsGzip(List<String> acceptEncoding) {
+        for (String header : acceptEncoding) {
+            for (String coding : header.split(",")) {
+                int semicolon = coding.indexOf(';');
+                String name = (semicolon < 0 ? coding : coding.substring(0, semicolon)).trim();
+                if (name.equalsIgnoreCase(GZIP) || name.equals("*")) {
+                    return semicolon < 0 || !isZeroQuality(coding.substring(semicolon + 1));
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isZeroQuality(String parameters) {
+        String parameter = parameters.trim();
+        if (!parameter.startsWith("q=") && !parameter.startsWith("Q=")) {
+            return false;
+        }
+        try {
+            return Double.parseDouble(parameter.substring(2).trim()) == 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private boolean isCompressible(HttpHeaders headers, HttpStatusCode status) {
+        if (status != null && (status.value() == 204 || status.value() == 304 || status.is1xxInformational())) {
+            return false;
+        }
+        String encoding = headers.getFirst(HttpHeaders.CONTENT_ENCODING);
+        if (encoding != null && !encoding.equalsIgnoreCase("identity")) {
+            return false;
+        }
+        long length = headers.getContentLength();
+        if (length >= 0 && length < properties.getMinResponseSize().toBytes()) {
+            return false;
+        }
+        for (String cacheControl : headers.getOrEmpty(HttpHeaders.CACHE_CONTROL)) {
+            if (cacheControl.toLowerCase().contains("no-transform")) {
+                return false;
+            }
+        }
+        MediaType contentType;
+        try {
+            contentType = headers.getContentType();
+        } catch (RuntimeException e) {
+            return false;
+        }
+        if (contentType == null) {
+            return false;
+        }
+        for (MediaType mimeType : mimeTypes) {
+            if (mimeType.isCompatibleWith(contentType)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private final class CompressingResponse extends ServerHttpResponseDecorator {
+
+        private CompressingResponse(ServerHttpResponse delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            HttpHeaders headers = getHeaders();
+            if (!isCompressible(headers, getStatusCode())) {
+                return super.writeWith(body);
+            }
+            headers.remove(HttpHeaders.CONTENT_LENGTH);
+            headers.set(HttpHeaders.CONTENT_ENCODING, GZIP);
+            if (!headers.getVary().contains(HttpHeaders.ACCEPT_ENCODING)) {
+                headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            }
+            // The encoded body is a different representation; a strong validator no longer holds
+            String etag = headers.getETag();
+            if (etag != null && !etag.startsWith("W/")) {
+                headers.setETag("W/" + etag);
+            }
+
+            DataBufferFactory factory = bufferFactory();
+            Flux<DataBuffer> compressed = Flux.using(encoders::borrow,
+                    encoder -> Flux.from(body)
+                            .map(chunk -> encoder.encode(chunk, factory))
+                            .filter(ResponseCompressionFilter::nonEmpty)
+                            .concatWith(Mono.fromCallable(() -> {
+                                DataBuffer last = encoder.finish(factory);
+                                recordCompression(encoder);
+                                return last;
+                            })),
+                    encoders::release);
+            return super.writeWith(compressed);
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            // Flushed per chunk, i.e. streamed: compressing would hold chunks back
+            return super.writeAndFlushWith(body);
+        }
+    }
+
+    /**
+     * Records a fully compressed response body; cancelled bodies are not recorded.
+     */
+    private void recordCompression(GzipEncoder encoder) {
+        bytesIn.increment(encoder.getBytesIn());
+        bytesOut.increment(encoder.getBytesOut());
+        if (encoder.getBytesIn() > 0) {
+            ratio.record((double) encoder.getBytesOut() / encoder.getBytesIn());
+        }
+        cpu.record(encoder.getCpuNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    private static boolean nonEmpty(DataBuffer buffer) {
+        if (buffer.readableByteCount() > 0) {
+            return true;
+        }
+        DataBufferUtils.release(buffer);
+        return false;
+    }
+}
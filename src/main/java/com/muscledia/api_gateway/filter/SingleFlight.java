@@ -0,0 +1,67 @@
+package com.muscledia.api_gateway.filter;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Collapses concurrent work on the same key: the first caller for a key becomes the
+ * leader and does the work, callers arriving while it is in flight wait for the leader's
+ * result instead of repeating it.
+ *
+ * <p>The leader must {@link Call#complete complete} its call exactly once, typically from
+ * {@code doFinally}, including when it has nothing to share; followers then see an empty
+ * result and fall back to doing the work themselves.
+ */
+public final class SingleFlight<K, V> {
+
+    private final ConcurrentHashMap<K, Sinks.One<V>> inFlight = new ConcurrentHashMap<>();
+
+    public Call<K, V> join(K key) {
+        Sinks.One<V> sink = Sinks.one();
+        Sinks.One<V> existing = inFlight.putIfAbsent(key, sink);
+        return existing == null ? new Call<>(this, key, sink, true) : new Call<>(this, key, existing, false);
+    }
+
+    public static final class Call<K, V> {
+        private final SingleFlight<K, V> flight;
+        private final K key;
+        private final Sinks.One<V> sink;
+        private final boolean leader;
+
+        private Call(SingleFlight<K, V> flight, K key, Sinks.One<V> sink, boolean leader) {
+            this.flight = flight;
+            this.key = key;
+            this.sink = sink;
+            this.leader = leader;
+        }
+
+        public boolean isLeader() {
+            return leader;
+        }
+
+        /**
+         * The leader's result; empty if the leader had nothing to share or was cancelled.
+         */
+        public Mono<V> result() {
+            return sink.asMono();
+        }
+
+        /**
+         * Publishes the leader's result to its followers and lets the next caller for the
+         * key start a new call. {@code value} may be {@code null}.
+         */
+        public void complete(V value) {
+            if (!leader) {
+                return;
+            }
+            flight.inFlight.remove(key, sink);
+            if (value != null) {
+                sink.tryEmitValue(value);
+            } else {
+                sink.tryEmitEmpty();
+            }
+        }
+    }
+}
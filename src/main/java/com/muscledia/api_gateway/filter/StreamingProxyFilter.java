@@ -0,0 +1,148 @@
+package com.muscledia.api_gateway.filter;
+
+import com.muscledia.api_gateway.exception.ErrorResponseWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.cloud.gateway.support.HasRouteId;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Streaming mode for routes with long, token-streamed responses such as the AI route.
+ *
+ * <ul>
+ *     <li>At most {@code max-concurrent-streams} requests are proxied at once; the rest
+ *     get a 503 with {@code Retry-After} instead of queueing on connections and event loops.</li>
+ *     <li>The body is passed through chunk by chunk as the upstream produces it, without
+ *     buffering or copying; Reactor Netty applies backpressure from the client socket.
+ *     Media types listed in {@code spring.cloud.gateway.streaming-media-types} are flushed
+ *     per chunk.</li>
+ *     <li>Instead of a whole-response timeout, the upstream must produce the first chunk
+ *     within {@code first-chunk-timeout} and each following chunk within
+ *     {@code idle-timeout}, otherwise the stream is aborted.</li>
+ * </ul>
+ *
+ * Do not combine with retry, cache or coalescing filters, which need the whole body.
+ * {@code gateway.streams.*} meters report active, rejected and timed-out streams per route.
+ */
+@Component
+@Slf4j
+public class StreamingProxyFilter extends AbstractGatewayFilterFactory<StreamingProxyFilter.Config> {
+
+    private final MeterRegistry meterRegistry;
+    private final ErrorResponseWriter errorWriter;
+    private final ErrorResponseWriter.Template tooManyStreams;
+    // Kept across route refreshes so streams started before a refresh still count
+    private final Map<String, AtomicInteger> activeStreams = new ConcurrentHashMap<>();
+    private final Map<String, Counter> rejected = new ConcurrentHashMap<>();
+    private final Map<String, Counter> timedOut = new ConcurrentHashMap<>();
+
+    public StreamingProxyFilter(MeterRegistry meterRegistry, ErrorResponseWriter errorWriter) {
+        super(Config.class);
+        this.meterRegistry = meterRegistry;
+        this.errorWriter = errorWriter;
+        this.tooManyStreams = errorWriter.error(HttpStatus.SERVICE_UNAVAILABLE, "Too many concurrent streams, retry shortly");
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        String routeId = config.getRouteId() != null ? config.getRouteId() : "unknown";
+        AtomicInteger active = activeStreams.computeIfAbsent(routeId, id -> {
+            AtomicInteger counter = new AtomicInteger();
+            Gauge.builder("gateway.streams.active", counter, AtomicInteger::get)
+                    .description("Streaming responses currently being proxied")
+                    .tag("route", id)
+                    .strongReference(true)
+                    .register(meterRegistry);
+            return counter;
+        });
+
+        GatewayFilter filter = (exchange, chain) -> {
+            if (active.incrementAndGet() > config.getMaxConcurrentStreams()) {
+                active.decrementAndGet();
+                rejected.computeIfAbsent(routeId, id -> counter(id, "gateway.streams.rejected",
+                        "Streaming requests rejected with 503 because the route's stream limit was reached")).increment();
+                exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, "1");
+                return errorWriter.write(exchange, tooManyStreams);
+            }
+            StreamingResponse response = new StreamingResponse(exchange.getResponse(), routeId, config);
+            return chain.filter(exchange.mutate().response(response).build())
+                    .doFinally(signal -> active.decrementAndGet());
+        };
+        return new OrderedGatewayFilter(filter, NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1);
+    }
+
+    private Counter counter(String routeId, String name, String description) {
+        return Counter.builder(name)
+                .description(description)
+                .tag("route", routeId)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Applies the first-chunk and idle timeouts to the body on its way to the client.
+     */
+    private final class StreamingResponse extends ServerHttpResponseDecorator {
+        private final String routeId;
+        private final Config config;
+
+        private StreamingResponse(ServerHttpResponse delegate, String routeId, Config config) {
+            super(delegate);
+            this.routeId = routeId;
+            this.config = config;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            return super.writeWith(withChunkTimeouts(Flux.from(body)));
+        }
+
+        @Override
+        public Mono<Void> writeAndFlushWith(Publisher<? extends Publisher<? extends DataBuffer>> body) {
+            return super.writeAndFlushWith(withChunkTimeouts(Flux.from(body)));
+        }
+
+        private <T> Flux<T> withChunkTimeouts(Flux<T> chunks) {
+            Mono<Long> firstChunk = Mono.delay(config.getFirstChunkTimeout());
+            Duration idle = config.getIdleTimeout();
+            return chunks.timeout(firstChunk, chunk -> Mono.delay(idle))
+                    .doOnError(TimeoutException.class, e -> {
+                        timedOut.computeIfAbsent(routeId, id -> counter(id, "gateway.streams.timeouts",
+                                "Streaming responses aborted because the upstream went quiet for too long")).increment();
+                        log.debug("Aborting stream on route {}: no data from upstream within the chunk timeout", routeId);
+                    });
+        }
+    }
+
+    @Setter
+    @Getter
+    public static class Config implements HasRouteId {
+        private String routeId;
+        private int maxConcurrentStreams = 64;
+        // Time allowed before the first chunk, which includes the upstream's think time
+        private Duration firstChunkTimeout = Duration.ofSeconds(60);
+        // Longest allowed gap between two chunks once the stream has started
+        private Duration idleTimeout = Duration.ofSeconds(30);
+    }
+}
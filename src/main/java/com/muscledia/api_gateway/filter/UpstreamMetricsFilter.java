@@ -0,0 +1,64 @@
+package com.muscledia.api_gateway.filter;
+
+import com.muscledia.api_gateway.config.GatewayMetrics;
+import com.muscledia.api_gateway.config.GatewayMetrics.UpstreamOutcome;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.cloud.gateway.filter.ReactiveLoadBalancerClientFilter;
+import org.springframework.cloud.gateway.filter.factory.RetryGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+/**
+ * Times each upstream attempt per route, from just before the routing filter forwards the
+ * request until the upstream response headers arrive. Runs after the load balancer and
+ * inside any retry filter, so every retried attempt is timed and counted separately.
+ */
+@Component
+public class UpstreamMetricsFilter implements GlobalFilter, Ordered {
+
+    private final GatewayMetrics metrics;
+
+    public UpstreamMetricsFilter(GatewayMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        Route route = exchange.getAttribute(GATEWAY_ROUTE_ATTR);
+        if (route == null) {
+            return chain.filter(exchange);
+        }
+        String routeId = route.getId();
+
+        // The retry filter records the iteration after each completed attempt
+        if (exchange.getAttribute(RetryGatewayFilterFactory.RETRY_ITERATION_KEY) != null) {
+            metrics.retry(routeId);
+        }
+
+        long start = System.nanoTime();
+        return chain.filter(exchange)
+                .doFinally(signal -> metrics.upstreamResponse(routeId, outcome(exchange, signal), System.nanoTime() - start));
+    }
+
+    private static UpstreamOutcome outcome(ServerWebExchange exchange, SignalType signal) {
+        if (signal == SignalType.ON_ERROR) {
+            return UpstreamOutcome.ERROR;
+        }
+        if (signal == SignalType.CANCEL) {
+            return UpstreamOutcome.CANCELLED;
+        }
+        return UpstreamOutcome.forStatus(exchange.getResponse().getStatusCode());
+    }
+
+    @Override
+    public int getOrder() {
+        return ReactiveLoadBalancerClientFilter.LOAD_BALANCER_CLIENT_FILTER_ORDER + 1;
+    }
+}
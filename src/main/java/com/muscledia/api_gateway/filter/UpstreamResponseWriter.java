@@ -0,0 +1,44 @@
+package com.muscledia.api_gateway.filter;
+
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.util.function.Predicate;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.CLIENT_RESPONSE_CONN_ATTR;
+
+/**
+ * Writes the upstream response body from a route filter's position in the chain, for route
+ * filters that need to see it through their own response decorator.
+ *
+ * <p>{@link NettyWriteResponseFilter} writes the body to the response of the exchange it
+ * was given, once the whole chain has returned, so a decorator set by a route filter never
+ * sees it. {@link #forward} runs the rest of the chain and, when {@code capture} accepts the
+ * upstream status, writes the body to the decorated exchange right away and takes the
+ * connection off the exchange, leaving the gateway's writer nothing to do. Other responses
+ * are left to the gateway's writer, so the route filters ahead of the caller (circuit
+ * breaker status codes, for one) still see them before anything is committed.
+ */
+final class UpstreamResponseWriter {
+
+    private final NettyWriteResponseFilter writeResponseFilter;
+
+    UpstreamResponseWriter(NettyWriteResponseFilter writeResponseFilter) {
+        this.writeResponseFilter = writeResponseFilter;
+    }
+
+    Mono<Void> forward(ServerWebExchange exchange, GatewayFilterChain chain, Predicate<HttpStatusCode> capture) {
+        return chain.filter(exchange).then(Mono.defer(() -> {
+            HttpStatusCode status = exchange.getResponse().getStatusCode();
+            if (exchange.getAttribute(CLIENT_RESPONSE_CONN_ATTR) == null || status == null || !capture.test(status)) {
+                return Mono.empty();
+            }
+            // With a chain that does nothing, the write filter only writes the body
+            return writeResponseFilter.filter(exchange, written -> Mono.empty())
+                    .then(Mono.fromRunnable(() -> exchange.getAttributes().remove(CLIENT_RESPONSE_CONN_ATTR)));
+        }));
+    }
+}
@@ -0,0 +1,58 @@
+package com.muscledia.api_gateway.lifecycle;
+
+import com.netflix.appinfo.ApplicationInfoManager;
+import com.netflix.appinfo.InstanceInfo.InstanceStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Where the gateway is in its life: warming up, serving, or draining for shutdown. Reported
+ * by {@code /gateway/health} and mirrored to the Eureka instance status, which starts as
+ * {@code STARTING} ({@code eureka.instance.initial-status}) so nothing is routed to the
+ * gateway before it has warmed up.
+ */
+@Component
+@Slf4j
+public class GatewayStatus {
+
+    public enum State {
+        STARTING, UP, DRAINING
+    }
+
+    private final ObjectProvider<ApplicationInfoManager> eureka;
+    private volatile State state = State.STARTING;
+
+    public GatewayStatus(ObjectProvider<ApplicationInfoManager> eureka) {
+        this.eureka = eureka;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    void up() {
+        state = State.UP;
+        setEurekaStatus(InstanceStatus.UP);
+    }
+
+    /**
+     * Takes the gateway out of service in Eureka; it keeps serving what still reaches it.
+     *
+     * @return whether there was a Eureka registration to take out of service
+     */
+    boolean drain() {
+        state = State.DRAINING;
+        return setEurekaStatus(InstanceStatus.OUT_OF_SERVICE);
+    }
+
+    private boolean setEurekaStatus(InstanceStatus status) {
+        ApplicationInfoManager manager = eureka.getIfAvailable();
+        if (manager == null) {
+            return false;
+        }
+        manager.setInstanceStatus(status);
+        log.info("Eureka instance status set to {}", status);
+        return true;
+    }
+}
@@ -0,0 +1,126 @@
+package com.muscledia.api_gateway.lifecycle;
+
+import com.muscledia.api_gateway.config.JwtVerifier;
+import com.muscledia.api_gateway.filter.PooledNettyRoutingFilter;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.ReactiveDiscoveryClient;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.crypto.SecretKey;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Warms the gateway up before it reports {@code UP}: runs full JWT verifications so the
+ * parser and crypto paths are loaded and compiled, loads the route table, and opens
+ * connections to every upstream instance through each route's pool. Runs on the ready
+ * event, so readiness ({@code /actuator/health/readiness}) turns to accepting traffic
+ * only once it is done; {@code /gateway/health} and the Eureka status follow
+ * {@link GatewayStatus}. The whole warm-up is bounded by {@code gateway.warmup.timeout}.
+ */
+@Component
+@Slf4j
+public class GatewayWarmup implements ApplicationListener<ApplicationReadyEvent> {
+
+    private final GatewayStatus status;
+    private final JwtVerifier verifier;
+    private final Environment environment;
+    private final RouteLocator routeLocator;
+    private final PooledNettyRoutingFilter routing;
+    private final ObjectProvider<ReactiveDiscoveryClient> discovery;
+    private final boolean enabled;
+    private final int jwtIterations;
+    private final int connections;
+    private final Duration timeout;
+
+    public GatewayWarmup(GatewayStatus status, JwtVerifier verifier, Environment environment,
+                         RouteLocator routeLocator, PooledNettyRoutingFilter routing,
+                         ObjectProvider<ReactiveDiscoveryClient> discovery,
+                         @Value("${gateway.warmup.enabled:true}") boolean enabled,
+                         @Value("${gateway.warmup.jwt-iterations:200}") int jwtIterations,
+                         @Value("${gateway.warmup.connections-per-upstream:2}") int connections,
+                         @Value("${gateway.warmup.timeout:15s}") Duration timeout) {
+        this.status = status;
+        this.verifier = verifier;
+        this.environment = environment;
+        this.routeLocator = routeLocator;
+        this.routing = routing;
+        this.discovery = discovery;
+        this.enabled = enabled;
+        this.jwtIterations = jwtIterations;
+        this.connections = connections;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        if (enabled) {
+            long start = System.nanoTime();
+            try {
+                warmJwtVerification();
+                warmUpstreams().block(timeout);
+            } catch (RuntimeException e) {
+                log.warn("Warm-up did not complete, starting anyway: {}", e.toString());
+            }
+            log.info("Warm-up took {} ms", Duration.ofNanos(System.nanoTime() - start).toMillis());
+        }
+        status.up();
+    }
+
+    private void warmJwtVerification() {
+        String secret = environment.getProperty("jwt.secret", "");
+        if (secret.isBlank()) {
+            return;
+        }
+        // Distinct tokens so each is a full verification; their short expiry drops them
+        // from the claims cache right after
+        SecretKey key = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        Date expiration = new Date(System.currentTimeMillis() + Duration.ofSeconds(10).toMillis());
+        for (int i = 0; i < jwtIterations; i++) {
+            String token = Jwts.builder()
+                    .id(UUID.randomUUID().toString())
+                    .subject("warmup")
+                    .claim("roles", List.of())
+                    .expiration(expiration)
+                    .signWith(key)
+                    .compact();
+            verifier.verify(token);
+        }
+    }
+
+    private Mono<Void> warmUpstreams() {
+        return routeLocator.getRoutes()
+                .flatMap(route -> upstreams(route).collectList()
+                        .flatMap(upstreams -> routing.warmUp(route, upstreams, connections)))
+                .then();
+    }
+
+    private Flux<URI> upstreams(Route route) {
+        URI uri = route.getUri();
+        String scheme = uri.getScheme();
+        if ("lb".equals(scheme)) {
+            ReactiveDiscoveryClient client = discovery.getIfAvailable();
+            return client == null ? Flux.empty() : client.getInstances(uri.getHost()).map(ServiceInstance::getUri);
+        }
+        if ("http".equals(scheme) || "https".equals(scheme)) {
+            return Flux.just(uri);
+        }
+        return Flux.empty();
+    }
+}
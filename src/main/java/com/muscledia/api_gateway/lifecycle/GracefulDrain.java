@@ -0,0 +1,93 @@
+package com.muscledia.api_gateway.lifecycle;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * First step of shutdown, ahead of the web server's own graceful shutdown: takes the
+ * gateway out of service in Eureka, keeps serving for {@code gateway.shutdown.deregistration-delay}
+ * while clients refresh their registries, then waits up to {@code drain-timeout} for
+ * proxied requests still in flight. Netty stops accepting connections only after that
+ * ({@code server.shutdown=graceful}), so rolling deploys do not reset connections.
+ *
+ * <p>Stops asynchronously: the lifecycle processor is called back when the drain is done,
+ * and moves on when {@code spring.lifecycle.timeout-per-shutdown-phase} passes first, so
+ * the drain cannot hold shutdown past the container's stop timeout.
+ */
+@Component
+@Slf4j
+public class GracefulDrain implements SmartLifecycle {
+
+    private final GatewayStatus status;
+    private final InFlightRequests inFlight;
+    private final Duration deregistrationDelay;
+    private final Duration drainTimeout;
+    private volatile boolean running;
+
+    public GracefulDrain(GatewayStatus status, InFlightRequests inFlight,
+                         @Value("${gateway.shutdown.deregistration-delay:3s}") Duration deregistrationDelay,
+                         @Value("${gateway.shutdown.drain-timeout:2s}") Duration drainTimeout) {
+        this.status = status;
+        this.inFlight = inFlight;
+        this.deregistrationDelay = deregistrationDelay;
+        this.drainTimeout = drainTimeout;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+    }
+
+    @Override
+    public void stop(Runnable callback) {
+        running = false;
+        drain().doFinally(signal -> callback.run()).subscribe();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        drain().block();
+    }
+
+    private Mono<Void> drain() {
+        Mono<Void> delay = Mono.empty();
+        if (status.drain() && !deregistrationDelay.isZero()) {
+            log.info("Out of service in Eureka, serving for another {} until clients notice", deregistrationDelay);
+            delay = Mono.delay(deregistrationDelay).then();
+        }
+        return delay.then(Mono.defer(this::awaitRequests));
+    }
+
+    private Mono<Void> awaitRequests() {
+        int pending = inFlight.get();
+        if (pending == 0) {
+            return Mono.empty();
+        }
+        log.info("Waiting up to {} for {} proxied request(s) in flight", drainTimeout, pending);
+        return inFlight.whenIdle(drainTimeout)
+                .doOnNext(idle -> {
+                    if (!idle) {
+                        log.warn("{} proxied request(s) still in flight after {}, shutting down anyway",
+                                inFlight.get(), drainTimeout);
+                    }
+                })
+                .then();
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public int getPhase() {
+        // Stops before the web server's graceful shutdown phase
+        return SmartLifecycle.DEFAULT_PHASE;
+    }
+}
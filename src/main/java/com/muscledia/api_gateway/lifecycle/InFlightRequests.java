@@ -0,0 +1,51 @@
+package com.muscledia.api_gateway.lifecycle;
+
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts proxied requests from the moment a route matched until the response is complete
+ * or the client is gone, so shutdown can wait for them.
+ */
+@Component
+public class InFlightRequests implements GlobalFilter, Ordered {
+
+    private static final Duration POLL_INTERVAL = Duration.ofMillis(50);
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        inFlight.incrementAndGet();
+        return chain.filter(exchange).doFinally(signal -> inFlight.decrementAndGet());
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    public int get() {
+        return inFlight.get();
+    }
+
+    /**
+     * Emits {@code true} once no proxied request is in flight, or {@code false} when the
+     * timeout passes first. Polls on a timer; no thread waits.
+     */
+    Mono<Boolean> whenIdle(Duration timeout) {
+        return Flux.interval(Duration.ZERO, POLL_INTERVAL)
+                .filter(tick -> inFlight.get() == 0)
+                .next()
+                .map(tick -> true)
+                .timeout(timeout, Mono.just(false));
+    }
+}
@@ -0,0 +1,130 @@
+package com.muscledia.api_gateway.loadbalancer;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-instance load and health as seen by this gateway, shared by the load balancers of all
+ * services. {@link LatencyAwareLoadBalancer} reads it to pick instances; the
+ * {@code InstanceStatsFilter} feeds it with every upstream attempt.
+ *
+ * <p>Latency is a peak EWMA: a slower response raises the average at once, faster ones
+ * pull it down with a time-based decay of {@code gateway.loadbalancer.decay-time}. After
+ * {@code failure-threshold} consecutive failures an instance is ejected for
+ * {@code ejection-time}, counted per service in {@code gateway.loadbalancer.ejections};
+ * instances that disappear from discovery age out of the map.
+ */
+@Component
+@Slf4j
+public class InstanceStats {
+
+    private final Cache<String, Instance> instances = Caffeine.newBuilder()
+            .expireAfterAccess(Duration.ofMinutes(10))
+            .build();
+    private final MeterRegistry meterRegistry;
+    private final Map<String, Counter> ejections = new ConcurrentHashMap<>();
+    private final long decayNanos;
+    private final long initialLatencyNanos;
+    private final int failureThreshold;
+    private final long ejectionNanos;
+
+    public InstanceStats(MeterRegistry meterRegistry,
+                         @Value("${gateway.loadbalancer.decay-time:10s}") Duration decayTime,
+                         @Value("${gateway.loadbalancer.initial-latency:100ms}") Duration initialLatency,
+                         @Value("${gateway.loadbalancer.failure-threshold:5}") int failureThreshold,
+                         @Value("${gateway.loadbalancer.ejection-time:30s}") Duration ejectionTime) {
+        this.meterRegistry = meterRegistry;
+        this.decayNanos = decayTime.toNanos();
+        this.initialLatencyNanos = initialLatency.toNanos();
+        this.failureThreshold = failureThreshold;
+        this.ejectionNanos = ejectionTime.toNanos();
+    }
+
+    public Instance get(ServiceInstance instance) {
+        // Instance ids are not set by every discovery client; host and port always are
+        String key = instance.getServiceId() + '/' + instance.getHost() + ':' + instance.getPort();
+        return instances.get(key, k -> new Instance(instance.getServiceId(), k));
+    }
+
+    public final class Instance {
+        private final String serviceId;
+        private final String key;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicInteger consecutiveFailures = new AtomicInteger();
+        // Written under the instance lock, read without it when scoring
+        private volatile double latencyNanos = initialLatencyNanos;
+        private long lastSampleNanos = System.nanoTime();
+        private volatile long ejectedUntilNanos;
+        private volatile boolean ejected;
+
+        private Instance(String serviceId, String key) {
+            this.serviceId = serviceId;
+            this.key = key;
+        }
+
+        /**
+         * Expected cost of sending one more request here: latency scaled by the requests
+         * already waiting on this instance. Lower is better.
+         */
+        public double cost() {
+            return latencyNanos * (outstanding.get() + 1);
+        }
+
+        public boolean isEjected(long nowNanos) {
+            return ejected && nowNanos - ejectedUntilNanos < 0;
+        }
+
+        public void started() {
+            outstanding.incrementAndGet();
+        }
+
+        public void finished() {
+            outstanding.decrementAndGet();
+        }
+
+        public void succeeded(long latency) {
+            consecutiveFailures.set(0);
+            long now = System.nanoTime();
+            synchronized (this) {
+                double current = latencyNanos;
+                if (latency > current) {
+                    latencyNanos = latency;
+                } else {
+                    double weight = Math.exp(-(double) Math.max(now - lastSampleNanos, 0) / decayNanos);
+                    latencyNanos = current * weight + latency * (1 - weight);
+                }
+                lastSampleNanos = now;
+            }
+        }
+
+        /**
+         * Failures do not update the latency, otherwise an instance refusing connections
+         * would look fast and attract more traffic until it is ejected.
+         */
+        public void failed() {
+            if (consecutiveFailures.incrementAndGet() < failureThreshold) {
+                return;
+            }
+            consecutiveFailures.set(0);
+            ejectedUntilNanos = System.nanoTime() + ejectionNanos;
+            ejected = true;
+            ejections.computeIfAbsent(serviceId, id -> Counter.builder("gateway.loadbalancer.ejections")
+                    .description("Service instances taken out of load balancing after consecutive failures")
+                    .tag("service", id)
+                    .register(meterRegistry)).increment();
+            log.warn("Ejecting {} from load balancing for {} ms after {} consecutive failures",
+                    key, ejectionNanos / 1_000_000, failureThreshold);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.muscledia.api_gateway.loadbalancer;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.SelectedInstanceCallback;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Power-of-two-choices load balancer: samples two instances at random and sends the
+ * request to the one with the lower {@link InstanceStats.Instance#cost() cost}. Random
+ * sampling keeps concurrent gateway threads from all piling onto the single "best"
+ * instance, while comparing costs steers traffic away from slow or busy replicas.
+ *
+ * <p>Ejected instances are skipped. If every instance is ejected they are all used again,
+ * since sending traffic to a failing service beats failing every request at the gateway.
+ */
+@Slf4j
+public class LatencyAwareLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    private final ObjectProvider<ServiceInstanceListSupplier> suppliers;
+    private final String serviceId;
+    private final InstanceStats stats;
+
+    public LatencyAwareLoadBalancer(ObjectProvider<ServiceInstanceListSupplier> suppliers, String serviceId,
+                                    InstanceStats stats) {
+        this.suppliers = suppliers;
+        this.serviceId = serviceId;
+        this.stats = stats;
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier = suppliers.getIfAvailable(NoopServiceInstanceListSupplier::new);
+        return supplier.get(request).next().map(instances -> {
+            Response<ServiceInstance> response = choose(instances);
+            if (response.hasServer() && supplier instanceof SelectedInstanceCallback callback) {
+                callback.selectedServiceInstance(response.getServer());
+            }
+            return response;
+        });
+    }
+
+    Response<ServiceInstance> choose(List<ServiceInstance> instances) {
+        if (instances.isEmpty()) {
+            log.warn("No servers available for service: {}", serviceId);
+            return new EmptyResponse();
+        }
+        List<ServiceInstance> candidates = withoutEjected(instances);
+        if (candidates.size() == 1) {
+            return new DefaultResponse(candidates.get(0));
+        }
+
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int first = random.nextInt(candidates.size());
+        int second = random.nextInt(candidates.size() - 1);
+        if (second >= first) {
+            second++;
+        }
+        ServiceInstance a = candidates.get(first);
+        ServiceInstance b = candidates.get(second);
+        return new DefaultResponse(stats.get(a).cost() <= stats.get(b).cost() ? a : b);
+    }
+
+    /**
+     * Returns the given list itself in the common case where nothing is ejected.
+     */
+    private List<ServiceInstance> withoutEjected(List<ServiceInstance> instances) {
+        long now = System.nanoTime();
+        List<ServiceInstance> available = null;
+        for (int i = 0; i < instances.size(); i++) {
+            boolean ejected = stats.get(instances.get(i)).isEjected(now);
+            if (ejected && available == null) {
+                available = new ArrayList<>(instances.subList(0, i));
+            } else if (!ejected && available != null) {
+                available.add(instances.get(i));
+            }
+        }
+        if (available == null) {
+            return instances;
+        }
+        return available.isEmpty() ? instances : available;
+    }
+}
@@ -0,0 +1,36 @@
+package com.muscledia.api_gateway.loadbalancer;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.loadbalancer.annotation.LoadBalancerClients;
+import org.springframework.cloud.loadbalancer.core.ReactorLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Makes {@link LatencyAwareLoadBalancer} the load balancer for every {@code lb://} service.
+ * Instance lists still come from the supplier chain configured by
+ * {@code spring.cloud.loadbalancer.configurations} (Eureka plus health checks).
+ */
+@Configuration
+@LoadBalancerClients(defaultConfiguration = LatencyAwareLoadBalancerConfig.ClientConfiguration.class)
+public class LatencyAwareLoadBalancerConfig {
+
+    /**
+     * Loaded into each service's load balancer context; deliberately not a
+     * {@code @Configuration}, so component scanning does not pick it up as a global one.
+     */
+    static class ClientConfiguration {
+
+        @Bean
+        public ReactorLoadBalancer<ServiceInstance> latencyAwareLoadBalancer(Environment environment,
+                                                                             LoadBalancerClientFactory clientFactory,
+                                                                             InstanceStats stats) {
+            String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+            return new LatencyAwareLoadBalancer(
+                    clientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class), serviceId, stats);
+        }
+    }
+}
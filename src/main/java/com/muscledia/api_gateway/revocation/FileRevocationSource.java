@@ -0,0 +1,86 @@
+package com.muscledia.api_gateway.revocation;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads revocations from an append-only text file, one {@code <jti> <exp epoch seconds>}
+ * per line; blank lines and lines starting with {@code #} are skipped. The cursor is the
+ * byte offset read up to, so each refresh only reads the lines appended since. A file
+ * shorter than the cursor was rewritten, and is read again as a full snapshot.
+ */
+@Slf4j
+public class FileRevocationSource implements RevocationSource {
+
+    private final Path file;
+
+    public FileRevocationSource(Path file) {
+        this.file = file;
+    }
+
+    @Override
+    public RevocationBatch fetch(String cursor) throws IOException {
+        long offset = cursor != null ? Long.parseLong(cursor) : 0;
+        long size;
+        try {
+            size = Files.size(file);
+        } catch (NoSuchFileException e) {
+            // Nothing revoked yet
+            return new RevocationBatch(true, List.of(), "0");
+        }
+        boolean snapshot = cursor == null || size < offset;
+        if (snapshot) {
+            offset = 0;
+        }
+        if (size == offset) {
+            return snapshot ? new RevocationBatch(true, List.of(), "0") : RevocationBatch.unchanged(cursor);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(size - offset));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (buffer.hasRemaining() && channel.read(buffer, offset + buffer.position()) >= 0) {
+                // Keep reading until the buffer is full or the file ends
+            }
+        }
+        // A line still being written is left for the next refresh
+        int end = lastNewline(buffer.array(), buffer.position());
+        String text = new String(buffer.array(), 0, end, StandardCharsets.UTF_8);
+        return new RevocationBatch(snapshot, parse(text), Long.toString(offset + end));
+    }
+
+    private static int lastNewline(byte[] bytes, int length) {
+        for (int i = length - 1; i >= 0; i--) {
+            if (bytes[i] == '\n') {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    private List<Revocation> parse(String text) {
+        List<Revocation> revocations = new ArrayList<>();
+        for (String line : text.split("\n")) {
+            String trimmed = line.strip();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            String[] fields = trimmed.split("\\s+");
+            try {
+                revocations.add(new Revocation(fields[0], Long.parseLong(fields[1])));
+            } catch (ArrayIndexOutOfBoundsException | NumberFormatException e) {
+                log.warn("Skipping malformed line in {}: {}", file, trimmed);
+            }
+        }
+        return revocations;
+    }
+}
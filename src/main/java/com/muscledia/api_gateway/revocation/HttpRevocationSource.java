@@ -0,0 +1,67 @@
+package com.muscledia.api_gateway.revocation;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Polls an HTTP endpoint, typically on user-service, for revocations. The first request
+ * has no parameters; later ones pass the last cursor as {@code ?since=}. The endpoint
+ * answers with
+ *
+ * <pre>
+ * {"snapshot": false, "cursor": "...", "revocations": [{"jti": "...", "exp": 1760000000}]}
+ * </pre>
+ *
+ * and sets {@code snapshot} when it sends the full set instead of a delta, for instance
+ * when the cursor is too old.
+ */
+public class HttpRevocationSource implements RevocationSource {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final URI uri;
+    private final ObjectMapper objectMapper;
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(TIMEOUT).build();
+
+    public HttpRevocationSource(URI uri, ObjectMapper objectMapper) {
+        this.uri = uri;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public RevocationBatch fetch(String cursor) throws IOException {
+        URI target = cursor == null ? uri
+                : URI.create(uri + (uri.getRawQuery() == null ? "?" : "&") + "since="
+                        + URLEncoder.encode(cursor, StandardCharsets.UTF_8));
+        HttpRequest request = HttpRequest.newBuilder(target).timeout(TIMEOUT).GET().build();
+        HttpResponse<byte[]> response;
+        try {
+            response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while fetching revocations", e);
+        }
+        if (response.statusCode() != 200) {
+            throw new IOException("Revocation endpoint " + uri + " answered " + response.statusCode());
+        }
+
+        JsonNode body = objectMapper.readTree(response.body());
+        List<Revocation> revocations = new ArrayList<>();
+        for (JsonNode entry : body.path("revocations")) {
+            revocations.add(new Revocation(entry.path("jti").asText(), entry.path("exp").asLong()));
+        }
+        return new RevocationBatch(body.path("snapshot").asBoolean(cursor == null), revocations,
+                body.path("cursor").asText(cursor));
+    }
+}
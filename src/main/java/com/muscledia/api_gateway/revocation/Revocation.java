@@ -0,0 +1,7 @@
+package com.muscledia.api_gateway.revocation;
+
+/**
+ * A revoked token: its {@code jti} and its {@code exp}, after which the entry is dropped.
+ */
+public record Revocation(String jti, long expiresAt) {
+}
@@ -0,0 +1,18 @@
+package com.muscledia.api_gateway.revocation;
+
+import java.util.List;
+
+/**
+ * What a {@link RevocationSource} returned for one refresh.
+ *
+ * @param snapshot    whether {@code revocations} is the complete set, replacing the current one,
+ *                    rather than additions to it
+ * @param revocations the revocations in this batch
+ * @param cursor      position to continue from on the next refresh
+ */
+public record RevocationBatch(boolean snapshot, List<Revocation> revocations, String cursor) {
+
+    public static RevocationBatch unchanged(String cursor) {
+        return new RevocationBatch(false, List.of(), cursor);
+    }
+}
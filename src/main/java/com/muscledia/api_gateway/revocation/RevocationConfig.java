@@ -0,0 +1,43 @@
+package com.muscledia.api_gateway.revocation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Picks the revocation source: a {@link RevocationSource} bean if the application declares
+ * one, otherwise {@code jwt.revocation.file}, otherwise {@code jwt.revocation.url}. With
+ * none of them, no token is ever revoked. The size of the list is published as
+ * {@code gateway.auth.revocations}.
+ */
+@Configuration
+public class RevocationConfig {
+
+    @Bean
+    public RevocationSync revocationSync(ObjectProvider<RevocationSource> customSource,
+                                         TokenRevocationList revocations,
+                                         MeterRegistry meterRegistry,
+                                         ObjectMapper objectMapper,
+                                         @Value("${jwt.revocation.file:}") String file,
+                                         @Value("${jwt.revocation.url:}") String url,
+                                         @Value("${jwt.revocation.refresh-interval:5s}") Duration refreshInterval) {
+        Gauge.builder("gateway.auth.revocations", revocations, TokenRevocationList::size)
+                .description("Revoked token ids held in memory")
+                .register(meterRegistry);
+        RevocationSource source = customSource.getIfAvailable();
+        if (source == null && !file.isBlank()) {
+            source = new FileRevocationSource(Path.of(file));
+        } else if (source == null && !url.isBlank()) {
+            source = new HttpRevocationSource(URI.create(url), objectMapper);
+        }
+        return new RevocationSync(source, revocations, refreshInterval);
+    }
+}
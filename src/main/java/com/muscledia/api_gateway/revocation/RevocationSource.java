@@ -0,0 +1,16 @@
+package com.muscledia.api_gateway.revocation;
+
+import java.io.IOException;
+
+/**
+ * Where revoked tokens come from. Polled by {@link RevocationSync}; declare a bean of this
+ * type to replace the file and HTTP sources configured under {@code jwt.revocation}.
+ */
+public interface RevocationSource {
+
+    /**
+     * Returns the revocations added since {@code cursor}, or a full snapshot when
+     * {@code cursor} is {@code null} or can no longer be continued from.
+     */
+    RevocationBatch fetch(String cursor) throws IOException;
+}
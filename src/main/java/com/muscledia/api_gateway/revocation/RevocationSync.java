@@ -0,0 +1,95 @@
+package com.muscledia.api_gateway.revocation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the {@link TokenRevocationList} in step with a {@link RevocationSource}: a full
+ * snapshot at startup, then the deltas since the last cursor every
+ * {@code jwt.revocation.refresh-interval}. When the source is unreachable, or the list is
+ * too full to take every revocation of a delta, the list keeps what it has and the next
+ * refresh continues from the same cursor.
+ */
+@Slf4j
+public class RevocationSync implements InitializingBean, DisposableBean {
+
+    private static final Duration EXPIRY_SWEEP_INTERVAL = Duration.ofMinutes(1);
+
+    private final RevocationSource source;
+    private final TokenRevocationList revocations;
+    private final Duration refreshInterval;
+    private ScheduledExecutorService executor;
+
+    // Confined to the executor thread
+    private String cursor;
+    private long lastSweepNanos = System.nanoTime();
+
+    /**
+     * @param source where revocations come from; {@code null} disables revocation checks
+     */
+    public RevocationSync(RevocationSource source, TokenRevocationList revocations, Duration refreshInterval) {
+        this.source = source;
+        this.revocations = revocations;
+        this.refreshInterval = refreshInterval;
+    }
+
+    @Override
+    public void afterPropertiesSet() throws Exception {
+        if (source == null) {
+            log.info("No token revocation source configured, revocation checks are disabled");
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("token-revocation-sync").factory());
+        // The first load completes before the gateway takes traffic, if the source is up
+        executor.submit(this::refresh).get();
+        executor.scheduleWithFixedDelay(this::refresh, refreshInterval.toMillis(), refreshInterval.toMillis(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    void refresh() {
+        try {
+            RevocationBatch batch = source.fetch(cursor);
+            boolean applied = true;
+            if (batch.snapshot()) {
+                revocations.replaceAll(batch.revocations());
+                log.info("Loaded {} token revocations", revocations.size());
+            } else {
+                for (Revocation revocation : batch.revocations()) {
+                    if (!revocations.revoke(revocation.jti(), revocation.expiresAt())) {
+                        applied = false;
+                        break;
+                    }
+                }
+            }
+            // A refused revocation must not be skipped past: the same deltas are fetched again
+            // next time, once expiry may have made room
+            if (applied) {
+                cursor = batch.cursor();
+            } else {
+                log.warn("Token revocation list is full, the revocations since the last cursor are fetched again "
+                        + "on the next refresh");
+            }
+        } catch (Exception e) {
+            log.warn("Token revocation refresh failed, keeping {} known revocations: {}", revocations.size(),
+                    e.toString());
+        }
+        if (System.nanoTime() - lastSweepNanos > EXPIRY_SWEEP_INTERVAL.toNanos()) {
+            revocations.removeExpired();
+            lastSweepNanos = System.nanoTime();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.muscledia.api_gateway.revocation;
+
+import io.jsonwebtoken.JwtException;
+
+/**
+ * A token with a valid signature whose {@code jti} is on the {@link TokenRevocationList}.
+ */
+public class RevokedTokenException extends JwtException {
+
+    public RevokedTokenException(String jti) {
+        super("Token " + jti + " has been revoked");
+    }
+}
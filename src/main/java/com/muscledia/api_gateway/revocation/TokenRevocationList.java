@@ -0,0 +1,217 @@
+package com.muscledia.api_gateway.revocation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Collection;
+
+/**
+ * Revoked token ids ({@code jti}), checked on every authenticated request.
+ *
+ * <p>Each id is stored as a 64-bit fingerprint plus the token's expiry in minutes, in two
+ * primitive arrays with linear probing: 12 bytes per slot, no objects per entry, and a
+ * lookup is one hash of the id and usually a single probe. A fingerprint collision would
+ * need around 2^32 revoked ids to become likely. Entries count only until their token
+ * expires, and are dropped by {@link #removeExpired()}; at {@code jwt.revocation.max-entries}
+ * new entries are refused, so memory stays bounded.
+ *
+ * <p>Lookups take no lock. Writes come from one refresh thread at a time: an entry's expiry
+ * is published before its fingerprint, so a reader that finds the fingerprint also sees the
+ * expiry. Growing, bulk replacement and expiry build a new table and swap it in.
+ */
+@Component
+@Slf4j
+public class TokenRevocationList {
+
+    private static final VarHandle FINGERPRINTS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final VarHandle EXPIRIES = MethodHandles.arrayElementVarHandle(int[].class);
+    private static final int MIN_CAPACITY = 1024;
+
+    private final int maxEntries;
+    private volatile Table table = new Table(MIN_CAPACITY);
+
+    public TokenRevocationList(@Value("${jwt.revocation.max-entries:1000000}") int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Whether the token with this id was revoked and has not expired yet; tokens without
+     * an id cannot be revoked.
+     */
+    public boolean isRevoked(String jti) {
+        if (jti == null) {
+            return false;
+        }
+        Table current = table;
+        int slot = current.find(fingerprint(jti));
+        return slot >= 0 && (int) EXPIRIES.getAcquire(current.expiries, slot) > nowMinutes();
+    }
+
+    /**
+     * Adds a revocation, or extends it if the id is already revoked.
+     *
+     * @return {@code false} if the list is full and the revocation was dropped
+     */
+    public synchronized boolean revoke(String jti, long expiresAtEpochSecond) {
+        int expiry = toMinutes(expiresAtEpochSecond);
+        if (expiry <= nowMinutes()) {
+            return true;
+        }
+        long fingerprint = fingerprint(jti);
+        Table current = table;
+        if (current.size >= maxEntries && current.find(fingerprint) < 0) {
+            removeExpired();
+            current = table;
+            if (current.size >= maxEntries) {
+                log.error("Token revocation list is full ({} entries), dropping revocation of {}", maxEntries, jti);
+                return false;
+            }
+        }
+        if ((current.size + 1) * 2 > current.capacity()) {
+            current = current.copy(current.capacity() * 2, nowMinutes());
+            table = current;
+        }
+        current.put(fingerprint, expiry);
+        return true;
+    }
+
+    /**
+     * Replaces every entry, for a full snapshot from the revocation source.
+     */
+    public synchronized void replaceAll(Collection<Revocation> revocations) {
+        int now = nowMinutes();
+        Table replacement = new Table(capacityFor(Math.min(revocations.size(), maxEntries)));
+        for (Revocation revocation : revocations) {
+            int expiry = toMinutes(revocation.expiresAt());
+            if (expiry <= now) {
+                continue;
+            }
+            if (replacement.size >= maxEntries) {
+                log.error("Token revocation snapshot exceeds {} entries, the rest is dropped", maxEntries);
+                break;
+            }
+            replacement.put(fingerprint(revocation.jti()), expiry);
+        }
+        table = replacement;
+    }
+
+    /**
+     * Drops entries whose tokens have expired, shrinking the table when it empties out.
+     */
+    public synchronized void removeExpired() {
+        Table current = table;
+        int now = nowMinutes();
+        int live = current.countLive(now);
+        if (live < current.size) {
+            table = current.copy(capacityFor(live), now);
+        }
+    }
+
+    public int size() {
+        return table.size;
+    }
+
+    private static int capacityFor(int entries) {
+        return Math.max(MIN_CAPACITY, Integer.highestOneBit(Math.max(entries, 1) * 2 - 1) << 1);
+    }
+
+    private static int nowMinutes() {
+        return (int) (System.currentTimeMillis() / 60_000);
+    }
+
+    /**
+     * Rounds up, so an entry never ends before its token does.
+     */
+    private static int toMinutes(long epochSecond) {
+        return (int) Math.min(Integer.MAX_VALUE, Math.ceilDiv(epochSecond, 60));
+    }
+
+    /**
+     * FNV-1a over the id's characters, then the SplitMix64 finalizer to spread the bits.
+     * Zero marks an empty slot, so it is never returned.
+     */
+    static long fingerprint(String jti) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < jti.length(); i++) {
+            hash ^= jti.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash = (hash ^ (hash >>> 30)) * 0xbf58476d1ce4e5b9L;
+        hash = (hash ^ (hash >>> 27)) * 0x94d049bb133111ebL;
+        hash ^= hash >>> 31;
+        return hash == 0 ? 1 : hash;
+    }
+
+    private static final class Table {
+        private final long[] fingerprints;
+        private final int[] expiries;
+        private final int mask;
+        // Written by the refresh thread only, not used by lookups
+        private int size;
+
+        private Table(int capacity) {
+            this.fingerprints = new long[capacity];
+            this.expiries = new int[capacity];
+            this.mask = capacity - 1;
+        }
+
+        private int capacity() {
+            return fingerprints.length;
+        }
+
+        private int find(long fingerprint) {
+            for (int slot = (int) fingerprint & mask; ; slot = (slot + 1) & mask) {
+                long stored = (long) FINGERPRINTS.getAcquire(fingerprints, slot);
+                if (stored == fingerprint) {
+                    return slot;
+                }
+                if (stored == 0) {
+                    return -1;
+                }
+            }
+        }
+
+        private void put(long fingerprint, int expiry) {
+            int slot = (int) fingerprint & mask;
+            while (true) {
+                long stored = fingerprints[slot];
+                if (stored == fingerprint) {
+                    if (expiry > expiries[slot]) {
+                        EXPIRIES.setRelease(expiries, slot, expiry);
+                    }
+                    return;
+                }
+                if (stored == 0) {
+                    EXPIRIES.setRelease(expiries, slot, expiry);
+                    FINGERPRINTS.setRelease(fingerprints, slot, fingerprint);
+                    size++;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+        }
+
+        private int countLive(int now) {
+            int live = 0;
+            for (int slot = 0; slot < fingerprints.length; slot++) {
+                if (fingerprints[slot] != 0 && expiries[slot] > now) {
+                    live++;
+                }
+            }
+            return live;
+        }
+
+        private Table copy(int capacity, int now) {
+            Table copy = new Table(capacity);
+            for (int slot = 0; slot < fingerprints.length; slot++) {
+                if (fingerprints[slot] != 0 && expiries[slot] > now) {
+                    copy.put(fingerprints[slot], expiries[slot]);
+                }
+            }
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.muscledia.api_gateway.route;
+
+import com.muscledia.api_gateway.tracing.HopTimings;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.config.GlobalCorsProperties;
+import org.springframework.cloud.gateway.event.RefreshRoutesResultEvent;
+import org.springframework.cloud.gateway.handler.FilteringWebHandler;
+import org.springframework.cloud.gateway.handler.RoutePredicateHandlerMapping;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.cloud.gateway.route.RouteDefinitionLocator;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.env.Environment;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_PREDICATE_ROUTE_ATTR;
+
+/**
+ * Route lookup through a {@link RouteIndex}: only the routes whose path patterns can match
+ * the request have their predicates evaluated, so lookup cost follows the routes sharing a
+ * path prefix rather than the total number of routes. The index is rebuilt after every
+ * successful route refresh; until the first one, lookup falls back to evaluating all routes.
+ */
+@Slf4j
+public class IndexedRoutePredicateHandlerMapping extends RoutePredicateHandlerMapping
+        implements ApplicationListener<RefreshRoutesResultEvent> {
+
+    private final RouteLocator routeLocator;
+    private final RouteDefinitionLocator definitionLocator;
+    private final AtomicLong generation = new AtomicLong();
+    private volatile RouteIndex index;
+
+    public IndexedRoutePredicateHandlerMapping(FilteringWebHandler webHandler, RouteLocator routeLocator,
+                                               RouteDefinitionLocator definitionLocator,
+                                               GlobalCorsProperties globalCorsProperties, Environment environment) {
+        super(webHandler, routeLocator, globalCorsProperties, environment);
+        this.routeLocator = routeLocator;
+        this.definitionLocator = definitionLocator;
+    }
+
+    @Override
+    public void onApplicationEvent(RefreshRoutesResultEvent event) {
+        if (!event.isSuccess()) {
+            return;
+        }
+        long current = generation.incrementAndGet();
+        Mono.zip(routeLocator.getRoutes().collectList(),
+                        definitionLocator.getRouteDefinitions().collectMap(RouteDefinition::getId))
+                .map(routes -> RouteIndex.build(routes.getT1(), routes.getT2()))
+                .subscribe(built -> {
+                    // A slower build from an earlier refresh must not replace a newer index
+                    if (generation.get() == current) {
+                        index = built;
+                        log.debug("Route index rebuilt over {} routes", built.size());
+                    }
+                }, e -> log.warn("Route index rebuild failed, keeping the previous one", e));
+    }
+
+    @Override
+    protected Mono<Route> lookupRoute(ServerWebExchange exchange) {
+        HopTimings timings = HopTimings.find(exchange);
+        if (timings == null) {
+            return lookup(exchange);
+        }
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return lookup(exchange).doOnNext(route -> timings.route(System.nanoTime() - start));
+        });
+    }
+
+    private Mono<Route> lookup(ServerWebExchange exchange) {
+        RouteIndex current = index;
+        if (current == null) {
+            return super.lookupRoute(exchange);
+        }
+        Route[] candidates = current.candidates(exchange.getRequest().getPath().pathWithinApplication());
+        return Flux.fromArray(candidates)
+                .concatMap(route -> Mono.just(route)
+                        .filterWhen(r -> {
+                            exchange.getAttributes().put(GATEWAY_PREDICATE_ROUTE_ATTR, r.getId());
+                            return r.getPredicate().apply(exchange);
+                        })
+                        .doOnError(e -> log.error("Error applying predicate for route: {}", route.getId(), e))
+                        .onErrorResume(e -> Mono.empty()))
+                .next()
+                .map(route -> {
+                    validateRoute(route, exchange);
+                    return route;
+                });
+    }
+}
@@ -0,0 +1,135 @@
+package com.muscledia.api_gateway.route;
+
+import org.springframework.cloud.gateway.handler.predicate.PredicateDefinition;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.http.server.PathContainer;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Narrows route lookup to the routes that can match a path. Routes are indexed by the
+ * literal leading segments of their {@code Path} predicate patterns, e.g. {@code api/v1}
+ * for {@code /api/v1/**}; a request walks the trie along its own segments and gets the
+ * routes of the deepest node it reaches. Routes without a {@code Path} predicate, or with
+ * a pattern starting with a wildcard, are candidates for every path.
+ *
+ * <p>Candidates are a superset of the matching routes, in route order, so evaluating their
+ * full predicates in turn picks the same route as evaluating all routes. Each node's
+ * candidate array is computed when the index is built; lookup does not allocate.
+ */
+final class RouteIndex {
+
+    private static final String PATH_PREDICATE = "Path";
+
+    private final Node root;
+    private final int size;
+
+    private RouteIndex(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    /**
+     * Builds the index over routes in lookup order. Definitions are looked up by route id;
+     * routes without one, such as routes built in code, are never narrowed out.
+     */
+    static RouteIndex build(List<Route> routes, Map<String, RouteDefinition> definitions) {
+        Builder root = new Builder();
+        for (int position = 0; position < routes.size(); position++) {
+            List<List<String>> prefixes = literalPrefixes(definitions.get(routes.get(position).getId()));
+            if (prefixes == null) {
+                root.positions.add(position);
+                continue;
+            }
+            for (List<String> prefix : prefixes) {
+                Builder node = root;
+                for (String segment : prefix) {
+                    node = node.children.computeIfAbsent(segment, s -> new Builder());
+                }
+                node.positions.add(position);
+            }
+        }
+        return new RouteIndex(root.compile(routes, new TreeSet<>()), routes.size());
+    }
+
+    /**
+     * Returns the routes whose predicates may match the path, in route order.
+     */
+    Route[] candidates(PathContainer path) {
+        Node node = root;
+        for (PathContainer.Element element : path.elements()) {
+            if (!(element instanceof PathContainer.PathSegment segment) || segment.valueToMatch().isEmpty()) {
+                continue;
+            }
+            Node child = node.children.get(segment.valueToMatch());
+            if (child == null) {
+                break;
+            }
+            node = child;
+        }
+        return node.routes;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * The literal leading segments of each pattern of the route's first {@code Path}
+     * predicate, or {@code null} if the route has to be a candidate for every path.
+     */
+    private static List<List<String>> literalPrefixes(RouteDefinition definition) {
+        if (definition == null) {
+            return null;
+        }
+        for (PredicateDefinition predicate : definition.getPredicates()) {
+            if (!PATH_PREDICATE.equals(predicate.getName())) {
+                continue;
+            }
+            List<List<String>> prefixes = new ArrayList<>();
+            for (String arg : predicate.getArgs().values()) {
+                if (arg.equals("true") || arg.equals("false")) {
+                    // The trailing matchTrailingSlash flag of the shortcut form
+                    continue;
+                }
+                if (!arg.startsWith("/")) {
+                    return null;
+                }
+                List<String> prefix = new ArrayList<>();
+                for (String segment : arg.split("/")) {
+                    if (segment.isEmpty()) {
+                        continue;
+                    }
+                    if (segment.indexOf('*') >= 0 || segment.indexOf('?') >= 0 || segment.indexOf('{') >= 0) {
+                        break;
+                    }
+                    prefix.add(segment);
+                }
+                prefixes.add(prefix);
+            }
+            return prefixes.isEmpty() ? null : prefixes;
+        }
+        return null;
+    }
+
+    private static final class Builder {
+        private final TreeSet<Integer> positions = new TreeSet<>();
+        private final Map<String, Builder> children = new HashMap<>();
+
+        private Node compile(List<Route> routes, TreeSet<Integer> inherited) {
+            TreeSet<Integer> reachable = new TreeSet<>(inherited);
+            reachable.addAll(positions);
+            Map<String, Node> compiled = new HashMap<>();
+            children.forEach((segment, child) -> compiled.put(segment, child.compile(routes, reachable)));
+            return new Node(reachable.stream().map(routes::get).toArray(Route[]::new), compiled);
+        }
+    }
+
+    private record Node(Route[] routes, Map<String, Node> children) {
+    }
+}
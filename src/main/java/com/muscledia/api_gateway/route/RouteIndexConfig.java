@@ -0,0 +1,29 @@
+package com.muscledia.api_gateway.route;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.gateway.config.GlobalCorsProperties;
+import org.springframework.cloud.gateway.handler.FilteringWebHandler;
+import org.springframework.cloud.gateway.route.RouteDefinitionLocator;
+import org.springframework.cloud.gateway.route.RouteLocator;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Replaces the gateway's linear route lookup with {@link IndexedRoutePredicateHandlerMapping};
+ * the auto-configured mapping backs off when this one exists.
+ */
+@Configuration
+public class RouteIndexConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "gateway.route-index.enabled", havingValue = "true", matchIfMissing = true)
+    public IndexedRoutePredicateHandlerMapping routePredicateHandlerMapping(FilteringWebHandler webHandler,
+                                                                            RouteLocator routeLocator,
+                                                                            RouteDefinitionLocator definitionLocator,
+                                                                            GlobalCorsProperties globalCorsProperties,
+                                                                            Environment environment) {
+        return new IndexedRoutePredicateHandlerMapping(webHandler, routeLocator, definitionLocator,
+                globalCorsProperties, environment);
+    }
+}
@@ -0,0 +1,158 @@
+package com.muscledia.api_gateway.tracing;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.handler.TracingObservationHandler;
+import org.springframework.http.server.reactive.observation.ServerRequestObservationContext;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.netty.http.client.HttpClient;
+import reactor.util.context.ContextView;
+
+/**
+ * Where a proxied request spent its time in the gateway:
+ * <ul>
+ *     <li>{@code auth}: JWT verification and authorization in {@code AuthenticationFilter};</li>
+ *     <li>{@code route}: route lookup;</li>
+ *     <li>{@code connect}: from the routing filter until the request goes out, i.e. pool
+ *     acquire and, for a new connection, connecting;</li>
+ *     <li>{@code upstream}: from sending the request to the upstream's response headers.</li>
+ * </ul>
+ * One instance per exchange, created by {@link HopTimingsWebFilter}; the hops that did not
+ * happen stay unset. Each hop is written once, by whichever thread runs it, and read when
+ * the response is committed.
+ */
+public final class HopTimings {
+
+    static final String ATTR = HopTimings.class.getName();
+
+    private static final long UNSET = -1;
+
+    private volatile long authNanos = UNSET;
+    private volatile long routeNanos = UNSET;
+    private volatile long connectNanos = UNSET;
+    private volatile long upstreamNanos = UNSET;
+    private volatile long routingStart;
+    private volatile long requestSent;
+
+    /**
+     * Returns the exchange's timings, or {@code null} if hop timings are disabled.
+     */
+    public static HopTimings find(ServerWebExchange exchange) {
+        return exchange.getAttribute(ATTR);
+    }
+
+    /**
+     * Adds the connect and upstream measurements to the client; they find the timings in
+     * the Reactor context the routing filter is subscribed with.
+     */
+    public static HttpClient instrument(HttpClient client) {
+        return client
+                .doOnRequest((request, connection) -> {
+                    HopTimings timings = from(request.currentContextView());
+                    if (timings != null) {
+                        timings.requestSent();
+                    }
+                })
+                .doOnResponse((response, connection) -> {
+                    HopTimings timings = from(response.currentContextView());
+                    if (timings != null) {
+                        timings.responseReceived();
+                    }
+                });
+    }
+
+    private static HopTimings from(ContextView context) {
+        return context.getOrDefault(HopTimings.class, null);
+    }
+
+    public void auth(long nanos) {
+        authNanos = nanos;
+    }
+
+    public void route(long nanos) {
+        routeNanos = nanos;
+    }
+
+    public void routingStarted() {
+        routingStart = System.nanoTime();
+    }
+
+    void requestSent() {
+        long now = System.nanoTime();
+        requestSent = now;
+        if (routingStart != 0) {
+            connectNanos = now - routingStart;
+        }
+    }
+
+    void responseReceived() {
+        if (requestSent != 0) {
+            upstreamNanos = System.nanoTime() - requestSent;
+        }
+    }
+
+    /**
+     * The {@code Server-Timing} header value, e.g. {@code auth;dur=0.41, upstream;dur=12.8};
+     * empty if no hop was measured.
+     */
+    String serverTiming() {
+        StringBuilder value = new StringBuilder(96);
+        append(value, "auth", authNanos);
+        append(value, "route", routeNanos);
+        append(value, "connect", connectNanos);
+        append(value, "upstream", upstreamNanos);
+        return value.toString();
+    }
+
+    /**
+     * Adds the measured hops to the server observation, which turns them into attributes
+     * of the request's span. Does nothing unless that span is sampled: the attributes of
+     * an unsampled span are never exported, so formatting them would be wasted.
+     */
+    void tag(ServerRequestObservationContext context) {
+        if (!isSampled(context)) {
+            return;
+        }
+        tag(context, "gateway.auth.ms", authNanos);
+        tag(context, "gateway.route.ms", routeNanos);
+        tag(context, "gateway.connect.ms", connectNanos);
+        tag(context, "gateway.upstream.ms", upstreamNanos);
+    }
+
+    private static void append(StringBuilder value, String name, long nanos) {
+        if (nanos == UNSET) {
+            return;
+        }
+        if (!value.isEmpty()) {
+            value.append(", ");
+        }
+        value.append(name).append(";dur=");
+        appendMillis(value, nanos);
+    }
+
+    private static boolean isSampled(ServerRequestObservationContext context) {
+        TracingObservationHandler.TracingContext tracing = context.get(TracingObservationHandler.TracingContext.class);
+        Span span = tracing != null ? tracing.getSpan() : null;
+        return span != null && Boolean.TRUE.equals(span.context().sampled());
+    }
+
+    private static void tag(ServerRequestObservationContext context, String key, long nanos) {
+        if (nanos != UNSET) {
+            context.addHighCardinalityKeyValue(KeyValue.of(key, appendMillis(new StringBuilder(8), nanos).toString()));
+        }
+    }
+
+    /**
+     * Appends the duration in milliseconds with two decimals, e.g. {@code 12.80}, without
+     * going through {@code String.format}.
+     */
+    private static StringBuilder appendMillis(StringBuilder value, long nanos) {
+        long hundredths = (nanos + 5_000) / 10_000;
+        long fraction = hundredths % 100;
+        value.append(hundredths / 100).append('.');
+        if (fraction < 10) {
+            value.append('0');
+        }
+        return value.append(fraction);
+    }
+}
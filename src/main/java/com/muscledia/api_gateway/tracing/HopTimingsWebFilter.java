@@ -0,0 +1,47 @@
+package com.muscledia.api_gateway.tracing;
+
+import org.springframework.core.Ordered;
+import org.springframework.http.server.reactive.observation.ServerRequestObservationContext;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Starts {@link HopTimings} for each request, ahead of route lookup, and reports them when
+ * the response is committed: on the request's server span and, if enabled, in a
+ * {@code Server-Timing} header.
+ */
+public class HopTimingsWebFilter implements WebFilter, Ordered {
+
+    static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+    private final boolean serverTiming;
+
+    public HopTimingsWebFilter(boolean serverTiming) {
+        this.serverTiming = serverTiming;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        HopTimings timings = new HopTimings();
+        exchange.getAttributes().put(HopTimings.ATTR, timings);
+        exchange.getResponse().beforeCommit(() -> {
+            if (serverTiming) {
+                String value = timings.serverTiming();
+                if (!value.isEmpty()) {
+                    exchange.getResponse().getHeaders().add(SERVER_TIMING_HEADER, value);
+                }
+            }
+            ServerRequestObservationContext.findCurrent(exchange.getAttributes()).ifPresent(timings::tag);
+            return Mono.empty();
+        });
+        // The routing filter's HTTP client finds the timings in the Reactor context
+        return chain.filter(exchange).contextWrite(context -> context.put(HopTimings.class, timings));
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
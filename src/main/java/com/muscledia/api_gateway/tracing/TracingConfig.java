@@ -0,0 +1,33 @@
+package com.muscledia.api_gateway.tracing;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Hop timings for every request, and the span file exporter when
+ * {@code gateway.tracing.file} is set. Spans themselves come from the server and proxy
+ * observations; Spring Boot exports them over OTLP once
+ * {@code management.otlp.tracing.endpoint} is set, and picks up the file exporter the same way.
+ */
+@Configuration
+public class TracingConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "gateway.tracing.hop-timings.enabled", havingValue = "true", matchIfMissing = true)
+    public HopTimingsWebFilter hopTimingsWebFilter(@Value("${gateway.tracing.server-timing:false}") boolean serverTiming) {
+        return new HopTimingsWebFilter(serverTiming);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "gateway.tracing.file")
+    public JsonFileSpanExporter jsonFileSpanExporter(ObjectMapper objectMapper,
+                                                     @Value("${gateway.tracing.file}") Path file) throws IOException {
+        return new JsonFileSpanExporter(objectMapper, file);
+    }
+}
@@ -0,0 +1,89 @@
+package com.muscledia.api_gateway.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.muscledia.api_gateway.filter.IdentityHeadersFilter;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdentityHeadersTests {
+
+	private static final String SECRET = "fedcba9876543210fedcba9876543210";
+
+	private final ObjectMapper objectMapper = new ObjectMapper();
+
+	private final Claims claims = Jwts.claims()
+			.subject("user42")
+			.add("userId", 42L)
+			.add("roles", List.of("USER", "ADMIN"))
+			.expiration(new Date(1_900_000_000_000L))
+			.build();
+
+	@Test
+	void replacesClientSentIdentityHeaders() {
+		UserIdentity identity = new IdentityHeaders(objectMapper, "").identityOf(claims);
+		HttpHeaders headers = new HttpHeaders();
+		headers.add(UserIdentity.USER_ID_HEADER, "1");
+		headers.add(UserIdentity.SIGNED_HEADER, "forged");
+
+		identity.writeTo(headers);
+
+		assertThat(headers.get(UserIdentity.USER_ID_HEADER)).containsExactly("42");
+		assertThat(headers.getFirst(UserIdentity.USERNAME_HEADER)).isEqualTo("user42");
+		assertThat(headers.getFirst(UserIdentity.ROLES_HEADER)).isEqualTo("USER,ADMIN");
+		assertThat(headers.containsKey(UserIdentity.SIGNED_HEADER)).isFalse();
+	}
+
+	@Test
+	void signsCompactIdentity() throws Exception {
+		UserIdentity identity = new IdentityHeaders(objectMapper, SECRET).identityOf(claims);
+		HttpHeaders headers = new HttpHeaders();
+		identity.writeTo(headers);
+
+		String[] parts = headers.getFirst(UserIdentity.SIGNED_HEADER).split("\\.");
+		Mac mac = Mac.getInstance("HmacSHA256");
+		mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+		byte[] signature = mac.doFinal(parts[0].getBytes(StandardCharsets.US_ASCII));
+		assertThat(Base64.getUrlDecoder().decode(parts[1])).isEqualTo(signature);
+
+		JsonNode payload = objectMapper.readTree(Base64.getUrlDecoder().decode(parts[0]));
+		assertThat(payload.get("sub").asText()).isEqualTo("user42");
+		assertThat(payload.get("uid").asText()).isEqualTo("42");
+		assertThat(payload.get("exp").asLong()).isEqualTo(1_900_000_000L);
+	}
+
+	@Test
+	void derivesNoIdentityWithoutRoles() {
+		Claims withoutRoles = Jwts.claims().subject("user42").add("userId", 42L).build();
+
+		assertThat(new IdentityHeaders(objectMapper, "").identityOf(withoutRoles)).isNull();
+	}
+
+	@Test
+	void headersFilterAppliesIdentityOrDropsForgedSignature() {
+		IdentityHeadersFilter filter = new IdentityHeadersFilter();
+		HttpHeaders upstream = new HttpHeaders();
+		upstream.add(UserIdentity.SIGNED_HEADER, "forged");
+
+		MockServerWebExchange anonymous = MockServerWebExchange.from(MockServerHttpRequest.get("/api/v1/workouts"));
+		assertThat(filter.filter(upstream, anonymous).containsKey(UserIdentity.SIGNED_HEADER)).isFalse();
+
+		MockServerWebExchange authenticated = MockServerWebExchange.from(MockServerHttpRequest.get("/api/v1/workouts"));
+		authenticated.getAttributes().put(UserIdentity.ATTR, new IdentityHeaders(objectMapper, "").identityOf(claims));
+		HttpHeaders readOnly = HttpHeaders.readOnlyHttpHeaders(authenticated.getRequest().getHeaders());
+		assertThat(filter.filter(readOnly, authenticated).getFirst(UserIdentity.USER_ID_HEADER)).isEqualTo("42");
+	}
+}
@@ -0,0 +1,102 @@
+package com.muscledia.api_gateway.config;
+
+import com.muscledia.api_gateway.revocation.TokenRevocationList;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.Key;
+import java.security.KeyPair;
+import java.time.Duration;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class JwtKeyRingTests {
+
+	private static final String SECRET = "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+
+	private final KeyPair rsa = Jwts.SIG.RS256.keyPair().build();
+
+	private final KeyPair ec = Jwts.SIG.ES256.keyPair().build();
+
+	private final JwtClaimsCache cache = new JwtClaimsCache(100, Duration.ofMinutes(5), new SimpleMeterRegistry());
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void verifiesAsymmetricTokensByKidAndHmacTokensWithoutKid() throws Exception {
+		Path jwks = writeJwks(jwk("rsa-1", rsa), jwk("ec-1", ec));
+		JwtVerifier verifier = verifier(new JwtKeyRing(environment(), cache, jwks.toString()));
+
+		assertThat(verifier.verify(token("rsa-1", rsa.getPrivate())).getSubject()).isEqualTo("user42");
+		assertThat(verifier.verify(token("ec-1", ec.getPrivate())).getSubject()).isEqualTo("user42");
+		assertThat(verifier.verify(token(null, Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8))))
+				.getSubject()).isEqualTo("user42");
+	}
+
+	@Test
+	void rejectsUnknownKid() throws Exception {
+		Path jwks = writeJwks(jwk("rsa-1", rsa));
+		JwtVerifier verifier = verifier(new JwtKeyRing(environment(), cache, jwks.toString()));
+
+		assertThatExceptionOfType(JwtException.class)
+				.isThrownBy(() -> verifier.verify(token("ec-1", ec.getPrivate())));
+	}
+
+	@Test
+	void reloadSwapsKeysAndKeepsThemWhenTheFileIsBroken() throws Exception {
+		Path jwks = writeJwks(jwk("rsa-1", rsa));
+		JwtKeyRing keyRing = new JwtKeyRing(environment(), cache, jwks.toString());
+		JwtVerifier verifier = verifier(keyRing);
+		String rsaToken = token("rsa-1", rsa.getPrivate());
+		verifier.verify(rsaToken);
+
+		writeJwks(jwk("ec-1", ec));
+		keyRing.reloadJwks();
+
+		assertThat(verifier.verify(token("ec-1", ec.getPrivate())).getSubject()).isEqualTo("user42");
+		assertThatExceptionOfType(JwtException.class).isThrownBy(() -> verifier.verify(rsaToken));
+
+		Files.writeString(jwks, "{\"keys\": [");
+		keyRing.reloadJwks();
+
+		assertThat(verifier.verify(token("ec-1", ec.getPrivate())).getSubject()).isEqualTo("user42");
+	}
+
+	private JwtVerifier verifier(JwtKeyRing keyRing) {
+		return new JwtVerifier(keyRing, cache, new TokenRevocationList(100),
+				new GatewayMetrics(new SimpleMeterRegistry()));
+	}
+
+	private static MockEnvironment environment() {
+		return new MockEnvironment().withProperty("jwt.secret", SECRET);
+	}
+
+	private static String jwk(String kid, KeyPair pair) {
+		return Jwks.json(Jwks.builder().key(pair.getPublic()).id(kid).build());
+	}
+
+	private Path writeJwks(String... jwks) throws Exception {
+		return Files.writeString(dir.resolve("jwks.json"), "{\"keys\": [" + String.join(",", jwks) + "]}");
+	}
+
+	private static String token(String kid, Key key) {
+		return Jwts.builder()
+				.header().keyId(kid).and()
+				.subject("user42")
+				.expiration(new Date(System.currentTimeMillis() + Duration.ofHours(1).toMillis()))
+				.signWith(key)
+				.compact();
+	}
+}
@@ -0,0 +1,70 @@
+package com.muscledia.api_gateway.config;
+
+import com.muscledia.api_gateway.revocation.TokenRevocationList;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JwtVerificationOffloadTests {
+
+	private static final String SECRET = "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+
+	private final JwtClaimsCache cache = new JwtClaimsCache(100, Duration.ofMinutes(5), new SimpleMeterRegistry());
+
+	private final JwtVerifier verifier = new JwtVerifier(
+			new JwtKeyRing(new MockEnvironment().withProperty("jwt.secret", SECRET), cache, ""), cache,
+			new TokenRevocationList(100), new GatewayMetrics(new SimpleMeterRegistry()));
+
+	private JwtVerificationOffload offload;
+
+	@AfterEach
+	void dispose() {
+		offload.destroy();
+	}
+
+	@Test
+	void verifiesOnWorkerWhenAboveThreshold() {
+		offload = new JwtVerificationOffload(verifier, true, Duration.ZERO, 1, 10, false);
+
+		assertThat(threadOf(offload, token())).startsWith("jwt-verify-");
+	}
+
+	@Test
+	void verifiesInlineBelowThresholdAndForCachedTokens() {
+		offload = new JwtVerificationOffload(verifier, true, Duration.ofSeconds(1), 1, 10, false);
+		String token = token();
+
+		assertThat(threadOf(offload, token)).isEqualTo(Thread.currentThread().getName());
+
+		JwtVerificationOffload alwaysOffload = new JwtVerificationOffload(verifier, true, Duration.ZERO, 1, 10, false);
+		assertThat(threadOf(alwaysOffload, token)).isEqualTo(Thread.currentThread().getName());
+		alwaysOffload.destroy();
+	}
+
+	private static String threadOf(JwtVerificationOffload offload, String token) {
+		AtomicReference<String> thread = new AtomicReference<>();
+		VerifiedToken verified = offload.verify(token)
+				.doOnNext(result -> thread.set(Thread.currentThread().getName()))
+				.block();
+		assertThat(verified.getClaims().getSubject()).isEqualTo("user42");
+		return thread.get();
+	}
+
+	private static String token() {
+		return Jwts.builder()
+				.subject("user42")
+				.expiration(new Date(System.currentTimeMillis() + Duration.ofHours(1).toMillis()))
+				.signWith(Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8)))
+				.compact();
+	}
+}
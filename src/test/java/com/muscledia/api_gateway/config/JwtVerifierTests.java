@@ -0,0 +1,116 @@
+package com.muscledia.api_gateway.config;
+
+import com.muscledia.api_gateway.revocation.RevokedTokenException;
+import com.muscledia.api_gateway.revocation.TokenRevocationList;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.context.environment.EnvironmentChangeEvent;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class JwtVerifierTests {
+
+	private static final String SECRET = "0123456789abcdef0123456789abcdef0123456789abcdef0123456789abcdef";
+
+	private final MockEnvironment environment = new MockEnvironment().withProperty("jwt.secret", SECRET);
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	private final JwtClaimsCache cache = new JwtClaimsCache(100, Duration.ofMinutes(5), registry);
+
+	private final JwtKeyRing keyRing = new JwtKeyRing(environment, cache, "");
+
+	private final TokenRevocationList revocations = new TokenRevocationList(100);
+
+	private final JwtVerifier verifier = new JwtVerifier(keyRing, cache, revocations, new GatewayMetrics(registry));
+
+	@Test
+	void verifiesEachNewTokenWithTheSharedParserAndServesRepeatsFromTheCache() {
+		for (int i = 0; i < 3; i++) {
+			String token = token(SECRET, "user" + i, "jti-" + i, Duration.ofHours(1));
+			Claims claims = verifier.verify(token);
+			assertThat(claims.getSubject()).isEqualTo("user" + i);
+			assertThat(verifier.verify(token)).isSameAs(claims);
+		}
+
+		assertThat(verifications("valid")).isEqualTo(3);
+	}
+
+	@Test
+	void rejectsTamperedTokens() {
+		String[] parts = token(SECRET, "user42", "jti-1", Duration.ofHours(1)).split("\\.");
+		String payload = Base64.getUrlEncoder().withoutPadding()
+				.encodeToString("{\"sub\":\"admin\"}".getBytes(StandardCharsets.UTF_8));
+		String tampered = parts[0] + "." + payload + "." + parts[2];
+
+		assertThatExceptionOfType(SignatureException.class).isThrownBy(() -> verifier.verify(tampered));
+		assertThat(verifications("invalid")).isEqualTo(1);
+	}
+
+	@Test
+	void rejectsExpiredTokens() {
+		String expired = token(SECRET, "user42", "jti-1", Duration.ofMinutes(-1));
+
+		assertThatExceptionOfType(ExpiredJwtException.class).isThrownBy(() -> verifier.verify(expired));
+		assertThat(verifier.verifyIfCached(expired)).isNull();
+	}
+
+	@Test
+	void keepsTheParserAndDropsCachedClaimsWhenTheSecretRotates() {
+		String rotatedSecret = SECRET.replace('0', 'f');
+		String oldToken = token(SECRET, "user42", "jti-1", Duration.ofHours(1));
+		verifier.verify(oldToken);
+
+		environment.setProperty("jwt.secret", rotatedSecret);
+		keyRing.onApplicationEvent(new EnvironmentChangeEvent(Set.of("jwt.secret")));
+
+		assertThatExceptionOfType(SignatureException.class).isThrownBy(() -> verifier.verify(oldToken));
+		assertThat(verifier.verify(token(rotatedSecret, "user42", "jti-2", Duration.ofHours(1))).getSubject())
+				.isEqualTo("user42");
+	}
+
+	@Test
+	void rejectsRevokedTokensThatAreAlreadyCached() {
+		String token = token(SECRET, "user42", "jti-1", Duration.ofHours(1));
+		verifier.verify(token);
+		assertThat(verifier.verifyIfCached(token)).isNotNull();
+
+		revocations.revoke("jti-1", Instant.now().plus(Duration.ofHours(1)).getEpochSecond());
+
+		assertThat(cache.getIfPresent(token)).isNotNull();
+		assertThatExceptionOfType(RevokedTokenException.class).isThrownBy(() -> verifier.verify(token));
+		assertThatExceptionOfType(RevokedTokenException.class).isThrownBy(() -> verifier.verifyIfCached(token));
+		// The cached claims were checked, the token was not parsed again
+		assertThat(verifications("valid")).isEqualTo(1);
+	}
+
+	private long verifications(String result) {
+		return registry.get("gateway.jwt.verify").tag("result", result).timers().stream()
+				.mapToLong(Timer::count)
+				.sum();
+	}
+
+	private static String token(String secret, String subject, String id, Duration expiresIn) {
+		return Jwts.builder()
+				.subject(subject)
+				.id(id)
+				.expiration(new Date(System.currentTimeMillis() + expiresIn.toMillis()))
+				.signWith(Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8)))
+				.compact();
+	}
+}
@@ -0,0 +1,43 @@
+package com.muscledia.api_gateway.config;
+
+import com.muscledia.api_gateway.filter.AuthenticationFilter;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.ratelimit.KeyResolver;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+import java.net.InetSocketAddress;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimiterConfigTests {
+
+	@Test
+	void userKeyResolverKeysByVerifiedUserAndNeverByAddress() {
+		KeyResolver resolver = new RateLimiterConfig(0).userKeyResolver();
+		MockServerWebExchange anonymous = exchange("10.0.0.1");
+		MockServerWebExchange user = exchange("10.0.0.1");
+		user.getAttributes().put(AuthenticationFilter.USER_ID_ATTR, "42");
+
+		assertThat(resolver.resolve(anonymous).blockOptional()).isEmpty();
+		assertThat(resolver.resolve(user).block()).isEqualTo("user:42");
+	}
+
+	@Test
+	void clientIpKeyResolverTrustsForwardedForOnlyForConfiguredHops() {
+		MockServerWebExchange proxied = exchange("10.0.0.1", "203.0.113.7, 10.0.0.1");
+
+		assertThat(new RateLimiterConfig(0).clientIpKeyResolver().resolve(proxied).block()).isEqualTo("ip:10.0.0.1");
+		assertThat(new RateLimiterConfig(1).clientIpKeyResolver().resolve(proxied).block()).isEqualTo("ip:10.0.0.1");
+		assertThat(new RateLimiterConfig(2).clientIpKeyResolver().resolve(proxied).block()).isEqualTo("ip:203.0.113.7");
+	}
+
+	private static MockServerWebExchange exchange(String remoteAddress, String... forwardedFor) {
+		MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get("/api/v1/workouts")
+				.remoteAddress(new InetSocketAddress(remoteAddress, 40000));
+		if (forwardedFor.length > 0) {
+			request.header("X-Forwarded-For", forwardedFor);
+		}
+		return MockServerWebExchange.from(request);
+	}
+}
@@ -0,0 +1,66 @@
+package com.muscledia.api_gateway.exception;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+
+import java.net.URI;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ErrorResponseWriterTests {
+
+	private final ErrorResponseWriter writer = new ErrorResponseWriter();
+
+	private final ObjectMapper mapper = new ObjectMapper();
+
+	@Test
+	void writesErrorWithStatusTimestampAndPath() throws Exception {
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/api/v1/workouts/42"));
+
+		writer.write(exchange, writer.error(HttpStatus.SERVICE_UNAVAILABLE, "Service temporarily unavailable")).block();
+
+		JsonNode body = mapper.readTree(exchange.getResponse().getBodyAsString().block());
+		assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+		assertThat(exchange.getResponse().getHeaders().getContentType()).isEqualTo(MediaType.APPLICATION_JSON);
+		assertThat(body.get("error").asText()).isEqualTo("Service temporarily unavailable");
+		assertThat(body.get("status").asInt()).isEqualTo(503);
+		assertThat(body.get("path").asText()).isEqualTo("/api/v1/workouts/42");
+		assertThat(Instant.parse(body.get("timestamp").asText())).isBeforeOrEqualTo(Instant.now());
+	}
+
+	@Test
+	void escapesQuotesInPathAndMessage() throws Exception {
+		MockServerWebExchange exchange = MockServerWebExchange.from(
+				MockServerHttpRequest.method(HttpMethod.GET, URI.create("/api/v1/a%22b%5C")));
+
+		writer.write(exchange, writer.error(HttpStatus.NOT_FOUND, "No \"route\" found")).block();
+
+		JsonNode body = mapper.readTree(exchange.getResponse().getBodyAsString().block());
+		assertThat(body.get("path").asText()).isEqualTo("/api/v1/a\"b\\");
+		assertThat(body.get("error").asText()).isEqualTo("No \"route\" found");
+	}
+
+	@Test
+	void escapesControlCharactersAsUnicodeEscapes() {
+		assertThat(ErrorResponseWriter.escape("a\u0000b\u001fc\nd")).isEqualTo("a\\u0000b\\u001fc\\nd");
+	}
+
+	@Test
+	void writesFallbackWithoutPath() throws Exception {
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/fallback/user-service"));
+
+		writer.write(exchange, ErrorResponseWriter.fallback(HttpStatus.SERVICE_UNAVAILABLE, "user-service",
+				"User service is currently unavailable")).block();
+
+		JsonNode body = mapper.readTree(exchange.getResponse().getBodyAsString().block());
+		assertThat(body.get("service").asText()).isEqualTo("user-service");
+		assertThat(body.has("path")).isFalse();
+	}
+}
@@ -0,0 +1,71 @@
+package com.muscledia.api_gateway.filter;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimitTests {
+
+	private static final long BASELINE = Duration.ofMillis(10).toNanos();
+
+	private final AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(20, 5, 200);
+
+	@Test
+	void growsWhileLatencyStaysAtBaseline() {
+		sample(BASELINE, 100);
+
+		assertThat(limit.getLimit()).isGreaterThan(20);
+	}
+
+	@Test
+	void shrinksWhenLatencyRises() {
+		sample(BASELINE, 1);
+		sample(BASELINE * 4, 50);
+
+		assertThat(limit.getLimit()).isLessThan(20);
+	}
+
+	@Test
+	void shrinksOnDrops() {
+		for (int i = 0; i < 10; i++) {
+			limit.tryAcquire(1.0);
+			limit.release(BASELINE, limit.getInFlight(), true);
+		}
+
+		assertThat(limit.getLimit()).isLessThan(20);
+	}
+
+	@Test
+	void ignoresSamplesWhileMostlyIdle() {
+		sample(BASELINE, 1);
+		for (int i = 0; i < 50; i++) {
+			limit.tryAcquire(1.0);
+			limit.release(BASELINE, 1, false);
+		}
+
+		assertThat(limit.getLimit()).isEqualTo(20);
+	}
+
+	@Test
+	void keepsPartOfTheLimitForPriorityRequests() {
+		for (int i = 0; i < 16; i++) {
+			assertThat(limit.tryAcquire(0.8)).isTrue();
+		}
+
+		assertThat(limit.tryAcquire(0.8)).isFalse();
+		assertThat(limit.tryAcquire(1.0)).isTrue();
+		assertThat(limit.getInFlight()).isEqualTo(17);
+	}
+
+	/**
+	 * Records samples as if the gateway were using the whole limit.
+	 */
+	private void sample(long rttNanos, int count) {
+		for (int i = 0; i < count; i++) {
+			limit.tryAcquire(1.0);
+			limit.release(rttNanos, limit.getLimit(), false);
+		}
+	}
+}
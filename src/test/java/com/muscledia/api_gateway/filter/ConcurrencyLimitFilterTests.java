@@ -0,0 +1,144 @@
+package com.muscledia.api_gateway.filter;
+
+import com.muscledia.api_gateway.config.ConcurrencyLimitProperties;
+import com.muscledia.api_gateway.config.JwtClaimsCache;
+import com.muscledia.api_gateway.exception.GatewayOverloadedException;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+class ConcurrencyLimitFilterTests {
+
+	private static final String VERIFIED_TOKEN = "verified.jwt.token";
+
+	// Route filters are wrapped with their position, as RouteDefinitionRouteLocator does
+	private static final Route AUTHENTICATED_ROUTE = route("workout-route", new OrderedGatewayFilter(
+			new AuthenticationFilter.Authenticating(new AuthenticationFilter.Config(), (exchange, chain) -> chain.filter(exchange)),
+			1));
+
+	private static final Route PUBLIC_ROUTE = route("public-route");
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final JwtClaimsCache claimsCache = new JwtClaimsCache(100, Duration.ofMinutes(5), registry);
+	private final ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(properties(),
+			registry, claimsCache);
+	private final AtomicInteger upstreamCalls = new AtomicInteger();
+	private final List<Disposable> inFlight = new ArrayList<>();
+
+	// Upstream calls that stay in flight until the test cancels them
+	private final GatewayFilterChain hangingUpstream = exchange -> {
+		upstreamCalls.incrementAndGet();
+		return Mono.never();
+	};
+
+	@Test
+	void shedsAnonymousRequestsBeforeAuthenticatedOnes() {
+		claimsCache.get(VERIFIED_TOKEN, token -> Jwts.claims().subject("user42").build());
+		for (int i = 0; i < 8; i++) {
+			inFlight.add(filter.filter(exchange(null), hangingUpstream).subscribe());
+		}
+
+		assertThatThrownBy(() -> filter.filter(exchange(null), hangingUpstream).block())
+				.isSameAs(GatewayOverloadedException.INSTANCE);
+
+		inFlight.add(filter.filter(exchange(VERIFIED_TOKEN), hangingUpstream).subscribe());
+		MockServerWebExchange withUser = exchange(null);
+		withUser.getAttributes().put(AuthenticationFilter.USER_ID_ATTR, "42");
+		inFlight.add(filter.filter(withUser, hangingUpstream).subscribe());
+		assertThat(upstreamCalls).hasValue(10);
+
+		assertThatThrownBy(() -> filter.filter(exchange(VERIFIED_TOKEN), hangingUpstream).block())
+				.isSameAs(GatewayOverloadedException.INSTANCE);
+		inFlight.forEach(Disposable::dispose);
+	}
+
+	@Test
+	void unverifiedBearerTokenBuysNoPriority() {
+		for (int i = 0; i < 8; i++) {
+			inFlight.add(filter.filter(exchange("forged"), hangingUpstream).subscribe());
+		}
+
+		MockServerWebExchange forged = exchange("x");
+		assertThatThrownBy(() -> filter.filter(forged, hangingUpstream).block())
+				.isSameAs(GatewayOverloadedException.INSTANCE);
+		assertThat(forged.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+		assertThat(upstreamCalls).hasValue(8);
+		assertThat(registry.find("gateway.concurrency.rejected").tag("priority", "anonymous").counter())
+				.satisfies(counter -> assertThat(counter.count()).isEqualTo(1));
+		inFlight.forEach(Disposable::dispose);
+	}
+
+	@Test
+	void anonymousRequestsUseTheWholeLimitOnRoutesWithoutAuthentication() {
+		for (int i = 0; i < 10; i++) {
+			inFlight.add(filter.filter(exchange(null, PUBLIC_ROUTE), hangingUpstream).subscribe());
+		}
+
+		assertThat(upstreamCalls).hasValue(10);
+		assertThatThrownBy(() -> filter.filter(exchange(null, PUBLIC_ROUTE), hangingUpstream).block())
+				.isSameAs(GatewayOverloadedException.INSTANCE);
+		inFlight.forEach(Disposable::dispose);
+	}
+
+	@Test
+	void freesSlotsOfCancelledRequests() {
+		for (int i = 0; i < 8; i++) {
+			filter.filter(exchange(null), hangingUpstream).subscribe().dispose();
+		}
+
+		inFlight.add(filter.filter(exchange(null), hangingUpstream).subscribe());
+		assertThat(upstreamCalls).hasValue(9);
+		inFlight.forEach(Disposable::dispose);
+	}
+
+	private static MockServerWebExchange exchange(String token) {
+		return exchange(token, AUTHENTICATED_ROUTE);
+	}
+
+	private static MockServerWebExchange exchange(String token, Route route) {
+		MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get("/api/v1/workouts");
+		if (token != null) {
+			request.header(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+		}
+		MockServerWebExchange exchange = MockServerWebExchange.from(request);
+		exchange.getAttributes().put(GATEWAY_ROUTE_ATTR, route);
+		return exchange;
+	}
+
+	private static Route route(String id, GatewayFilter... filters) {
+		return Route.async().id(id).uri("http://localhost").predicate(e -> true).filters(filters).build();
+	}
+
+	private static ConcurrencyLimitProperties properties() {
+		ConcurrencyLimitProperties properties = new ConcurrencyLimitProperties();
+		properties.setGlobal(fixed(10));
+		properties.setRoute(fixed(100));
+		return properties;
+	}
+
+	private static ConcurrencyLimitProperties.Limit fixed(int limit) {
+		ConcurrencyLimitProperties.Limit fixed = new ConcurrencyLimitProperties.Limit();
+		fixed.setInitialLimit(limit);
+		fixed.setMinLimit(limit);
+		fixed.setMaxLimit(limit);
+		return fixed;
+	}
+}
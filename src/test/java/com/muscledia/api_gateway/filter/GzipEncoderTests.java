@@ -0,0 +1,88 @@
+package com.muscledia.api_gateway.filter;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GzipEncoderTests {
+
+	private static final DefaultDataBufferFactory FACTORY = DefaultDataBufferFactory.sharedInstance;
+
+	@Test
+	void writesCrcAndLengthTrailerThatGzipInputStreamAccepts() throws Exception {
+		String chunk = "{\"exercise\":\"deadlift\",\"sets\":3,\"reps\":5},".repeat(300);
+		byte[] plain = chunk.repeat(3).getBytes(StandardCharsets.UTF_8);
+
+		GzipEncoder encoder = new GzipEncoder(Deflater.DEFAULT_COMPRESSION);
+		ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+		for (int i = 0; i < 3; i++) {
+			gzip.writeBytes(drain(encoder.encode(wrap(chunk), FACTORY)));
+		}
+		gzip.writeBytes(drain(encoder.finish(FACTORY)));
+		byte[] bytes = gzip.toByteArray();
+
+		CRC32 crc = new CRC32();
+		crc.update(plain);
+		ByteBuffer trailer = ByteBuffer.wrap(bytes, bytes.length - 8, 8).order(ByteOrder.LITTLE_ENDIAN);
+		assertThat(Integer.toUnsignedLong(trailer.getInt())).isEqualTo(crc.getValue());
+		assertThat(trailer.getInt()).isEqualTo(plain.length);
+		assertThat(encoder.getBytesIn()).isEqualTo(plain.length);
+		assertThat(encoder.getBytesOut()).isEqualTo(bytes.length);
+
+		try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+			assertThat(in.readAllBytes()).isEqualTo(plain);
+		}
+	}
+
+	@Test
+	void encodesEmptyBodyAsCompleteStream() throws Exception {
+		byte[] bytes = drain(new GzipEncoder(Deflater.BEST_SPEED).finish(FACTORY));
+
+		assertThat(bytes).startsWith(0x1f, 0x8b);
+		assertThat(ByteBuffer.wrap(bytes, bytes.length - 8, 8).order(ByteOrder.LITTLE_ENDIAN).getLong()).isZero();
+		try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+			assertThat(in.readAllBytes()).isEmpty();
+		}
+	}
+
+	@Test
+	void pooledEncoderStartsAFreshStream() throws Exception {
+		GzipEncoder.Pool pool = new GzipEncoder.Pool(1, Deflater.DEFAULT_COMPRESSION);
+		GzipEncoder first = pool.borrow();
+		drain(first.encode(wrap("first body"), FACTORY));
+		drain(first.finish(FACTORY));
+		pool.release(first);
+
+		GzipEncoder second = pool.borrow();
+		assertThat(second).isSameAs(first);
+		ByteArrayOutputStream gzip = new ByteArrayOutputStream();
+		gzip.writeBytes(drain(second.encode(wrap("second body"), FACTORY)));
+		gzip.writeBytes(drain(second.finish(FACTORY)));
+		try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip.toByteArray()))) {
+			assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("second body");
+		}
+	}
+
+	private static DataBuffer wrap(String text) {
+		return FACTORY.wrap(text.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static byte[] drain(DataBuffer buffer) {
+		byte[] bytes = new byte[buffer.readableByteCount()];
+		buffer.read(bytes);
+		DataBufferUtils.release(buffer);
+		return bytes;
+	}
+}
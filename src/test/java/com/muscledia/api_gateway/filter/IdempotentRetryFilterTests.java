@@ -0,0 +1,218 @@
+package com.muscledia.api_gateway.filter;
+
+import com.muscledia.api_gateway.config.GatewayMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.factory.RetryGatewayFilterFactory;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.support.ServerWebExchangeUtils;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.CLIENT_RESPONSE_HEADER_NAMES;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+class IdempotentRetryFilterTests {
+
+	private static final String BODY = "{\"exercise\":\"squat\",\"weight\":100}";
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final IdempotentRetryFilter factory = new IdempotentRetryFilter(new GatewayMetrics(registry));
+
+	@Test
+	void retriesGetOnServiceUnavailable() {
+		Upstream upstream = new Upstream(HttpStatus.SERVICE_UNAVAILABLE, HttpStatus.SERVICE_UNAVAILABLE, HttpStatus.OK);
+		MockServerWebExchange exchange = exchange(MockServerHttpRequest.get("/api/v1/workouts"));
+
+		filter(config()).filter(exchange, upstream).block();
+
+		assertThat(upstream.attempts).hasValue(3);
+		assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+		assertThat((Integer) exchange.getAttribute(RetryGatewayFilterFactory.RETRY_ITERATION_KEY)).isEqualTo(2);
+	}
+
+	@Test
+	void resetsWhatThePreviousAttemptLeftOnTheExchange() {
+		Upstream upstream = new Upstream(HttpStatus.BAD_GATEWAY, HttpStatus.OK);
+		MockServerWebExchange exchange = exchange(MockServerHttpRequest.get("/api/v1/workouts"));
+
+		filter(config()).filter(exchange, upstream).block();
+
+		assertThat(upstream.alreadyRoutedOnEntry).hasValue(0);
+		assertThat(exchange.getResponse().getHeaders().get("X-Upstream-Attempt")).containsExactly("2");
+	}
+
+	@Test
+	void doesNotRetryPostWithoutIdempotencyKey() {
+		Upstream upstream = new Upstream(HttpStatus.SERVICE_UNAVAILABLE, HttpStatus.OK);
+		MockServerWebExchange exchange = exchange(MockServerHttpRequest.post("/api/v1/workouts")
+				.contentLength(BODY.length()).body(BODY));
+
+		filter(config()).filter(exchange, upstream).block();
+
+		assertThat(upstream.attempts).hasValue(1);
+		assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+	}
+
+	@Test
+	void retriesPostWithIdempotencyKeyReplayingTheSameBody() {
+		Upstream upstream = new Upstream(HttpStatus.SERVICE_UNAVAILABLE, HttpStatus.SERVICE_UNAVAILABLE, HttpStatus.OK);
+		MockServerWebExchange exchange = exchange(MockServerHttpRequest.post("/api/v1/workouts")
+				.header("Idempotency-Key", "k-1")
+				.contentLength(BODY.length())
+				.body(BODY));
+
+		filter(config()).filter(exchange, upstream).block();
+
+		assertThat(upstream.attempts).hasValue(3);
+		assertThat(upstream.bodies).containsExactly(BODY, BODY, BODY);
+		assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+	}
+
+	@Test
+	void doesNotRetryBodiesAboveTheReplayLimit() {
+		IdempotentRetryFilter.Config config = config();
+		config.setMaxReplayBodySize(DataSize.ofBytes(BODY.length() - 1));
+		Upstream upstream = new Upstream(HttpStatus.SERVICE_UNAVAILABLE, HttpStatus.OK);
+		MockServerWebExchange exchange = exchange(MockServerHttpRequest.post("/api/v1/workouts")
+				.header("Idempotency-Key", "k-1")
+				.contentLength(BODY.length())
+				.body(BODY));
+
+		filter(config).filter(exchange, upstream).block();
+
+		assertThat(upstream.attempts).hasValue(1);
+	}
+
+	@Test
+	void stopsRetryingWhenTheBudgetIsSpent() {
+		IdempotentRetryFilter.Config config = config();
+		// Long enough that the first requests hold their retry slot for the whole test
+		config.setFirstBackoff(Duration.ofMinutes(1));
+		config.setMaxBackoff(Duration.ofMinutes(1));
+		GatewayFilter filter = filter(config);
+		Upstream upstream = new Upstream(HttpStatus.SERVICE_UNAVAILABLE);
+
+		List<Disposable> waiting = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			waiting.add(filter.filter(exchange(MockServerHttpRequest.get("/api/v1/workouts")), upstream).subscribe());
+		}
+		assertThat(upstream.attempts).hasValue(3);
+
+		MockServerWebExchange rejected = exchange(MockServerHttpRequest.get("/api/v1/workouts"));
+		filter.filter(rejected, upstream).block(Duration.ofSeconds(5));
+
+		assertThat(upstream.attempts).hasValue(4);
+		assertThat(rejected.getResponse().getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+		assertThat(registry.get("gateway.upstream.retries.rejected").tag("route", "workout-route").counter().count())
+				.isEqualTo(1);
+		waiting.forEach(Disposable::dispose);
+	}
+
+	@Test
+	void budgetAllowsAShareOfInFlightRequestsAboveAFloor() {
+		IdempotentRetryFilter.RetryBudget budget = new IdempotentRetryFilter.RetryBudget(20, 3);
+		budget.requestStarted();
+		assertThat(acquired(budget, 10)).isEqualTo(3);
+
+		for (int i = 1; i < 25; i++) {
+			budget.requestStarted();
+		}
+		assertThat(acquired(budget, 10)).isEqualTo(2);
+	}
+
+	@Test
+	void backsOffExponentiallyWithJitterUpToTheMaximum() {
+		IdempotentRetryFilter.Config config = config();
+		config.setFirstBackoff(Duration.ofMillis(100));
+		config.setMaxBackoff(Duration.ofMillis(350));
+		config.setJitter(0.5);
+
+		for (int i = 0; i < 50; i++) {
+			assertThat(IdempotentRetryFilter.backoff(config, 0)).isBetween(Duration.ofMillis(50), Duration.ofMillis(100));
+			assertThat(IdempotentRetryFilter.backoff(config, 1)).isBetween(Duration.ofMillis(100), Duration.ofMillis(200));
+			assertThat(IdempotentRetryFilter.backoff(config, 5)).isBetween(Duration.ofMillis(175), Duration.ofMillis(350));
+		}
+	}
+
+	private static int acquired(IdempotentRetryFilter.RetryBudget budget, int attempts) {
+		int acquired = 0;
+		for (int i = 0; i < attempts; i++) {
+			if (budget.tryAcquireRetry()) {
+				acquired++;
+			}
+		}
+		return acquired;
+	}
+
+	private GatewayFilter filter(IdempotentRetryFilter.Config config) {
+		return factory.apply(config);
+	}
+
+	private static IdempotentRetryFilter.Config config() {
+		IdempotentRetryFilter.Config config = new IdempotentRetryFilter.Config();
+		config.setFirstBackoff(Duration.ofMillis(1));
+		config.setMaxBackoff(Duration.ofMillis(2));
+		return config;
+	}
+
+	private static MockServerWebExchange exchange(MockServerHttpRequest.BaseBuilder<?> request) {
+		return exchange(request.build());
+	}
+
+	private static MockServerWebExchange exchange(MockServerHttpRequest request) {
+		MockServerWebExchange exchange = MockServerWebExchange.from(request);
+		exchange.getAttributes().put(GATEWAY_ROUTE_ATTR,
+				Route.async().id("workout-route").uri("http://localhost").predicate(e -> true).build());
+		return exchange;
+	}
+
+	/**
+	 * Answers each attempt with the next status, repeating the last one, and routes the
+	 * exchange the way the routing filter does.
+	 */
+	private static final class Upstream implements GatewayFilterChain {
+		private final HttpStatus[] statuses;
+		private final AtomicInteger attempts = new AtomicInteger();
+		private final AtomicInteger alreadyRoutedOnEntry = new AtomicInteger();
+		private final List<String> bodies = new ArrayList<>();
+
+		private Upstream(HttpStatus... statuses) {
+			this.statuses = statuses;
+		}
+
+		@Override
+		public Mono<Void> filter(ServerWebExchange exchange) {
+			int attempt = attempts.incrementAndGet();
+			if (ServerWebExchangeUtils.isAlreadyRouted(exchange)) {
+				alreadyRoutedOnEntry.incrementAndGet();
+			}
+			ServerWebExchangeUtils.setAlreadyRouted(exchange);
+			return DataBufferUtils.join(exchange.getRequest().getBody())
+					.doOnNext(body -> bodies.add(body.toString(StandardCharsets.UTF_8)))
+					.then(Mono.fromRunnable(() -> {
+						HttpHeaders headers = exchange.getResponse().getHeaders();
+						headers.add("X-Upstream-Attempt", String.valueOf(attempt));
+						exchange.getAttributes().put(CLIENT_RESPONSE_HEADER_NAMES, Set.of("X-Upstream-Attempt"));
+						exchange.getResponse().setStatusCode(statuses[Math.min(attempt, statuses.length) - 1]);
+					}));
+		}
+	}
+}
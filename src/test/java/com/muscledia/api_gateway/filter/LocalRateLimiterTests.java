@@ -0,0 +1,82 @@
+package com.muscledia.api_gateway.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.DefaultListableBeanFactory;
+import org.springframework.cloud.gateway.event.FilterArgsEvent;
+import org.springframework.cloud.gateway.filter.ratelimit.RateLimiter.Response;
+import org.springframework.cloud.gateway.support.ConfigurationService;
+import org.springframework.core.convert.support.DefaultConversionService;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class LocalRateLimiterTests {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	private final LocalRateLimiter limiter = new LocalRateLimiter(null, registry,
+			1000, Duration.ofMinutes(10));
+
+	@Test
+	void allowsBurstThenRejectsWithRetryAfter() {
+		int burst = new LocalRateLimiter.Config().getBurstCapacity();
+		for (int i = 0; i < burst; i++) {
+			assertThat(limiter.isAllowed("auth-public", "ip:10.0.0.1").block().isAllowed()).isTrue();
+		}
+
+		Response rejected = limiter.isAllowed("auth-public", "ip:10.0.0.1").block();
+
+		assertThat(rejected.isAllowed()).isFalse();
+		assertThat(rejected.getHeaders()).containsEntry(LocalRateLimiter.RETRY_AFTER_HEADER, "1");
+		assertThat(registry.get("gateway.ratelimit.rejected").tag("route", "auth-public").counter().count())
+				.isEqualTo(1);
+	}
+
+	@Test
+	void reportsRemainingTokens() {
+		Response first = limiter.isAllowed("workout-public", "user:42").block();
+
+		int burst = new LocalRateLimiter.Config().getBurstCapacity();
+		assertThat(first.getHeaders()).containsEntry(LocalRateLimiter.REMAINING_HEADER, Integer.toString(burst - 1));
+	}
+
+	@Test
+	void keysAndRoutesHaveSeparateBuckets() {
+		int burst = new LocalRateLimiter.Config().getBurstCapacity();
+		for (int i = 0; i < burst; i++) {
+			limiter.isAllowed("auth-public", "ip:10.0.0.1").block();
+		}
+
+		assertThat(limiter.isAllowed("auth-public", "ip:10.0.0.2").block().isAllowed()).isTrue();
+		assertThat(limiter.isAllowed("workout-public", "ip:10.0.0.1").block().isAllowed()).isTrue();
+	}
+
+	@Test
+	void rejectsRouteArgsTheBucketCannotWorkWith() {
+		LocalRateLimiter configured = new LocalRateLimiter(
+				new ConfigurationService(new DefaultListableBeanFactory(), DefaultConversionService::getSharedInstance,
+						() -> null),
+				registry, 1000, Duration.ofMinutes(10));
+
+		assertThatIllegalArgumentException()
+				.isThrownBy(() -> configured.onApplicationEvent(args("ai-public",
+						Map.of("local-rate-limiter.replenish-rate", "0"))))
+				.withMessageContaining("replenish-rate");
+		assertThatIllegalArgumentException()
+				.isThrownBy(() -> configured.onApplicationEvent(args("ai-public",
+						Map.of("local-rate-limiter.burst-capacity", "2", "local-rate-limiter.requested-tokens", "3"))))
+				.withMessageContaining("requested-tokens");
+
+		configured.onApplicationEvent(args("auth-public",
+				Map.of("local-rate-limiter.replenish-rate", "5", "local-rate-limiter.burst-capacity", "10")));
+		assertThat(configured.getConfig().get("auth-public").getBurstCapacity()).isEqualTo(10);
+	}
+
+	private static FilterArgsEvent args(String routeId, Map<String, Object> args) {
+		return new FilterArgsEvent(new Object(), routeId, args);
+	}
+}
@@ -0,0 +1,61 @@
+package com.muscledia.api_gateway.filter;
+
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.CLIENT_RESPONSE_CONN_ATTR;
+
+/**
+ * Stub upstream on a local port, with a chain that calls it the way the routing filter does:
+ * status and headers are set on the exchange's response and the connection is left in
+ * {@code CLIENT_RESPONSE_CONN_ATTR} for the body to be written from.
+ */
+final class NettyUpstream implements GatewayFilterChain, AutoCloseable {
+
+	final AtomicInteger calls = new AtomicInteger();
+
+	private final DisposableServer server;
+
+	private final HttpClient client;
+
+	NettyUpstream(int status, String cacheControl, String body) {
+		this.server = HttpServer.create().port(0)
+				.handle((request, response) -> {
+					calls.incrementAndGet();
+					return response.status(status)
+							.header(HttpHeaders.CACHE_CONTROL, cacheControl)
+							.sendString(Mono.just(body));
+				})
+				.bindNow();
+		this.client = HttpClient.create(ConnectionProvider.newConnection()).port(server.port());
+	}
+
+	@Override
+	public Mono<Void> filter(ServerWebExchange exchange) {
+		return client.get()
+				.uri(exchange.getRequest().getURI().getRawPath())
+				.responseConnection((upstream, connection) -> {
+					ServerHttpResponse response = exchange.getResponse();
+					response.setStatusCode(HttpStatusCode.valueOf(upstream.status().code()));
+					upstream.responseHeaders().forEach(header -> response.getHeaders().add(header.getKey(), header.getValue()));
+					exchange.getAttributes().put(CLIENT_RESPONSE_CONN_ATTR, connection);
+					return Mono.just(upstream);
+				})
+				.then();
+	}
+
+	@Override
+	public void close() {
+		server.disposeNow();
+	}
+}
@@ -0,0 +1,55 @@
+package com.muscledia.api_gateway.filter;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class PathPatternTrieTests {
+
+	private final PathPatternTrie defaults = new AuthenticationFilter.Config().getPublicPathMatcher();
+
+	@Test
+	void matchesWholeSegmentsOnly() {
+		assertThat(defaults.matches("/api/v1/workout-plans/public/7", HttpMethod.GET)).isTrue();
+		assertThat(defaults.matches("/api/v1/workouts/publicity", HttpMethod.GET)).isFalse();
+		assertThat(defaults.matches("/api/users/login", HttpMethod.POST)).isTrue();
+		assertThat(defaults.matches("/api/users/login/history", HttpMethod.GET)).isFalse();
+	}
+
+	@Test
+	void doubleWildcardMatchesZeroOrMoreSegments() {
+		assertThat(defaults.matches("/actuator", HttpMethod.GET)).isTrue();
+		assertThat(defaults.matches("/actuator/health/liveness", HttpMethod.GET)).isTrue();
+		assertThat(defaults.matches("/v3/api-docs/swagger-config", HttpMethod.GET)).isTrue();
+	}
+
+	@Test
+	void singleWildcardsAndPrefixes() {
+		PathPatternTrie trie = PathPatternTrie.compile(List.of("/api/{version}/ping", "/swagger*/index.html"));
+
+		assertThat(trie.matches("/api/v2/ping", null)).isTrue();
+		assertThat(trie.matches("/api/v2/extra/ping", null)).isFalse();
+		assertThat(trie.matches("/swagger-ui/index.html", null)).isTrue();
+		assertThat(trie.matches("/docs/index.html", null)).isFalse();
+	}
+
+	@Test
+	void methodRestrictedPatterns() {
+		PathPatternTrie trie = PathPatternTrie.compile(List.of("GET,HEAD /api/v1/exercises/**", "/api/v1/exercises/search"));
+
+		assertThat(trie.matches("/api/v1/exercises/12", HttpMethod.GET)).isTrue();
+		assertThat(trie.matches("/api/v1/exercises/12", HttpMethod.DELETE)).isFalse();
+		assertThat(trie.matches("/api/v1/exercises/12", null)).isFalse();
+		assertThat(trie.matches("/api/v1/exercises/search", HttpMethod.POST)).isTrue();
+	}
+
+	@Test
+	void rejectsRelativePatterns() {
+		assertThatIllegalArgumentException().isThrownBy(() -> PathPatternTrie.compile(List.of("login")));
+	}
+
+}
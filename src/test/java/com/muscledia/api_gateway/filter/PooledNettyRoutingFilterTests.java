@@ -0,0 +1,102 @@
+package com.muscledia.api_gateway.filter;
+
+import com.muscledia.api_gateway.config.RouteHttpClientFactory;
+import com.muscledia.api_gateway.config.UpstreamPoolProperties;
+import io.netty.channel.ChannelOption;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.boot.ssl.DefaultSslBundleRegistry;
+import org.springframework.cloud.gateway.config.HttpClientCustomizer;
+import org.springframework.cloud.gateway.config.HttpClientProperties;
+import org.springframework.cloud.gateway.config.HttpClientSslConfigurer;
+import org.springframework.cloud.gateway.filter.headers.HttpHeadersFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.ResolvableType;
+import org.springframework.util.unit.DataSize;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.cloud.gateway.support.RouteMetadataUtils.CONNECT_TIMEOUT_ATTR;
+
+class PooledNettyRoutingFilterTests {
+
+	private final ConnectionProvider sharedProvider = ConnectionProvider.create("shared", 10);
+	private final HttpClientProperties properties = new HttpClientProperties();
+	private final PooledNettyRoutingFilter filter;
+
+	PooledNettyRoutingFilterTests() {
+		properties.setConnectTimeout(1000);
+		properties.setMaxHeaderSize(DataSize.ofKilobytes(32));
+		properties.setMaxInitialLineLength(DataSize.ofKilobytes(8));
+		ServerProperties serverProperties = new ServerProperties();
+		HttpClientSslConfigurer sslConfigurer = new HttpClientSslConfigurer(properties.getSsl(), serverProperties,
+				new DefaultSslBundleRegistry());
+		List<HttpClientCustomizer> customizers = List.of(client -> client.responseTimeout(Duration.ofSeconds(7)));
+
+		UpstreamPoolProperties.Pool pool = new UpstreamPoolProperties.Pool();
+		pool.setMaxConnections(7);
+		UpstreamPoolProperties upstreamPools = new UpstreamPoolProperties();
+		upstreamPools.getRoutes().put("ai-public", pool);
+
+		filter = new PooledNettyRoutingFilter(HttpClient.create(sharedProvider), new StaticListableBeanFactory()
+				.getBeanProvider(ResolvableType.forClassWithGenerics(List.class, HttpHeadersFilter.class)),
+				properties, upstreamPools,
+				provider -> new RouteHttpClientFactory(properties, serverProperties, sslConfigurer, customizers, provider)
+						.create());
+	}
+
+	@AfterEach
+	void disposePools() throws Exception {
+		filter.destroy();
+		sharedProvider.dispose();
+	}
+
+	@Test
+	void selectsTheRoutesOwnPoolByRouteId() {
+		HttpClient client = filter.getHttpClient(route("ai-public", Map.of()), null);
+
+		ConnectionProvider provider = client.configuration().connectionProvider();
+		assertThat(provider.name()).isEqualTo("upstream-ai-public");
+		assertThat(provider.maxConnections()).isEqualTo(7);
+		assertThat(filter.getHttpClient(route("ai-public", Map.of()), null).configuration().connectionProvider())
+				.isSameAs(provider);
+	}
+
+	@Test
+	void fallsBackToTheSharedClientForRoutesWithoutAPool() {
+		HttpClient client = filter.getHttpClient(route("workout-route", Map.of()), null);
+
+		assertThat(client.configuration().connectionProvider()).isSameAs(sharedProvider);
+	}
+
+	@Test
+	void configuresRouteClientsLikeTheSharedOne() {
+		HttpClient client = filter.getHttpClient(route("ai-public", Map.of()), null);
+
+		assertThat(client.configuration().options().get(ChannelOption.CONNECT_TIMEOUT_MILLIS)).isEqualTo(1000);
+		assertThat(client.configuration().decoder().maxHeaderSize()).isEqualTo(32 * 1024);
+		assertThat(client.configuration().decoder().maxInitialLineLength()).isEqualTo(8 * 1024);
+		assertThat(client.configuration().responseTimeout()).isEqualTo(Duration.ofSeconds(7));
+	}
+
+	@Test
+	void connectTimeoutMetadataOverridesThePoolDefault() {
+		HttpClient pooled = filter.getHttpClient(route("ai-public", Map.of(CONNECT_TIMEOUT_ATTR, 250)), null);
+		HttpClient shared = filter.getHttpClient(route("workout-route", Map.of(CONNECT_TIMEOUT_ATTR, "300")), null);
+
+		assertThat(pooled.configuration().options().get(ChannelOption.CONNECT_TIMEOUT_MILLIS)).isEqualTo(250);
+		assertThat(pooled.configuration().connectionProvider().name()).isEqualTo("upstream-ai-public");
+		assertThat(shared.configuration().options().get(ChannelOption.CONNECT_TIMEOUT_MILLIS)).isEqualTo(300);
+	}
+
+	private static Route route(String id, Map<String, Object> metadata) {
+		return Route.async().id(id).uri("http://localhost").predicate(exchange -> true).metadata(metadata).build();
+	}
+}
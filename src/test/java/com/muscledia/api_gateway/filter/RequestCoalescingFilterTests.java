@@ -0,0 +1,240 @@
+package com.muscledia.api_gateway.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.netty.Connection;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.CLIENT_RESPONSE_CONN_ATTR;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.GATEWAY_ROUTE_ATTR;
+
+class RequestCoalescingFilterTests {
+
+	private static final String BODY = "{\"level\":7,\"points\":1200}";
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final RequestCoalescingFilter factory = new RequestCoalescingFilter(registry,
+			new NettyWriteResponseFilter(List.of(MediaType.TEXT_EVENT_STREAM)));
+	private final GatewayFilter filter = factory.apply(new RequestCoalescingFilter.Config());
+
+	@Test
+	void answersIdenticalConcurrentGetsWithOneUpstreamCall() throws Exception {
+		Upstream upstream = new Upstream();
+		List<MockServerWebExchange> exchanges = new ArrayList<>();
+		List<CompletableFuture<Void>> responses = new ArrayList<>();
+		for (int i = 0; i < 5; i++) {
+			MockServerWebExchange exchange = get("Bearer user-1", MediaType.APPLICATION_JSON_VALUE);
+			exchanges.add(exchange);
+			responses.add(filter.filter(exchange, upstream).toFuture());
+		}
+
+		upstream.release();
+		await(responses);
+
+		assertThat(upstream.calls).hasValue(1);
+		for (MockServerWebExchange exchange : exchanges) {
+			assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+			assertThat(exchange.getResponse().getBodyAsString().block()).isEqualTo(BODY + "#1");
+		}
+		assertThat(registry.get("gateway.upstream.coalesced").tag("route", "gamification-route").counter().count())
+				.isEqualTo(4);
+	}
+
+	@Test
+	void sharesBodiesWrittenFromTheUpstreamConnection() throws Exception {
+		try (NettyUpstream upstream = new NettyUpstream(200, "no-cache", BODY)) {
+			Sinks.Empty<Void> gate = Sinks.empty();
+			MockServerWebExchange leader = get("Bearer user-1", null);
+			MockServerWebExchange follower = get("Bearer user-1", null);
+			List<CompletableFuture<Void>> responses = List.of(
+					filter.filter(leader, exchange -> gate.asMono().then(upstream.filter(exchange))).toFuture(),
+					filter.filter(follower, upstream).toFuture());
+
+			gate.tryEmitEmpty();
+			await(responses);
+
+			assertThat(upstream.calls).hasValue(1);
+			assertThat(leader.getAttributes()).doesNotContainKey(CLIENT_RESPONSE_CONN_ATTR);
+			assertThat(leader.getResponse().getBodyAsString().block()).isEqualTo(BODY);
+			assertThat(follower.getResponse().getBodyAsString().block()).isEqualTo(BODY);
+		}
+	}
+
+	@Test
+	void leavesErrorResponsesToTheGatewayWriter() throws Exception {
+		try (NettyUpstream upstream = new NettyUpstream(503, "no-cache", "busy")) {
+			Sinks.Empty<Void> gate = Sinks.empty();
+			MockServerWebExchange leader = get("Bearer user-1", null);
+			MockServerWebExchange follower = get("Bearer user-1", null);
+			List<CompletableFuture<Void>> responses = List.of(
+					filter.filter(leader, exchange -> gate.asMono().then(upstream.filter(exchange))).toFuture(),
+					filter.filter(follower, upstream).toFuture());
+
+			gate.tryEmitEmpty();
+			await(responses);
+
+			// Nothing is committed, so the circuit breaker can still fall back, and the
+			// follower went upstream itself
+			assertThat(upstream.calls).hasValue(2);
+			for (MockServerWebExchange exchange : List.of(leader, follower)) {
+				assertThat(exchange.getResponse().isCommitted()).isFalse();
+				Connection connection = exchange.getAttribute(CLIENT_RESPONSE_CONN_ATTR);
+				assertThat(connection).isNotNull();
+				connection.dispose();
+			}
+		}
+	}
+
+	@Test
+	void keepsRequestsWithDifferentAuthorizationOrAcceptApart() throws Exception {
+		Upstream upstream = new Upstream();
+		MockServerWebExchange first = get("Bearer user-1", MediaType.APPLICATION_JSON_VALUE);
+		MockServerWebExchange otherUser = get("Bearer user-2", MediaType.APPLICATION_JSON_VALUE);
+		MockServerWebExchange otherAccept = get("Bearer user-1", MediaType.TEXT_PLAIN_VALUE);
+		List<CompletableFuture<Void>> responses = List.of(filter.filter(first, upstream).toFuture(),
+				filter.filter(otherUser, upstream).toFuture(), filter.filter(otherAccept, upstream).toFuture());
+
+		upstream.release();
+		await(responses);
+
+		assertThat(upstream.calls).hasValue(3);
+		assertThat(otherUser.getResponse().getBodyAsString().block()).isEqualTo(BODY + "#2");
+		assertThat(otherAccept.getResponse().getBodyAsString().block()).isEqualTo(BODY + "#3");
+	}
+
+	@Test
+	void followersForwardThemselvesWhenTheLeaderFails() throws Exception {
+		Upstream upstream = new Upstream();
+		upstream.failFirstCall = true;
+		CompletableFuture<Void> leader = filter.filter(get("Bearer user-1", null), upstream).toFuture();
+		MockServerWebExchange follower = get("Bearer user-1", null);
+		CompletableFuture<Void> followerResponse = filter.filter(follower, upstream).toFuture();
+
+		upstream.release();
+
+		assertThat(leader).failsWithin(Duration.ofSeconds(5)).withThrowableThat().withCauseInstanceOf(IOException.class);
+		followerResponse.get(5, TimeUnit.SECONDS);
+		assertThat(upstream.calls).hasValue(2);
+		assertThat(follower.getResponse().getBodyAsString().block()).isEqualTo(BODY + "#2");
+	}
+
+	@Test
+	void followersForwardThemselvesWhenTheLeaderIsCancelled() throws Exception {
+		Upstream upstream = new Upstream();
+		CompletableFuture<Void> leader = filter.filter(get("Bearer user-1", null), upstream).toFuture();
+		MockServerWebExchange follower = get("Bearer user-1", null);
+		CompletableFuture<Void> followerResponse = filter.filter(follower, upstream).toFuture();
+
+		leader.cancel(true);
+
+		followerResponse.get(5, TimeUnit.SECONDS);
+		assertThat(upstream.calls).hasValue(2);
+		assertThat(follower.getResponse().getBodyAsString().block()).isEqualTo(BODY + "#2");
+	}
+
+	@Test
+	void doesNotShareBodiesAboveTheLimit() throws Exception {
+		RequestCoalescingFilter.Config config = new RequestCoalescingFilter.Config();
+		config.setMaxBodySize(DataSize.ofBytes(BODY.length() / 2));
+		GatewayFilter limited = factory.apply(config);
+		Upstream upstream = new Upstream();
+		List<CompletableFuture<Void>> responses = new ArrayList<>();
+		for (int i = 0; i < 3; i++) {
+			responses.add(limited.filter(get("Bearer user-1", null), upstream).toFuture());
+		}
+
+		upstream.release();
+		await(responses);
+
+		assertThat(upstream.calls).hasValue(3);
+		assertThat(registry.find("gateway.upstream.coalesced").counter()).isNull();
+	}
+
+	@Test
+	void forwardsOtherMethods() {
+		Upstream upstream = new Upstream();
+		upstream.release();
+		for (int i = 0; i < 2; i++) {
+			MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.post("/api/gamification/me"));
+			exchange.getAttributes().put(GATEWAY_ROUTE_ATTR, route());
+			filter.filter(exchange, upstream).block(Duration.ofSeconds(5));
+		}
+
+		assertThat(upstream.calls).hasValue(2);
+	}
+
+	private static void await(List<CompletableFuture<Void>> responses) throws Exception {
+		CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+	}
+
+	private static MockServerWebExchange get(String authorization, String accept) {
+		MockServerHttpRequest.BaseBuilder<?> request = MockServerHttpRequest.get("/api/gamification/me?view=full")
+				.header(HttpHeaders.AUTHORIZATION, authorization);
+		if (accept != null) {
+			request.header(HttpHeaders.ACCEPT, accept);
+		}
+		MockServerWebExchange exchange = MockServerWebExchange.from(request);
+		exchange.getAttributes().put(GATEWAY_ROUTE_ATTR, route());
+		return exchange;
+	}
+
+	private static Route route() {
+		return Route.async().id("gamification-route").uri("http://localhost").predicate(e -> true).build();
+	}
+
+	/**
+	 * Holds the first call until {@link #release()}, so the others arrive while it is in
+	 * flight. Each body ends with the number of the call that produced it.
+	 */
+	private static final class Upstream implements GatewayFilterChain {
+		private final AtomicInteger calls = new AtomicInteger();
+		private final Sinks.Empty<Void> gate = Sinks.empty();
+		private boolean failFirstCall;
+
+		void release() {
+			gate.tryEmitEmpty();
+		}
+
+		@Override
+		public Mono<Void> filter(ServerWebExchange exchange) {
+			int call = calls.incrementAndGet();
+			Mono<Void> wait = call == 1 ? gate.asMono() : Mono.empty();
+			if (call == 1 && failFirstCall) {
+				return wait.then(Mono.error(new IOException("Connection reset by upstream")));
+			}
+			return wait.then(Mono.defer(() -> {
+				ServerHttpResponse response = exchange.getResponse();
+				response.setStatusCode(HttpStatus.OK);
+				response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+				// Two chunks and no Content-Length, as a streamed upstream response
+				return response.writeWith(Flux.just(BODY, "#" + call).map(chunk ->
+						DefaultDataBufferFactory.sharedInstance.wrap(chunk.getBytes(StandardCharsets.UTF_8))));
+			}));
+		}
+	}
+}
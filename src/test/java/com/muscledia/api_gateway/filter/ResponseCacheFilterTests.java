@@ -0,0 +1,303 @@
+package com.muscledia.api_gateway.filter;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.netty.Connection;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.cloud.gateway.support.ServerWebExchangeUtils.CLIENT_RESPONSE_CONN_ATTR;
+
+class ResponseCacheFilterTests {
+
+	private final AtomicInteger upstreamCalls = new AtomicInteger();
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	private final ResponseCacheFilter factory = new ResponseCacheFilter(
+			new ResponseCacheStore(DataSize.ofMegabytes(1), registry),
+			registry,
+			new NettyWriteResponseFilter(List.of(MediaType.TEXT_EVENT_STREAM)));
+
+	private final GatewayFilter filter = factory.apply(config());
+
+	@Test
+	void servesRepeatedReadsFromCache() {
+		MockServerWebExchange first = get("/api/v1/exercises?page=1");
+		filter.filter(first, upstream("max-age=60")).block();
+		MockServerWebExchange second = get("/api/v1/exercises?page=1");
+		filter.filter(second, upstream("max-age=60")).block();
+
+		assertThat(upstreamCalls).hasValue(1);
+		assertThat(second.getResponse().getHeaders().getFirst(ResponseCacheFilter.CACHE_STATUS_HEADER)).isEqualTo("HIT");
+		assertThat(second.getResponse().getBodyAsString().block()).isEqualTo("[\"squat\"]");
+	}
+
+	@Test
+	void storesBodiesWrittenFromTheUpstreamConnection() {
+		try (NettyUpstream upstream = new NettyUpstream(200, "max-age=60", "[\"lunge\"]")) {
+			MockServerWebExchange miss = get("/api/v1/exercises");
+			filter.filter(miss, upstream).block(Duration.ofSeconds(5));
+			MockServerWebExchange hit = get("/api/v1/exercises");
+			filter.filter(hit, upstream).block(Duration.ofSeconds(5));
+
+			// Written here, so the gateway's own writer has nothing left to write
+			assertThat(miss.getAttributes()).doesNotContainKey(CLIENT_RESPONSE_CONN_ATTR);
+			assertThat(miss.getResponse().getBodyAsString().block()).isEqualTo("[\"lunge\"]");
+			assertThat(hit.getResponse().getHeaders().getFirst(ResponseCacheFilter.CACHE_STATUS_HEADER)).isEqualTo("HIT");
+			assertThat(hit.getResponse().getBodyAsString().block()).isEqualTo("[\"lunge\"]");
+			assertThat(upstream.calls).hasValue(1);
+		}
+	}
+
+	@Test
+	void leavesUncacheableStatusesToTheGatewayWriter() {
+		try (NettyUpstream upstream = new NettyUpstream(503, "max-age=60", "busy")) {
+			MockServerWebExchange exchange = get("/api/v1/exercises");
+			filter.filter(exchange, upstream).block(Duration.ofSeconds(5));
+
+			// Nothing is committed yet, so a circuit breaker ahead of the filter can still fall back
+			assertThat(exchange.getResponse().isCommitted()).isFalse();
+			assertThat(exchange.getResponse().getHeaders().getFirst(ResponseCacheFilter.CACHE_STATUS_HEADER))
+					.isEqualTo("MISS");
+			Connection connection = exchange.getAttribute(CLIENT_RESPONSE_CONN_ATTR);
+			assertThat(connection).isNotNull();
+			connection.dispose();
+		}
+	}
+
+	@Test
+	void answersMatchingIfNoneMatchWithNotModified() {
+		filter.filter(get("/api/v1/exercises"), upstream("max-age=60")).block();
+		// The ETag is computed once the body has been seen, so the first cached answer carries it
+		MockServerWebExchange hit = get("/api/v1/exercises");
+		filter.filter(hit, upstream("max-age=60")).block();
+		String etag = hit.getResponse().getHeaders().getETag();
+
+		MockServerWebExchange conditional = MockServerWebExchange.from(
+				MockServerHttpRequest.get("/api/v1/exercises").header(HttpHeaders.IF_NONE_MATCH, etag));
+		filter.filter(conditional, upstream("max-age=60")).block();
+
+		assertThat(etag).startsWith("W/\"");
+		assertThat(conditional.getResponse().getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+		assertThat(upstreamCalls).hasValue(1);
+	}
+
+	@Test
+	void doesNotStoreNoStoreResponses() {
+		filter.filter(get("/api/v1/exercises"), upstream("no-store")).block();
+		filter.filter(get("/api/v1/exercises"), upstream("no-store")).block();
+
+		assertThat(upstreamCalls).hasValue(2);
+	}
+
+	@Test
+	void passesThroughPathsOutsideTheConfiguredPatterns() {
+		filter.filter(get("/api/v1/workouts/42"), upstream("max-age=60")).block();
+		filter.filter(get("/api/v1/workouts/42"), upstream("max-age=60")).block();
+
+		assertThat(upstreamCalls).hasValue(2);
+	}
+
+	@Test
+	void collapsesConcurrentMissesIntoOneUpstreamCall() throws Exception {
+		Sinks.Empty<Void> gate = Sinks.empty();
+		List<MockServerWebExchange> exchanges = new ArrayList<>();
+		List<CompletableFuture<Void>> responses = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			MockServerWebExchange exchange = get("/api/v1/exercises");
+			exchanges.add(exchange);
+			responses.add(filter.filter(exchange, gated(gate, upstream("max-age=60"))).toFuture());
+		}
+
+		gate.tryEmitEmpty();
+		await(responses);
+
+		assertThat(upstreamCalls).hasValue(1);
+		assertThat(exchanges.get(0).getResponse().getHeaders().getFirst(ResponseCacheFilter.CACHE_STATUS_HEADER))
+				.isEqualTo("MISS");
+		for (MockServerWebExchange follower : exchanges.subList(1, 4)) {
+			assertThat(follower.getResponse().getHeaders().getFirst(ResponseCacheFilter.CACHE_STATUS_HEADER))
+					.isEqualTo("COLLAPSED");
+			assertThat(follower.getResponse().getBodyAsString().block()).isEqualTo("[\"squat\"]");
+		}
+	}
+
+	@Test
+	void servesStaleCopiesAndRevalidatesInTheBackground() throws Exception {
+		GatewayFilterChain versioned = exchange -> {
+			upstreamCalls.incrementAndGet();
+			ServerHttpResponse response = exchange.getResponse();
+			response.getHeaders().set(HttpHeaders.CACHE_CONTROL, "max-age=1, stale-while-revalidate=30");
+			response.getHeaders().setETag("\"v1\"");
+			if ("\"v1\"".equals(exchange.getRequest().getHeaders().getIfNoneMatch().stream().findFirst().orElse(null))) {
+				response.setStatusCode(HttpStatus.NOT_MODIFIED);
+				return response.writeWith(Flux.empty());
+			}
+			response.setStatusCode(HttpStatus.OK);
+			return response.writeWith(Mono.just(response.bufferFactory().wrap("[\"v1\"]".getBytes(StandardCharsets.UTF_8))));
+		};
+		filter.filter(get("/api/v1/exercises"), versioned).block();
+		Thread.sleep(1100);
+
+		// Neither request waits for the revalidation, which is still held at the gate
+		Sinks.Empty<Void> gate = Sinks.empty();
+		MockServerWebExchange first = get("/api/v1/exercises");
+		filter.filter(first, gated(gate, versioned)).block(Duration.ofSeconds(5));
+		MockServerWebExchange concurrent = get("/api/v1/exercises");
+		filter.filter(concurrent, versioned).block(Duration.ofSeconds(5));
+
+		assertThat(upstreamCalls).hasValue(1);
+		for (MockServerWebExchange stale : List.of(first, concurrent)) {
+			assertThat(stale.getResponse().getHeaders().getFirst(ResponseCacheFilter.CACHE_STATUS_HEADER))
+					.isEqualTo("STALE");
+			assertThat(stale.getResponse().getBodyAsString().block()).isEqualTo("[\"v1\"]");
+		}
+
+		gate.tryEmitEmpty();
+		MockServerWebExchange afterwards = awaitHit("/api/v1/exercises", versioned);
+		assertThat(afterwards.getResponse().getBodyAsString().block()).isEqualTo("[\"v1\"]");
+		assertThat(upstreamCalls).hasValue(2);
+		assertThat(registry.get("gateway.response.cache.requests").tag("result", "REVALIDATED").counter().count())
+				.isEqualTo(1);
+	}
+
+	@Test
+	void keepsVariantsApartByVaryHeaders() throws Exception {
+		GatewayFilterChain localized = exchange -> {
+			upstreamCalls.incrementAndGet();
+			ServerHttpResponse response = exchange.getResponse();
+			response.setStatusCode(HttpStatus.OK);
+			response.getHeaders().set(HttpHeaders.CACHE_CONTROL, "max-age=60");
+			response.getHeaders().setVary(List.of(HttpHeaders.ACCEPT_LANGUAGE));
+			String language = exchange.getRequest().getHeaders().getFirst(HttpHeaders.ACCEPT_LANGUAGE);
+			return response.writeWith(Mono.just(response.bufferFactory().wrap(language.getBytes(StandardCharsets.UTF_8))));
+		};
+		filter.filter(get("/api/v1/exercises", HttpHeaders.ACCEPT_LANGUAGE, "en"), localized).block();
+		MockServerWebExchange english = get("/api/v1/exercises", HttpHeaders.ACCEPT_LANGUAGE, "en");
+		filter.filter(english, localized).block();
+		assertThat(english.getResponse().getHeaders().getFirst(ResponseCacheFilter.CACHE_STATUS_HEADER)).isEqualTo("HIT");
+
+		MockServerWebExchange german = get("/api/v1/exercises", HttpHeaders.ACCEPT_LANGUAGE, "de");
+		filter.filter(german, localized).block();
+		assertThat(german.getResponse().getBodyAsString().block()).isEqualTo("de");
+		assertThat(upstreamCalls).hasValue(2);
+
+		// A concurrent miss for another variant does not take the leader's response
+		Sinks.Empty<Void> gate = Sinks.empty();
+		MockServerWebExchange leader = get("/api/v1/exercises?page=2", HttpHeaders.ACCEPT_LANGUAGE, "en");
+		MockServerWebExchange follower = get("/api/v1/exercises?page=2", HttpHeaders.ACCEPT_LANGUAGE, "fr");
+		List<CompletableFuture<Void>> responses = List.of(filter.filter(leader, gated(gate, localized)).toFuture(),
+				filter.filter(follower, localized).toFuture());
+		gate.tryEmitEmpty();
+		await(responses);
+		assertThat(leader.getResponse().getBodyAsString().block()).isEqualTo("en");
+		assertThat(follower.getResponse().getBodyAsString().block()).isEqualTo("fr");
+		assertThat(upstreamCalls).hasValue(4);
+	}
+
+	@Test
+	void servesAuthorizedRequestsOnlyFromSharedResponses() {
+		filter.filter(get("/api/v1/exercises"), upstream("max-age=60")).block();
+		MockServerWebExchange authorized = get("/api/v1/exercises", HttpHeaders.AUTHORIZATION, "Bearer user-1");
+		filter.filter(authorized, upstream("max-age=60")).block();
+		assertThat(authorized.getResponse().getHeaders().getFirst(ResponseCacheFilter.CACHE_STATUS_HEADER))
+				.isEqualTo("MISS");
+		assertThat(upstreamCalls).hasValue(2);
+
+		filter.filter(get("/api/v1/exercises/public"), upstream("public, max-age=60")).block();
+		MockServerWebExchange publicHit = get("/api/v1/exercises/public", HttpHeaders.AUTHORIZATION, "Bearer user-1");
+		filter.filter(publicHit, upstream("public, max-age=60")).block();
+		assertThat(publicHit.getResponse().getHeaders().getFirst(ResponseCacheFilter.CACHE_STATUS_HEADER))
+				.isEqualTo("HIT");
+
+		filter.filter(get("/api/v1/exercises/shared", HttpHeaders.AUTHORIZATION, "Bearer user-1"),
+				upstream("s-maxage=60")).block();
+		MockServerWebExchange sharedHit = get("/api/v1/exercises/shared", HttpHeaders.AUTHORIZATION, "Bearer user-2");
+		filter.filter(sharedHit, upstream("s-maxage=60")).block();
+		assertThat(sharedHit.getResponse().getHeaders().getFirst(ResponseCacheFilter.CACHE_STATUS_HEADER))
+				.isEqualTo("HIT");
+		assertThat(upstreamCalls).hasValue(4);
+	}
+
+	@Test
+	void comparesEntityTagsWeakly() {
+		assertThat(ResponseCacheFilter.etagMatches("\"a\", W/\"b\"", "\"b\"")).isTrue();
+		assertThat(ResponseCacheFilter.etagMatches("*", "\"b\"")).isTrue();
+		assertThat(ResponseCacheFilter.etagMatches("\"c\"", "W/\"b\"")).isFalse();
+	}
+
+	private static ResponseCacheFilter.Config config() {
+		ResponseCacheFilter.Config config = new ResponseCacheFilter.Config();
+		config.setPaths(List.of("/api/v1/exercises/**"));
+		return config;
+	}
+
+	private static MockServerWebExchange get(String uri) {
+		return MockServerWebExchange.from(MockServerHttpRequest.get(uri));
+	}
+
+	private static MockServerWebExchange get(String uri, String header, String value) {
+		return MockServerWebExchange.from(MockServerHttpRequest.get(uri).header(header, value));
+	}
+
+	/**
+	 * Repeats the request until it is a cache hit, for background work to finish.
+	 */
+	private MockServerWebExchange awaitHit(String uri, GatewayFilterChain upstream) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (true) {
+			MockServerWebExchange exchange = get(uri);
+			filter.filter(exchange, upstream).block(Duration.ofSeconds(5));
+			String result = exchange.getResponse().getHeaders().getFirst(ResponseCacheFilter.CACHE_STATUS_HEADER);
+			if ("HIT".equals(result) || System.nanoTime() - deadline > 0) {
+				assertThat(result).isEqualTo("HIT");
+				return exchange;
+			}
+			Thread.sleep(10);
+		}
+	}
+
+	private static void await(List<CompletableFuture<Void>> responses) throws Exception {
+		CompletableFuture.allOf(responses.toArray(CompletableFuture[]::new)).get(5, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * Holds the upstream call until {@code gate} completes, so other requests arrive while
+	 * it is in flight.
+	 */
+	private static GatewayFilterChain gated(Sinks.Empty<Void> gate, GatewayFilterChain upstream) {
+		return exchange -> gate.asMono().then(Mono.defer(() -> upstream.filter(exchange)));
+	}
+
+	private GatewayFilterChain upstream(String cacheControl) {
+		return exchange -> {
+			upstreamCalls.incrementAndGet();
+			ServerHttpResponse response = exchange.getResponse();
+			response.setStatusCode(HttpStatus.OK);
+			response.getHeaders().set(HttpHeaders.CACHE_CONTROL, cacheControl);
+			byte[] body = "[\"squat\"]".getBytes(StandardCharsets.UTF_8);
+			return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+		};
+	}
+}
@@ -0,0 +1,98 @@
+package com.muscledia.api_gateway.filter;
+
+import com.muscledia.api_gateway.config.CompressionProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Flux;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseCompressionFilterTests {
+
+	private static final String CHUNK = "{\"exercise\":\"squat\",\"sets\":5,\"reps\":5},".repeat(100);
+
+	private final ResponseCompressionFilter filter = new ResponseCompressionFilter(new CompressionProperties(),
+			new SimpleMeterRegistry());
+
+	@Test
+	void compressesChunkedJsonForClientsThatAcceptGzip() throws Exception {
+		for (int i = 0; i < 2; i++) {
+			// The second round runs on an encoder returned to the pool
+			MockServerWebExchange exchange = get("/api/v1/workouts", "br;q=1.0, gzip;q=0.8");
+			filter.filter(exchange, upstream(MediaType.APPLICATION_JSON, null, CHUNK, CHUNK, CHUNK)).block();
+
+			HttpHeaders headers = exchange.getResponse().getHeaders();
+			assertThat(headers.getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+			assertThat(headers.getVary()).contains(HttpHeaders.ACCEPT_ENCODING);
+			assertThat(headers.getETag()).isEqualTo("W/\"v1\"");
+			byte[] body = body(exchange);
+			assertThat(body.length).isLessThan(CHUNK.length());
+			try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+				assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(CHUNK.repeat(3));
+			}
+		}
+	}
+
+	@Test
+	void leavesEncodedStreamedAndExcludedResponsesAlone() {
+		MockServerWebExchange encoded = get("/api/v1/workouts", "gzip");
+		filter.filter(encoded, upstream(MediaType.APPLICATION_JSON, "br", CHUNK)).block();
+		assertThat(encoded.getResponse().getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("br");
+
+		MockServerWebExchange events = get("/api/v1/workouts", "gzip");
+		filter.filter(events, upstream(MediaType.TEXT_EVENT_STREAM, null, CHUNK)).block();
+		assertThat(events.getResponse().getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isNull();
+
+		MockServerWebExchange ollama = get("/ollama/api/generate", "gzip");
+		filter.filter(ollama, upstream(MediaType.APPLICATION_JSON, null, CHUNK)).block();
+		assertThat(ollama.getResponse().getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isNull();
+		assertThat(ollama.getResponse().getBodyAsString().block()).isEqualTo(CHUNK);
+	}
+
+	@Test
+	void parsesAcceptEncoding() {
+		assertThat(ResponseCompressionFilter.acceptsGzip(List.of("deflate, GZIP"))).isTrue();
+		assertThat(ResponseCompressionFilter.acceptsGzip(List.of("*"))).isTrue();
+		assertThat(ResponseCompressionFilter.acceptsGzip(List.of("gzip;q=0, identity"))).isFalse();
+		assertThat(ResponseCompressionFilter.acceptsGzip(List.of("br"))).isFalse();
+		assertThat(ResponseCompressionFilter.acceptsGzip(List.of())).isFalse();
+	}
+
+	private static MockServerWebExchange get(String path, String acceptEncoding) {
+		return MockServerWebExchange.from(MockServerHttpRequest.get(path)
+				.header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding));
+	}
+
+	private static GatewayFilterChain upstream(MediaType contentType, String contentEncoding, String... chunks) {
+		return exchange -> {
+			HttpHeaders headers = exchange.getResponse().getHeaders();
+			headers.setContentType(contentType);
+			headers.setETag("\"v1\"");
+			if (contentEncoding != null) {
+				headers.set(HttpHeaders.CONTENT_ENCODING, contentEncoding);
+			}
+			return exchange.getResponse().writeWith(Flux.fromArray(chunks)
+					.map(chunk -> DefaultDataBufferFactory.sharedInstance.wrap(chunk.getBytes(StandardCharsets.UTF_8))));
+		};
+	}
+
+	private static byte[] body(MockServerWebExchange exchange) {
+		DataBuffer joined = DataBufferUtils.join(exchange.getResponse().getBody()).block();
+		byte[] bytes = new byte[joined.readableByteCount()];
+		joined.read(bytes);
+		return bytes;
+	}
+}
@@ -0,0 +1,47 @@
+package com.muscledia.api_gateway.filter;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SingleFlightTests {
+
+	private final SingleFlight<String, String> flight = new SingleFlight<>();
+
+	@Test
+	void followersReceiveTheLeadersResult() {
+		SingleFlight.Call<String, String> leader = flight.join("key");
+		SingleFlight.Call<String, String> follower = flight.join("key");
+
+		assertThat(leader.isLeader()).isTrue();
+		assertThat(follower.isLeader()).isFalse();
+		leader.complete("value");
+		assertThat(follower.result().block(Duration.ofSeconds(1))).isEqualTo("value");
+	}
+
+	@Test
+	void followersSeeAnEmptyResultWhenTheLeaderHasNothingToShare() {
+		SingleFlight.Call<String, String> leader = flight.join("key");
+		SingleFlight.Call<String, String> follower = flight.join("key");
+
+		leader.complete(null);
+
+		assertThat(follower.result().hasElement().block(Duration.ofSeconds(1))).isFalse();
+	}
+
+	@Test
+	void startsANewCallOnceTheLeaderCompletes() {
+		SingleFlight.Call<String, String> first = flight.join("key");
+		SingleFlight.Call<String, String> follower = flight.join("key");
+		follower.complete("ignored");
+		assertThat(flight.join("key").isLeader()).isFalse();
+
+		first.complete("first");
+
+		SingleFlight.Call<String, String> second = flight.join("key");
+		assertThat(second.isLeader()).isTrue();
+		assertThat(flight.join("other").isLeader()).isTrue();
+	}
+}
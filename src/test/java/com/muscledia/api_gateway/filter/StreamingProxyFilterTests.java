@@ -0,0 +1,132 @@
+package com.muscledia.api_gateway.filter;
+
+import com.muscledia.api_gateway.exception.ErrorResponseWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StreamingProxyFilterTests {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+	private final StreamingProxyFilter factory = new StreamingProxyFilter(registry,
+			new ErrorResponseWriter());
+
+	@Test
+	void rejectsStreamsBeyondTheLimitAndFreesSlotsOnCompletionOrCancel() {
+		GatewayFilter filter = factory.apply(config(2, Duration.ofMinutes(1), Duration.ofMinutes(1)));
+		Sinks.Empty<Void> firstDone = Sinks.empty();
+		filter.filter(exchange(), upstream -> firstDone.asMono()).subscribe();
+		Disposable second = filter.filter(exchange(), upstream -> Mono.never()).subscribe();
+
+		MockServerWebExchange rejected = exchange();
+		filter.filter(rejected, failIfCalled()).block(Duration.ofSeconds(5));
+
+		assertThat(rejected.getResponse().getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+		assertThat(rejected.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+		assertThat(registry.get("gateway.streams.rejected").tag("route", "ai-public").counter().count()).isEqualTo(1);
+
+		firstDone.tryEmitEmpty();
+		MockServerWebExchange afterCompletion = exchange();
+		filter.filter(afterCompletion, this::stream).block(Duration.ofSeconds(5));
+		assertThat(afterCompletion.getResponse().getStatusCode()).isEqualTo(HttpStatus.OK);
+
+		second.dispose();
+		Disposable third = filter.filter(exchange(), upstream -> Mono.never()).subscribe();
+		Disposable fourth = filter.filter(exchange(), upstream -> Mono.never()).subscribe();
+		assertThat(registry.get("gateway.streams.rejected").tag("route", "ai-public").counter().count()).isEqualTo(1);
+		third.dispose();
+		fourth.dispose();
+	}
+
+	@Test
+	void abortsWhenTheFirstChunkIsLate() {
+		GatewayFilter filter = factory.apply(config(4, Duration.ofMillis(50), Duration.ofMinutes(1)));
+
+		assertTimesOut(filter.filter(exchange(), exchange -> exchange.getResponse().writeWith(Flux.never())));
+		assertThat(registry.get("gateway.streams.timeouts").tag("route", "ai-public").counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	void abortsWhenTheUpstreamGoesIdleMidStream() {
+		GatewayFilter filter = factory.apply(config(4, Duration.ofMinutes(1), Duration.ofMillis(50)));
+
+		assertTimesOut(filter.filter(exchange(), exchange -> exchange.getResponse()
+				.writeWith(Flux.concat(Flux.just(chunk("data: 1\n\n")), Flux.never()))));
+		assertThat(registry.get("gateway.streams.timeouts").tag("route", "ai-public").counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	void keepsSlowButSteadyStreamsAlive() {
+		GatewayFilter filter = factory.apply(config(4, Duration.ofMillis(500), Duration.ofMillis(500)));
+		MockServerWebExchange exchange = exchange();
+
+		filter.filter(exchange, e -> e.getResponse().writeWith(Flux.interval(Duration.ofMillis(20)).take(10)
+				.map(i -> chunk("data: " + i + "\n\n")))).block(Duration.ofSeconds(5));
+
+		assertThat(exchange.getResponse().getBodyAsString().block()).startsWith("data: 0\n\n").endsWith("data: 9\n\n");
+		assertThat(registry.find("gateway.streams.timeouts").counter()).isNull();
+	}
+
+	@Test
+	void appliesTheTimeoutsToFlushedWritesToo() {
+		GatewayFilter filter = factory.apply(config(4, Duration.ofMinutes(1), Duration.ofMillis(50)));
+		MockServerWebExchange streamed = exchange();
+
+		filter.filter(streamed, e -> e.getResponse().writeAndFlushWith(Flux.just(
+				Flux.just(chunk("data: a\n\n")), Flux.just(chunk("data: b\n\n"))))).block(Duration.ofSeconds(5));
+		assertThat(streamed.getResponse().getBodyAsString().block()).isEqualTo("data: a\n\ndata: b\n\n");
+
+		assertTimesOut(filter.filter(exchange(), e -> e.getResponse().writeAndFlushWith(
+				Flux.concat(Flux.just(Flux.just(chunk("data: a\n\n"))), Flux.never()))));
+	}
+
+	private static void assertTimesOut(Mono<Void> stream) {
+		assertThat(stream.toFuture()).failsWithin(Duration.ofSeconds(5))
+				.withThrowableThat().withCauseInstanceOf(TimeoutException.class);
+	}
+
+	private Mono<Void> stream(ServerWebExchange exchange) {
+		exchange.getResponse().setStatusCode(HttpStatus.OK);
+		return exchange.getResponse().writeWith(Flux.just(chunk("data: done\n\n")));
+	}
+
+	private static GatewayFilterChain failIfCalled() {
+		return exchange -> Mono.error(new AssertionError("Rejected stream reached the upstream"));
+	}
+
+	private static DataBuffer chunk(String text) {
+		return DefaultDataBufferFactory.sharedInstance.wrap(text.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static MockServerWebExchange exchange() {
+		return MockServerWebExchange.from(MockServerHttpRequest.post("/ollama/api/generate"));
+	}
+
+	private static StreamingProxyFilter.Config config(int maxConcurrentStreams, Duration firstChunkTimeout,
+													  Duration idleTimeout) {
+		StreamingProxyFilter.Config config = new StreamingProxyFilter.Config();
+		config.setRouteId("ai-public");
+		config.setMaxConcurrentStreams(maxConcurrentStreams);
+		config.setFirstChunkTimeout(firstChunkTimeout);
+		config.setIdleTimeout(idleTimeout);
+		return config;
+	}
+}
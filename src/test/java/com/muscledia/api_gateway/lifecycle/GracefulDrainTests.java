@@ -0,0 +1,78 @@
+package com.muscledia.api_gateway.lifecycle;
+
+import com.netflix.appinfo.ApplicationInfoManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GracefulDrainTests {
+
+	private final GatewayStatus status = new GatewayStatus(
+			new StaticListableBeanFactory().getBeanProvider(ApplicationInfoManager.class));
+
+	private final InFlightRequests inFlight = new InFlightRequests();
+
+	@Test
+	void waitsForProxiedRequestsInFlight() {
+		Sinks.Empty<Void> upstream = Sinks.empty();
+		Disposable request = inFlight.filter(exchange(), exchange -> upstream.asMono()).subscribe();
+		assertThat(inFlight.get()).isEqualTo(1);
+		GracefulDrain drain = new GracefulDrain(status, inFlight, Duration.ofSeconds(10), Duration.ofSeconds(5));
+		drain.start();
+
+		Schedulers.parallel().schedule(upstream::tryEmitEmpty, 200, TimeUnit.MILLISECONDS);
+		long start = System.nanoTime();
+		drain.stop();
+
+		// No Eureka registration, so no deregistration delay; only the wait for the request
+		assertThat(Duration.ofNanos(System.nanoTime() - start)).isBetween(Duration.ofMillis(150), Duration.ofSeconds(5));
+		assertThat(inFlight.get()).isZero();
+		assertThat(status.getState()).isEqualTo(GatewayStatus.State.DRAINING);
+		assertThat(drain.isRunning()).isFalse();
+		request.dispose();
+	}
+
+	@Test
+	void stopsAsynchronouslyAndCallsBackOnceDrained() throws Exception {
+		Sinks.Empty<Void> upstream = Sinks.empty();
+		Disposable request = inFlight.filter(exchange(), exchange -> upstream.asMono()).subscribe();
+		GracefulDrain drain = new GracefulDrain(status, inFlight, Duration.ofSeconds(10), Duration.ofSeconds(5));
+		drain.start();
+		CountDownLatch stopped = new CountDownLatch(1);
+
+		drain.stop(stopped::countDown);
+
+		// The lifecycle thread is not held while the request is still in flight
+		assertThat(drain.isRunning()).isFalse();
+		assertThat(stopped.getCount()).isEqualTo(1);
+		upstream.tryEmitEmpty();
+		assertThat(stopped.await(5, TimeUnit.SECONDS)).isTrue();
+		request.dispose();
+	}
+
+	@Test
+	void givesUpAfterDrainTimeout() {
+		Disposable request = inFlight.filter(exchange(), exchange -> Mono.never()).subscribe();
+
+		new GracefulDrain(status, inFlight, Duration.ZERO, Duration.ofMillis(100)).stop();
+
+		assertThat(inFlight.get()).isEqualTo(1);
+		request.dispose();
+		assertThat(inFlight.get()).isZero();
+	}
+
+	private static MockServerWebExchange exchange() {
+		return MockServerWebExchange.from(MockServerHttpRequest.get("/api/v1/workouts"));
+	}
+}
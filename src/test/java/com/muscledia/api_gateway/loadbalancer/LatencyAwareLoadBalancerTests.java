@@ -0,0 +1,69 @@
+package com.muscledia.api_gateway.loadbalancer;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LatencyAwareLoadBalancerTests {
+
+	private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+	private final InstanceStats stats = new InstanceStats(registry, Duration.ofSeconds(10),
+			Duration.ofMillis(100), 3, Duration.ofSeconds(30));
+
+	private final LatencyAwareLoadBalancer balancer = new LatencyAwareLoadBalancer(null, "workout-service", stats);
+
+	private final ServiceInstance fast = instance("10.0.0.1");
+
+	private final ServiceInstance slow = instance("10.0.0.2");
+
+	@Test
+	void prefersTheFasterInstance() {
+		stats.get(slow).succeeded(Duration.ofMillis(400).toNanos());
+
+		for (int i = 0; i < 20; i++) {
+			assertThat(balancer.choose(List.of(fast, slow)).getServer()).isEqualTo(fast);
+		}
+	}
+
+	@Test
+	void prefersTheLessBusyInstanceAtEqualLatency() {
+		stats.get(fast).started();
+		stats.get(fast).started();
+
+		assertThat(balancer.choose(List.of(fast, slow)).getServer()).isEqualTo(slow);
+	}
+
+	@Test
+	void skipsInstancesEjectedAfterConsecutiveFailures() {
+		for (int i = 0; i < 3; i++) {
+			stats.get(fast).failed();
+		}
+
+		for (int i = 0; i < 20; i++) {
+			assertThat(balancer.choose(List.of(fast, slow)).getServer()).isEqualTo(slow);
+		}
+		assertThat(registry.get("gateway.loadbalancer.ejections").tag("service", "workout-service").counter().count())
+				.isEqualTo(1);
+	}
+
+	@Test
+	void usesEjectedInstancesWhenNoOtherIsLeft() {
+		for (int i = 0; i < 3; i++) {
+			stats.get(fast).failed();
+			stats.get(slow).failed();
+		}
+
+		assertThat(balancer.choose(List.of(fast, slow)).hasServer()).isTrue();
+	}
+
+	private static ServiceInstance instance(String host) {
+		return new DefaultServiceInstance(host + ":8082", "workout-service", host, 8082, false);
+	}
+}
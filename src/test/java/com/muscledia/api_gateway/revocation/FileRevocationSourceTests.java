@@ -0,0 +1,45 @@
+package com.muscledia.api_gateway.revocation;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileRevocationSourceTests {
+
+	@TempDir
+	Path dir;
+
+	@Test
+	void readsSnapshotThenOnlyAppendedLines() throws Exception {
+		Path file = Files.writeString(dir.resolve("revoked.txt"), "# jti exp\njti-1 1900000000\n");
+		FileRevocationSource source = new FileRevocationSource(file);
+
+		RevocationBatch first = source.fetch(null);
+		Files.writeString(file, "jti-2 1900000000\njti-3 19000", StandardOpenOption.APPEND);
+		RevocationBatch second = source.fetch(first.cursor());
+
+		assertThat(first.snapshot()).isTrue();
+		assertThat(first.revocations()).containsExactly(new Revocation("jti-1", 1900000000L));
+		assertThat(second.snapshot()).isFalse();
+		// The unterminated last line is read on the next refresh
+		assertThat(second.revocations()).containsExactly(new Revocation("jti-2", 1900000000L));
+	}
+
+	@Test
+	void rereadsRewrittenFileAsSnapshot() throws Exception {
+		Path file = Files.writeString(dir.resolve("revoked.txt"), "jti-1 1900000000\njti-2 1900000000\n");
+		FileRevocationSource source = new FileRevocationSource(file);
+		String cursor = source.fetch(null).cursor();
+
+		Files.writeString(file, "jti-3 1900000000\n");
+		RevocationBatch batch = source.fetch(cursor);
+
+		assertThat(batch.snapshot()).isTrue();
+		assertThat(batch.revocations()).containsExactly(new Revocation("jti-3", 1900000000L));
+	}
+}
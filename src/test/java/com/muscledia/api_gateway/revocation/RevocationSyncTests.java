@@ -0,0 +1,57 @@
+package com.muscledia.api_gateway.revocation;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RevocationSyncTests {
+
+	private final long inOneHour = Instant.now().plusSeconds(3600).getEpochSecond();
+
+	private final List<String> cursors = new ArrayList<>();
+
+	@Test
+	void continuesFromTheLastCursor() {
+		TokenRevocationList revocations = new TokenRevocationList(10);
+		RevocationSync sync = new RevocationSync(cursor -> {
+			cursors.add(cursor);
+			return cursor == null
+					? new RevocationBatch(true, List.of(new Revocation("jti-1", inOneHour)), "c1")
+					: new RevocationBatch(false, List.of(new Revocation("jti-2", inOneHour)), "c2");
+		}, revocations, Duration.ofSeconds(30));
+
+		sync.refresh();
+		sync.refresh();
+		sync.refresh();
+
+		assertThat(cursors).containsExactly(null, "c1", "c2");
+		assertThat(revocations.isRevoked("jti-1")).isTrue();
+		assertThat(revocations.isRevoked("jti-2")).isTrue();
+	}
+
+	@Test
+	void keepsTheCursorWhenTheListRefusesARevocation() {
+		TokenRevocationList revocations = new TokenRevocationList(2);
+		RevocationSync sync = new RevocationSync(cursor -> {
+			cursors.add(cursor);
+			return cursor == null
+					? new RevocationBatch(true, List.of(new Revocation("jti-1", inOneHour)), "c1")
+					: new RevocationBatch(false, List.of(new Revocation("jti-2", inOneHour),
+							new Revocation("jti-3", inOneHour)), "c2");
+		}, revocations, Duration.ofSeconds(30));
+
+		sync.refresh();
+		sync.refresh();
+		sync.refresh();
+
+		// jti-3 did not fit, so its delta is fetched again instead of being skipped
+		assertThat(cursors).containsExactly(null, "c1", "c1");
+		assertThat(revocations.isRevoked("jti-2")).isTrue();
+		assertThat(revocations.isRevoked("jti-3")).isFalse();
+	}
+}
@@ -0,0 +1,60 @@
+package com.muscledia.api_gateway.revocation;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenRevocationListTests {
+
+	private final long inOneHour = Instant.now().plusSeconds(3600).getEpochSecond();
+
+	private final TokenRevocationList revocations = new TokenRevocationList(5000);
+
+	@Test
+	void revokesUntilTheTokenExpires() {
+		revocations.revoke("jti-1", inOneHour);
+		revocations.revoke("jti-2", Instant.now().minusSeconds(120).getEpochSecond());
+
+		assertThat(revocations.isRevoked("jti-1")).isTrue();
+		assertThat(revocations.isRevoked("jti-2")).isFalse();
+		assertThat(revocations.isRevoked("jti-3")).isFalse();
+		assertThat(revocations.isRevoked(null)).isFalse();
+	}
+
+	@Test
+	void growsPastItsInitialCapacity() {
+		for (int i = 0; i < 3000; i++) {
+			assertThat(revocations.revoke("jti-" + i, inOneHour)).isTrue();
+		}
+
+		assertThat(revocations.size()).isEqualTo(3000);
+		for (int i = 0; i < 3000; i++) {
+			assertThat(revocations.isRevoked("jti-" + i)).isTrue();
+		}
+		assertThat(revocations.isRevoked("jti-3000")).isFalse();
+	}
+
+	@Test
+	void refusesEntriesBeyondTheLimit() {
+		TokenRevocationList small = new TokenRevocationList(2);
+		small.revoke("jti-1", inOneHour);
+		small.revoke("jti-2", inOneHour);
+
+		assertThat(small.revoke("jti-3", inOneHour)).isFalse();
+		assertThat(small.isRevoked("jti-3")).isFalse();
+		assertThat(small.revoke("jti-1", inOneHour + 60)).isTrue();
+	}
+
+	@Test
+	void snapshotReplacesEverything() {
+		revocations.revoke("jti-1", inOneHour);
+
+		revocations.replaceAll(List.of(new Revocation("jti-2", inOneHour)));
+
+		assertThat(revocations.isRevoked("jti-1")).isFalse();
+		assertThat(revocations.isRevoked("jti-2")).isTrue();
+	}
+}
@@ -0,0 +1,66 @@
+package com.muscledia.api_gateway.route;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.gateway.handler.predicate.PredicateDefinition;
+import org.springframework.cloud.gateway.route.Route;
+import org.springframework.cloud.gateway.route.RouteDefinition;
+import org.springframework.http.server.PathContainer;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RouteIndexTests {
+
+	private final List<RouteDefinition> definitions = List.of(
+			definition("auth-public", "Path=/api/users/login,/api/users/register"),
+			definition("ai-public", "Path=/ollama/**"),
+			definition("workout-public", "Path=/api/v1/**"),
+			definition("gamification-route", "Path=/api/gamification/**,/api/champions/**,/api/quests/**"),
+			definition("by-host", "Host=**.muscledia.com"),
+			definition("by-user", "Path=/api/users/{id}/profile,false"));
+
+	private final RouteIndex index = RouteIndex.build(
+			definitions.stream().map(definition -> route(definition.getId())).toList(),
+			definitions.stream().collect(Collectors.toMap(RouteDefinition::getId, Function.identity())));
+
+	@Test
+	void narrowsCandidatesToRoutesSharingTheLiteralPrefix() {
+		assertThat(ids("/api/v1/exercises/42")).containsExactly("workout-public", "by-host");
+		assertThat(ids("/api/quests/daily")).containsExactly("gamification-route", "by-host");
+		assertThat(ids("/ollama/api/generate")).containsExactly("ai-public", "by-host");
+	}
+
+	@Test
+	void keepsRouteOrderAndRoutesWithoutPathPredicates() {
+		assertThat(ids("/api/users/login")).containsExactly("auth-public", "by-host", "by-user");
+		assertThat(ids("/api/users/7/profile")).containsExactly("by-host", "by-user");
+		assertThat(ids("/unknown")).containsExactly("by-host");
+		assertThat(ids("/")).containsExactly("by-host");
+	}
+
+	@Test
+	void matchesDecodedSegmentsAndIgnoresEmptyOnes() {
+		assertThat(ids("/api//v%31/exercises")).containsExactly("workout-public", "by-host");
+	}
+
+	private List<String> ids(String path) {
+		return Arrays.stream(index.candidates(PathContainer.parsePath(path))).map(Route::getId).toList();
+	}
+
+	private static RouteDefinition definition(String id, String... predicates) {
+		RouteDefinition definition = new RouteDefinition();
+		definition.setId(id);
+		definition.setPredicates(Stream.of(predicates).map(PredicateDefinition::new).toList());
+		return definition;
+	}
+
+	private static Route route(String id) {
+		return Route.async().id(id).uri("http://localhost").predicate(exchange -> true).build();
+	}
+}
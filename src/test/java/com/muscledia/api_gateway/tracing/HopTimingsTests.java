@@ -0,0 +1,109 @@
+package com.muscledia.api_gateway.tracing;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.tracing.handler.TracingObservationHandler;
+import io.micrometer.tracing.otel.bridge.OtelSpan;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.TraceFlags;
+import io.opentelemetry.api.trace.TraceState;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.server.reactive.observation.ServerRequestObservationContext;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HopTimingsTests {
+
+	@Test
+	void reportsMeasuredHopsInServerTiming() {
+		MockServerWebExchange exchange = exchange();
+
+		new HopTimingsWebFilter(true).filter(exchange, ex -> {
+			HopTimings timings = HopTimings.find(ex);
+			timings.auth(800_000);
+			timings.route(20_000);
+			return ex.getResponse().setComplete();
+		}).block();
+
+		// No upstream call, so no connect or upstream phase
+		assertThat(exchange.getResponse().getHeaders().getFirst(HopTimingsWebFilter.SERVER_TIMING_HEADER))
+				.isEqualTo("auth;dur=0.80, route;dur=0.02");
+	}
+
+	@Test
+	void measuresUpstreamPhasesFromRoutingStart() throws InterruptedException {
+		HopTimings timings = new HopTimings();
+		timings.routingStarted();
+		Thread.sleep(2);
+		timings.requestSent();
+		timings.responseReceived();
+
+		assertThat(timings.serverTiming()).matches("connect;dur=\\d+\\.\\d{2}, upstream;dur=\\d+\\.\\d{2}");
+	}
+
+	@Test
+	void omitsHeaderUnlessEnabled() {
+		MockServerWebExchange exchange = exchange();
+
+		new HopTimingsWebFilter(false).filter(exchange, ex -> {
+			HopTimings.find(ex).auth(800_000);
+			return ex.getResponse().setComplete();
+		}).block();
+
+		assertThat(exchange.getResponse().getHeaders().containsKey(HopTimingsWebFilter.SERVER_TIMING_HEADER)).isFalse();
+	}
+
+	@Test
+	void exposesTimingsToTheRoutingClientContext() {
+		MockServerWebExchange exchange = exchange();
+
+		new HopTimingsWebFilter(false).filter(exchange, ex -> Mono.deferContextual(context -> {
+			assertThat(context.get(HopTimings.class)).isSameAs(HopTimings.find(ex));
+			return Mono.<Void>empty();
+		})).block();
+	}
+
+	@Test
+	void tagsTheServerSpanWhenItIsSampled() {
+		MockServerWebExchange exchange = exchange();
+		ServerRequestObservationContext observation = observe(exchange, TraceFlags.getSampled());
+
+		new HopTimingsWebFilter(false).filter(exchange, ex -> {
+			HopTimings.find(ex).auth(12_804_999);
+			return ex.getResponse().setComplete();
+		}).block();
+
+		assertThat(observation.getHighCardinalityKeyValues()).containsExactly(KeyValue.of("gateway.auth.ms", "12.80"));
+	}
+
+	@Test
+	void leavesUnsampledSpansUntagged() {
+		MockServerWebExchange exchange = exchange();
+		ServerRequestObservationContext observation = observe(exchange, TraceFlags.getDefault());
+
+		new HopTimingsWebFilter(false).filter(exchange, ex -> {
+			HopTimings.find(ex).auth(800_000);
+			return ex.getResponse().setComplete();
+		}).block();
+
+		assertThat(observation.getHighCardinalityKeyValues()).isEmpty();
+	}
+
+	private static ServerRequestObservationContext observe(MockServerWebExchange exchange, TraceFlags flags) {
+		ServerRequestObservationContext observation = new ServerRequestObservationContext(exchange.getRequest(),
+				exchange.getResponse(), exchange.getAttributes());
+		TracingObservationHandler.TracingContext tracing = new TracingObservationHandler.TracingContext();
+		tracing.setSpan(OtelSpan.fromOtel(Span.wrap(SpanContext.create("0af7651916cd43dd8448eb211c80319c",
+				"b7ad6b7169203331", flags, TraceState.getDefault()))));
+		observation.put(TracingObservationHandler.TracingContext.class, tracing);
+		exchange.getAttributes().put(ServerRequestObservationContext.CURRENT_OBSERVATION_CONTEXT_ATTRIBUTE, observation);
+		return observation;
+	}
+
+	private static MockServerWebExchange exchange() {
+		return MockServerWebExchange.from(MockServerHttpRequest.get("/api/v1/workouts"));
+	}
+}